@@ -0,0 +1,22 @@
+package com.ordersystem.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 仅管理员可访问
+ * 标注在控制器方法或控制器类上，由AdminInterceptor根据Token中的角色校验，无需再查询用户信息
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AdminOnly {
+
+    /**
+     * 无权限时返回的提示信息
+     */
+    String message() default "无权限";
+}
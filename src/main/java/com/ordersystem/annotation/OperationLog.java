@@ -0,0 +1,27 @@
+package com.ordersystem.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 操作日志元数据
+ * 标注在控制器方法上，LogAspect按方法解析一次并缓存，记录日志时不再根据URI和方法名推断
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface OperationLog {
+
+    /**
+     * 操作类型，如"查询订单"、"登录"
+     */
+    String operation();
+
+    /**
+     * 方法的文字描述，为空时使用@ApiOperation的value或方法名
+     */
+    String description() default "";
+}
@@ -1,5 +1,7 @@
 package com.ordersystem.config;
 
+import com.ordersystem.service.RedisService;
+import com.ordersystem.service.UserFilterService;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -8,12 +10,15 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 /**
@@ -66,4 +71,38 @@ public class RedisConfig extends CachingConfigurerSupport {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * Redis消息监听容器
+     * 订阅Token失效通知，收到其他节点的通知后清除本地Token缓存；
+     * 订阅用户名新增通知，收到其他节点的通知后加入本地用户名过滤器
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       RedisService redisService,
+                                                                       UserFilterService userFilterService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int sep = body.indexOf(':');
+            if (sep <= 0 || body.substring(sep + 1).equals(redisService.getNodeId())) {
+                return;
+            }
+            try {
+                redisService.evictLocalToken(Integer.valueOf(body.substring(0, sep)));
+            } catch (NumberFormatException e) {
+                logger.warn("无法解析Token失效通知: {}", body);
+            }
+        }, new ChannelTopic(RedisService.TOKEN_INVALIDATE_CHANNEL));
+        container.addMessageListener((message, pattern) -> {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            int sep = body.indexOf(':');
+            if (sep <= 0 || body.substring(0, sep).equals(redisService.getNodeId())) {
+                return;
+            }
+            userFilterService.addLocalUsername(body.substring(sep + 1));
+        }, new ChannelTopic(UserFilterService.USERNAME_ADDED_CHANNEL));
+        return container;
+    }
+}
@@ -1,5 +1,7 @@
 package com.ordersystem.config;
 
+import com.ordersystem.interceptor.AdminInterceptor;
+import com.ordersystem.interceptor.RateLimitInterceptor;
 import com.ordersystem.interceptor.TokenInterceptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
@@ -8,6 +10,8 @@ import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.Map;
+
 /**
  * Web MVC配置类
  * 用于配置API路径前缀映射和拦截器
@@ -18,6 +22,12 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Autowired
     private TokenInterceptor tokenInterceptor;
 
+    @Autowired
+    private AdminInterceptor adminInterceptor;
+
+    @Autowired
+    private RateLimitInterceptor rateLimitInterceptor;
+
     /**
      * 配置路径匹配
      * 将/api前缀的请求映射到对应的控制器
@@ -30,10 +40,16 @@ public class WebMvcConfig implements WebMvcConfigurer {
     
     /**
      * 配置拦截器
-     * 添加Token验证拦截器
+     * 添加限流拦截器、Token验证拦截器和管理员权限拦截器
      */
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // 添加限流拦截器，每条规则一个，只处理登录、注册和验证码图片接口，超出限制直接返回429
+        for (Map.Entry<String, String[]> entry : RateLimitInterceptor.RULE_PATHS.entrySet()) {
+            registry.addInterceptor(rateLimitInterceptor.forRule(entry.getKey()))
+                    .addPathPatterns(entry.getValue());
+        }
+        
         // 添加Token拦截器，拦截所有API请求，但排除登录、注册和验证码接口
         registry.addInterceptor(tokenInterceptor)
                 .addPathPatterns("/api/**")
@@ -49,6 +65,10 @@ public class WebMvcConfig implements WebMvcConfigurer {
                     "/v2/api-docs",
                     "/webjars/**"
                 );
+        
+        // 添加管理员权限拦截器，在Token验证之后执行，只处理标注了@AdminOnly的接口
+        registry.addInterceptor(adminInterceptor)
+                .addPathPatterns("/api/**");
     }
     
     /**
@@ -1,14 +1,18 @@
 package com.ordersystem.controller;
 
+import com.ordersystem.annotation.OperationLog;
 import com.ordersystem.entity.User;
+import com.ordersystem.service.RateLimitService;
 import com.ordersystem.service.RedisService;
 import com.ordersystem.service.UserService;
 import com.ordersystem.util.JwtTokenUtil;
+import com.ordersystem.util.UsernameNormalizer;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -36,6 +40,9 @@ public class AdminAuthController {
     @Autowired
     private RedisService redisService;
     
+    @Autowired
+    private RateLimitService rateLimitService;
+    
     /**
      * 管理员登录
      * 
@@ -46,12 +53,23 @@ public class AdminAuthController {
     @ApiImplicitParams({
         @ApiImplicitParam(name = "loginUser", value = "登录信息", required = true, dataType = "User", paramType = "body")
     })
+    @OperationLog(operation = "登录", description = "管理员登录")
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody User loginUser) {
         // 调用service层的login方法进行用户验证
         String username = loginUser.getUsername();
         String password = loginUser.getPassword();
 
+        // 同一用户名的登录失败限流（IP维度由RateLimitInterceptor处理），按数据库排序规则归一化，大小写和重音不同的写法共用一个令牌桶
+        // 这里只检查不扣减，密码错误时才扣减令牌，避免他人用频繁请求锁住正常用户的账户
+        String limitKey = username == null ? null : UsernameNormalizer.normalize(username);
+        if (limitKey != null && !rateLimitService.hasToken("login-user", limitKey)) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "登录尝试过于频繁，请稍后再试");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+        }
+
         try {
             User user = userService.login(username, password);
             
@@ -79,6 +97,10 @@ public class AdminAuthController {
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
+            // 登录失败，扣减该用户名的令牌
+            if (limitKey != null) {
+                rateLimitService.tryAcquire("login-user", limitKey);
+            }
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("message", e.getMessage());
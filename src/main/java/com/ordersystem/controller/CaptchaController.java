@@ -1,6 +1,7 @@
 package com.ordersystem.controller;
 
 import com.google.code.kaptcha.Producer;
+import com.ordersystem.annotation.OperationLog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -36,6 +37,7 @@ public class CaptchaController {
      * @param response HTTP响应
      * @throws IOException IO异常
      */
+    @OperationLog(operation = "验证码", description = "获取图片验证码")
     @GetMapping("/image")
     public void getCaptcha(HttpServletRequest request, HttpServletResponse response) throws IOException {
         // 设置响应类型
@@ -69,6 +71,7 @@ public class CaptchaController {
      * @return Base64编码的验证码图片
      * @throws IOException IO异常
      */
+    @OperationLog(operation = "验证码", description = "获取Base64图片验证码")
     @GetMapping("/image/base64")
     public ResponseEntity<?> getCaptchaBase64(HttpServletRequest request) throws IOException {
         // 生成验证码文本
@@ -99,6 +102,7 @@ public class CaptchaController {
      * @param request HTTP请求
      * @return 验证结果
      */
+    @OperationLog(operation = "验证码", description = "校验验证码")
     @PostMapping("/verify")
     public ResponseEntity<?> verifyCaptcha(@RequestParam String captchaCode, HttpServletRequest request) {
         HttpSession session = request.getSession();
@@ -1,5 +1,6 @@
 package com.ordersystem.controller;
 
+import com.ordersystem.annotation.OperationLog;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.slf4j.Logger;
@@ -29,6 +30,7 @@ public class CategoryController {
      * @return 分类列表
      */
     @ApiOperation(value = "获取所有商品分类", notes = "返回系统中所有可用的商品分类列表")
+    @OperationLog(operation = "查询分类", description = "获取所有商品分类")
     @GetMapping("/api/categories")
     public ResponseEntity<?> getAllCategories() {
         log.info("获取所有商品分类");
@@ -41,6 +43,7 @@ public class CategoryController {
      * @return 分类列表
      */
     @ApiOperation(value = "获取所有商品分类(备用路径)", notes = "通过备用API路径返回系统中所有可用的商品分类列表")
+    @OperationLog(operation = "查询分类", description = "获取商品分类列表")
     @GetMapping("/api/category/list")
     public ResponseEntity<?> getCategoryList() {
         log.info("通过备用API路径获取所有商品分类");
@@ -1,6 +1,7 @@
 package com.ordersystem.controller;
 
 import com.github.pagehelper.PageInfo;
+import com.ordersystem.annotation.OperationLog;
 import com.ordersystem.entity.Cart;
 import com.ordersystem.service.CartService;
 import io.swagger.annotations.Api;
@@ -47,6 +48,7 @@ public class ClientCartController {
         @ApiImplicitParam(name = "pageNum", value = "页码", defaultValue = "1", paramType = "query", dataType = "int"),
         @ApiImplicitParam(name = "pageSize", value = "每页数量", defaultValue = "10", paramType = "query", dataType = "int")
     })
+    @OperationLog(operation = "查询购物车", description = "获取购物车列表")
     @GetMapping
     public ResponseEntity<?> getCartList(
             @RequestParam(value = "pageNum", defaultValue = "1") Integer pageNum,
@@ -100,6 +102,7 @@ public class ClientCartController {
         @ApiImplicitParam(name = "productId", value = "商品ID", required = true, paramType = "query", dataType = "int"),
         @ApiImplicitParam(name = "quantity", value = "数量", defaultValue = "1", paramType = "query", dataType = "int")
     })
+    @OperationLog(operation = "新增购物车", description = "添加商品到购物车")
     @PostMapping
     public ResponseEntity<?> addToCart(
             @RequestParam("productId") Integer productId,
@@ -163,6 +166,7 @@ public class ClientCartController {
         @ApiImplicitParam(name = "cartId", value = "购物车ID", required = true, paramType = "path", dataType = "int"),
         @ApiImplicitParam(name = "quantity", value = "数量", required = true, paramType = "query", dataType = "int")
     })
+    @OperationLog(operation = "修改购物车", description = "更新购物车商品数量")
     @PutMapping("/{cartId}/quantity")
     public ResponseEntity<?> updateCartQuantity(
             @PathVariable Integer cartId,
@@ -190,12 +194,7 @@ public class ClientCartController {
 
         try {
             // 验证购物车项是否属于当前用户
-            Cart cart = cartService.getCartList(userId).stream()
-                    .filter(c -> c.getCartId().equals(cartId))
-                    .findFirst()
-                    .orElse(null);
-
-            if (cart == null) {
+            if (!cartService.isUserCart(userId, cartId)) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", false);
                 response.put("message", "购物车项不存在或不属于您");
@@ -203,7 +202,7 @@ public class ClientCartController {
             }
 
             // 更新购物车商品数量
-            boolean success = cartService.updateCartQuantity(cartId, quantity);
+            boolean success = cartService.updateCartQuantity(userId, cartId, quantity);
 
             Map<String, Object> response = new HashMap<>();
             if (success) {
@@ -237,6 +236,7 @@ public class ClientCartController {
         @ApiImplicitParam(name = "cartId", value = "购物车ID", required = true, paramType = "path", dataType = "int"),
         @ApiImplicitParam(name = "selected", value = "选中状态：0-未选中，1-已选中", required = true, paramType = "query", dataType = "int")
     })
+    @OperationLog(operation = "修改购物车", description = "更新购物车商品选中状态")
     @PutMapping("/{cartId}/selected")
     public ResponseEntity<?> updateCartSelected(
             @PathVariable Integer cartId,
@@ -264,12 +264,7 @@ public class ClientCartController {
 
         try {
             // 验证购物车项是否属于当前用户
-            Cart cart = cartService.getCartList(userId).stream()
-                    .filter(c -> c.getCartId().equals(cartId))
-                    .findFirst()
-                    .orElse(null);
-
-            if (cart == null) {
+            if (!cartService.isUserCart(userId, cartId)) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", false);
                 response.put("message", "购物车项不存在或不属于您");
@@ -277,7 +272,7 @@ public class ClientCartController {
             }
 
             // 更新购物车商品选中状态
-            boolean success = cartService.updateCartSelected(cartId, selected);
+            boolean success = cartService.updateCartSelected(userId, cartId, selected);
 
             Map<String, Object> response = new HashMap<>();
             if (success) {
@@ -307,6 +302,7 @@ public class ClientCartController {
      */
     @ApiOperation(value = "全选/取消全选购物车商品", notes = "修改购物车中所有商品的选中状态")
     @ApiImplicitParam(name = "selected", value = "选中状态：0-未选中，1-已选中", required = true, paramType = "query", dataType = "int")
+    @OperationLog(operation = "修改购物车", description = "全选或取消全选购物车商品")
     @PutMapping("/selected/all")
     public ResponseEntity<?> selectAllCart(
             @RequestParam("selected") Integer selected,
@@ -363,6 +359,7 @@ public class ClientCartController {
      */
     @ApiOperation(value = "删除购物车商品", notes = "从购物车中删除指定商品")
     @ApiImplicitParam(name = "cartId", value = "购物车ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "删除购物车", description = "删除购物车商品")
     @DeleteMapping("/{cartId}")
     public ResponseEntity<?> deleteCart(
             @PathVariable Integer cartId,
@@ -381,12 +378,7 @@ public class ClientCartController {
 
         try {
             // 验证购物车项是否属于当前用户
-            Cart cart = cartService.getCartList(userId).stream()
-                    .filter(c -> c.getCartId().equals(cartId))
-                    .findFirst()
-                    .orElse(null);
-
-            if (cart == null) {
+            if (!cartService.isUserCart(userId, cartId)) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", false);
                 response.put("message", "购物车项不存在或不属于您");
@@ -394,7 +386,7 @@ public class ClientCartController {
             }
 
             // 删除购物车商品
-            boolean success = cartService.deleteCart(cartId);
+            boolean success = cartService.deleteCart(userId, cartId);
 
             Map<String, Object> response = new HashMap<>();
             if (success) {
@@ -424,6 +416,7 @@ public class ClientCartController {
      * @return 清空结果
      */
     @ApiOperation(value = "清空购物车", notes = "清空当前用户的购物车中所有商品")
+    @OperationLog(operation = "删除购物车", description = "清空购物车")
     @DeleteMapping
     public ResponseEntity<?> clearCart(HttpServletRequest request) {
 
@@ -468,6 +461,7 @@ public class ClientCartController {
      * @return 购物车商品数量
      */
     @ApiOperation(value = "获取购物车商品数量", notes = "获取当前用户购物车中的商品总数量")
+    @OperationLog(operation = "查询购物车", description = "获取购物车商品数量")
     @GetMapping("/count")
     public ResponseEntity<?> getCartCount(HttpServletRequest request) {
 
@@ -506,6 +500,7 @@ public class ClientCartController {
      * @return 已选中的购物车商品列表
      */
     @ApiOperation(value = "获取已选中的购物车商品列表", notes = "获取当前用户购物车中已选中的商品列表")
+    @OperationLog(operation = "查询购物车", description = "获取已选中的购物车商品")
     @GetMapping("/selected")
     public ResponseEntity<?> getSelectedCartList(HttpServletRequest request) {
 
@@ -544,6 +539,7 @@ public class ClientCartController {
      * @param request HTTP请求
      * @return 清空结果
      */
+    @OperationLog(operation = "删除购物车", description = "清除已选中的购物车商品")
     @DeleteMapping("/selected/clear")
     public ResponseEntity<?> clearSelectedCart(HttpServletRequest request) {
 
@@ -559,25 +555,14 @@ public class ClientCartController {
         }
 
         try {
-            // 获取已选中的购物车商品列表
-            List<Cart> selectedCartList = cartService.getSelectedCartList(userId);
-            
-            // 删除已选中的购物车商品
-            boolean success = true;
-            for (Cart cart : selectedCartList) {
-                success = success && cartService.deleteCart(cart.getCartId());
-            }
+            // 一次删除所有已选中的购物车商品
+            int count = cartService.deleteSelectedCart(userId);
 
             Map<String, Object> response = new HashMap<>();
-            if (success) {
-                response.put("success", true);
-                response.put("message", "清空已选中的购物车商品成功");
-                return ResponseEntity.ok(response);
-            } else {
-                response.put("success", false);
-                response.put("message", "清空已选中的购物车商品失败");
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-            }
+            response.put("success", true);
+            response.put("message", "清空已选中的购物车商品成功");
+            response.put("count", count);
+            return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("清空已选中的购物车商品失败", e);
             Map<String, Object> response = new HashMap<>();
@@ -586,4 +571,98 @@ public class ClientCartController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 批量删除购物车商品
+     *
+     * @param cartIds 购物车ID列表
+     * @param request HTTP请求
+     * @return 删除结果
+     */
+    @ApiOperation(value = "批量删除购物车商品", notes = "根据购物车ID列表一次删除多个商品，不属于当前用户的ID忽略")
+    @OperationLog(operation = "删除购物车", description = "批量删除购物车商品")
+    @DeleteMapping("/batch")
+    public ResponseEntity<?> deleteCartBatch(@RequestBody List<Integer> cartIds, HttpServletRequest request) {
+
+        // 从请求属性中获取用户ID（由拦截器设置）
+        Integer userId = (Integer) request.getAttribute("userId");
+
+        if (userId == null) {
+            // 用户未登录，返回错误
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "未登录，无法删除购物车商品");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+
+        if (cartIds == null || cartIds.isEmpty()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "购物车ID列表不能为空");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            int count = cartService.deleteCartsByIds(userId, cartIds);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "批量删除购物车商品成功");
+            response.put("count", count);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("批量删除购物车商品失败", e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "批量删除购物车商品失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 批量更新购物车商品数量
+     *
+     * @param items   购物车项列表，每项包含cartId和quantity
+     * @param request HTTP请求
+     * @return 更新结果
+     */
+    @ApiOperation(value = "批量更新购物车商品数量", notes = "一次修改多个商品的数量，数量超过库存时调整为最大库存")
+    @OperationLog(operation = "修改购物车", description = "批量更新购物车商品数量")
+    @PutMapping("/quantities")
+    public ResponseEntity<?> updateCartQuantities(@RequestBody List<Cart> items, HttpServletRequest request) {
+
+        // 从请求属性中获取用户ID（由拦截器设置）
+        Integer userId = (Integer) request.getAttribute("userId");
+
+        if (userId == null) {
+            // 用户未登录，返回错误
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "未登录，无法更新购物车");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+
+        if (items == null || items.isEmpty()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "购物车项列表不能为空");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            int count = cartService.updateCartQuantities(userId, items);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "批量更新购物车商品数量成功");
+            response.put("count", count);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("批量更新购物车商品数量失败", e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "批量更新购物车商品数量失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.ordersystem.controller;
 
 import com.github.pagehelper.PageInfo;
+import com.ordersystem.annotation.OperationLog;
 import com.ordersystem.entity.Order;
 import com.ordersystem.entity.User;
 import com.ordersystem.service.OrderService;
@@ -15,11 +16,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 客户端订单控制器
@@ -52,6 +57,7 @@ public class ClientOrderController {
         @ApiImplicitParam(name = "status", value = "订单状态", paramType = "query", dataType = "int"),
         @ApiImplicitParam(name = "keyword", value = "搜索关键词", paramType = "query", dataType = "string")
     })
+    @OperationLog(operation = "查询订单", description = "获取客户端订单列表")
     @GetMapping
     public ResponseEntity<?> getClientOrders(
             @RequestParam(value = "page", defaultValue = "1") Integer page,
@@ -116,6 +122,7 @@ public class ClientOrderController {
      */
     @ApiOperation(value = "获取订单详情", notes = "根据订单UUID获取订单详细信息")
     @ApiImplicitParam(name = "uuid", value = "订单UUID", required = true, paramType = "path", dataType = "string")
+    @OperationLog(operation = "查询订单", description = "获取订单详情")
     @GetMapping("/{uuid}")
     public ResponseEntity<?> getOrderByUuid(
             @PathVariable String uuid,
@@ -172,6 +179,7 @@ public class ClientOrderController {
      */
     @ApiOperation(value = "取消订单", notes = "客户取消未发货的订单")
     @ApiImplicitParam(name = "uuid", value = "订单UUID", required = true, paramType = "path", dataType = "string")
+    @OperationLog(operation = "修改订单", description = "取消订单")
     @PostMapping("/{uuid}/cancel")
     public ResponseEntity<?> cancelOrder(
             @PathVariable String uuid,
@@ -237,6 +245,7 @@ public class ClientOrderController {
      */
     @ApiOperation(value = "确认收货", notes = "客户确认已收到商品")
     @ApiImplicitParam(name = "uuid", value = "订单UUID", required = true, paramType = "path", dataType = "string")
+    @OperationLog(operation = "修改订单", description = "确认收货")
     @PostMapping("/{uuid}/confirm")
     public ResponseEntity<?> confirmOrder(
             @PathVariable String uuid,
@@ -302,6 +311,7 @@ public class ClientOrderController {
      */
     @ApiOperation(value = "跳转到支付页面", notes = "跳转到支付选择页面")
     @ApiImplicitParam(name = "uuid", value = "订单UUID", required = true, paramType = "path", dataType = "string")
+    @OperationLog(operation = "查询订单", description = "跳转到支付页面")
     @GetMapping("/{uuid}/payment")
     public ResponseEntity<?> goToPayment(
             @PathVariable String uuid,
@@ -363,6 +373,7 @@ public class ClientOrderController {
      */
     @ApiOperation(value = "支付订单", notes = "客户支付订单")
     @ApiImplicitParam(name = "uuid", value = "订单UUID", required = true, paramType = "path", dataType = "string")
+    @OperationLog(operation = "修改订单", description = "支付订单")
     @PostMapping("/{uuid}/pay")
     public ResponseEntity<?> payOrder(
             @PathVariable String uuid,
@@ -435,4 +446,66 @@ public class ClientOrderController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * 购物车结算
+     * 一次请求完成下单：读取已选中的购物车商品、校验库存、扣减库存、创建订单并移出购物车
+     * 
+     * @param order 收货信息（收货人、电话、地址、备注），只校验收货信息分组，订单项由服务端生成
+     * @param bindingResult 验证结果
+     * @param request HTTP请求
+     * @return 创建的订单
+     */
+    @ApiOperation(value = "购物车结算", notes = "将购物车中已选中的商品生成订单，订单明细和金额由服务端根据购物车计算")
+    @OperationLog(operation = "新增订单", description = "购物车结算")
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkoutCart(
+            @Validated(Order.Shipping.class) @RequestBody Order order,
+            BindingResult bindingResult,
+            HttpServletRequest request) {
+        // 从请求属性中获取用户ID（由拦截器设置）
+        Integer userId = (Integer) request.getAttribute("userId");
+        
+        if (userId == null) {
+            // 用户未登录，返回错误
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "未登录，无法结算");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        
+        // 检查验证错误
+        if (bindingResult.hasErrors()) {
+            String errorMsg = bindingResult.getFieldErrors().stream()
+                    .map(FieldError::getDefaultMessage)
+                    .collect(Collectors.joining(", "));
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "订单信息有误: " + errorMsg);
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        try {
+            Order created = orderService.checkoutCart(userId, order);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "订单创建成功");
+            response.put("orderId", created.getOrderId());
+            response.put("orderUuid", created.getOrderUuid());
+            response.put("order", created);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (IllegalStateException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            log.error("购物车结算失败", e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "购物车结算失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
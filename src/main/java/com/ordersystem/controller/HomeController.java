@@ -1,5 +1,6 @@
 package com.ordersystem.controller;
 
+import com.ordersystem.annotation.OperationLog;
 import io.swagger.annotations.Api;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,6 +16,7 @@ public class HomeController {
      * 访问首页
      * @return 重定向到静态首页
      */
+    @OperationLog(operation = "访问首页", description = "访问首页")
     @GetMapping("/")
     public String index() {
         return "forward:/index.html";
@@ -1,8 +1,8 @@
 package com.ordersystem.controller;
 
-import com.ordersystem.entity.User;
-import com.ordersystem.service.RedisService;
-import com.ordersystem.service.UserService;
+import com.ordersystem.annotation.AdminOnly;
+import com.ordersystem.annotation.OperationLog;
+import com.ordersystem.service.OnlineUserService;
 import com.ordersystem.service.SysLogService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
@@ -10,7 +10,6 @@ import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,63 +21,49 @@ import org.slf4j.LoggerFactory;
 
 /**
  * 在线用户控制器
- * 提供在线用户相关的RESTful API
+ * 提供在线用户相关的RESTful API，仅管理员可访问
  */
 @Api(tags = "在线用户管理", description = "在线用户查询和强制登出接口")
 @RestController
 @RequestMapping("/api/online-users")
+@AdminOnly
 public class OnlineUserController {
     
     private static final Logger log = LoggerFactory.getLogger(OnlineUserController.class);
 
     @Autowired
-    private RedisService redisService;
-    
-    @Autowired
-    private UserService userService;
+    private SysLogService sysLogService;
     
     @Autowired
-    private SysLogService sysLogService;
+    private OnlineUserService onlineUserService;
     
     /**
-     * 获取所有在线用户
+     * 分页获取在线用户
+     * 按最近活跃时间倒序排列
      * 
+     * @param page 页码
+     * @param size 每页数量
      * @param request HTTP请求
-     * @return 在线用户列表
+     * @return 在线用户分页数据
      */
-    @ApiOperation(value = "获取所有在线用户", notes = "获取当前系统中所有在线用户的列表")
+    @ApiOperation(value = "获取在线用户", notes = "按最近活跃时间倒序分页获取当前系统中的在线用户")
+    @ApiImplicitParams({
+        @ApiImplicitParam(name = "page", value = "页码", defaultValue = "1", paramType = "query", dataType = "int"),
+        @ApiImplicitParam(name = "size", value = "每页数量", defaultValue = "50", paramType = "query", dataType = "int")
+    })
+    @OperationLog(operation = "在线用户", description = "获取在线用户列表")
     @GetMapping
-    public ResponseEntity<?> getOnlineUsers(HttpServletRequest request) {
-        // 从Redis中获取所有在线用户的Token
-        Map<Integer, String> userTokens = redisService.getAllUserTokens();
-        
-        if (userTokens.isEmpty()) {
-            return ResponseEntity.ok(Collections.emptyList());
-        }
-        
+    public ResponseEntity<?> getOnlineUsers(
+            @RequestParam(value = "page", defaultValue = "1") Integer page,
+            @RequestParam(value = "size", defaultValue = "50") Integer size,
+            HttpServletRequest request) {
         // 获取当前用户ID（用于标记当前用户）
         Integer currentUserId = (Integer) request.getAttribute("userId");
-        if (userService.getUserById(currentUserId).getRole() != 1){
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("无权限");
-        }
-        // 获取所有在线用户的详细信息
-        List<Map<String, Object>> onlineUsers = new ArrayList<>();
-        for (Map.Entry<Integer, String> entry : userTokens.entrySet()) {
-            Integer userId = entry.getKey();
-            User user = userService.getUserById(userId);
-            
-            if (user != null) {
-                Map<String, Object> userInfo = new HashMap<>();
-                userInfo.put("userId", user.getUserId());
-                userInfo.put("username", user.getUsername());
-                userInfo.put("realName", user.getRealName());
-                userInfo.put("isCurrentUser", Objects.equals(userId, currentUserId));
-                
-                onlineUsers.add(userInfo);
-            }
-        }
-        
-        return ResponseEntity.ok(onlineUsers);
+        int pageNum = Math.max(page, 1);
+        int pageSize = Math.min(Math.max(size, 1), 500);
+        Map<String, Object> result = onlineUserService.getOnlineUsers(pageNum, pageSize, currentUserId);
+        result.put("success", true);
+        return ResponseEntity.ok(result);
     }
     
     /**
@@ -90,6 +75,7 @@ public class OnlineUserController {
      */
     @ApiOperation(value = "强制用户登出", notes = "管理员强制指定用户下线")
     @ApiImplicitParam(name = "userId", value = "用户ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "在线用户", description = "强制用户下线")
     @PostMapping("/{userId}/force-logout")
     public ResponseEntity<?> forceLogout(@PathVariable("userId") Integer userId, HttpServletRequest request) {
         // 记录操作者信息
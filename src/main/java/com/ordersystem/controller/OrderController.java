@@ -1,14 +1,21 @@
 package com.ordersystem.controller;
 
 import com.github.pagehelper.PageInfo;
+import com.ordersystem.annotation.AdminOnly;
+import com.ordersystem.annotation.OperationLog;
 import com.ordersystem.entity.Order;
 import com.ordersystem.entity.OrderItem;
 import com.ordersystem.entity.User;
+import com.ordersystem.service.CategorySalesService;
+import com.ordersystem.service.DashboardService;
+import com.ordersystem.service.OrderExportService;
 import com.ordersystem.service.OrderItemService;
+import com.ordersystem.service.OrderSearchIndexService;
 import com.ordersystem.service.OrderService;
 import com.ordersystem.service.ProductService;
 import com.ordersystem.service.UserService;
 import com.ordersystem.service.impl.UserServiceImpl;
+import com.ordersystem.util.TokenPrincipal;
 import com.ordersystem.util.UUIDGenerater;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
@@ -18,6 +25,7 @@ import io.swagger.annotations.ApiParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -26,8 +34,14 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +70,14 @@ public class OrderController {
     private OrderItemService orderItemService;
 	@Autowired
 	private UserServiceImpl userServiceImpl;
+    @Autowired
+    private DashboardService dashboardService;
+    @Autowired
+    private CategorySalesService categorySalesService;
+    @Autowired
+    private OrderExportService orderExportService;
+    @Autowired
+    private OrderSearchIndexService orderSearchIndexService;
 
 
     /**
@@ -68,45 +90,15 @@ public class OrderController {
      */
     @ApiOperation(value = "获取仪表盘数据", notes = "获取订单总数和近期订单统计数据")
     @ApiImplicitParam(name = "days", value = "统计天数", defaultValue = "15", paramType = "query", dataType = "int")
+    @AdminOnly(message = "无权访问仪表盘数据")
+    @OperationLog(operation = "查询订单", description = "获取仪表盘数据")
     @GetMapping("/dashboard")
     public ResponseEntity<?> getDashboardData(
             @RequestParam(value = "days", defaultValue = "15") Integer days,
             HttpServletRequest request) {
-        // 从请求属性中获取用户ID（由拦截器设置）
-        Integer userId = (Integer) request.getAttribute("userId");
-        User user = userService.getUserById(userId);
-        
-        // 验证用户权限（只有管理员可以访问）
-        if (userId == null || user == null || user.getRole() != 1) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "无权访问仪表盘数据");
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
-        }
-        
         try {
-            // 获取订单总数
-            Integer totalOrders = orderService.getOrderCount();
-            
-            // 获取近期订单统计
-            List<Map<String, Object>> recentOrders = orderService.getRecentOrdersCount(days);
-            
-            // 获取订单状态分布
-            List<Map<String, Object>> orderStatusDistribution = orderService.getOrderStatusDistribution();
-            
-            // 获取商品类别销售分布
-            List<Map<String, Object>> productCategoryDistribution = orderService.getProductCategoryDistribution();
-            
-            // 获取支付方式分布
-            List<Map<String, Object>> paymentMethodDistribution = orderService.getPaymentMethodDistribution();
-            
-            // 构建响应数据
-            Map<String, Object> dashboardData = new HashMap<>();
-            dashboardData.put("totalOrders", totalOrders);
-            dashboardData.put("recentOrders", recentOrders);
-            dashboardData.put("orderStatusDistribution", orderStatusDistribution);
-            dashboardData.put("productCategoryDistribution", productCategoryDistribution);
-            dashboardData.put("paymentMethodDistribution", paymentMethodDistribution);
+            // 各项统计并发查询，慢查询部分会在missingParts中标出
+            Map<String, Object> dashboardData = dashboardService.getDashboardData(days);
             
             return ResponseEntity.ok(dashboardData);
         } catch (Exception e) {
@@ -118,6 +110,237 @@ public class OrderController {
         }
     }
 
+    /**
+     * 重建商品类别销售统计
+     * 根据历史订单明细重新汇总各类别的销售数据，用于统计数据与订单不一致时修复
+     * 
+     * @param request HTTP请求
+     * @return 重建结果
+     */
+    @ApiOperation(value = "重建商品类别销售统计", notes = "根据历史订单重新汇总商品类别销售数据，仅管理员可用")
+    @AdminOnly(message = "无权重建统计数据")
+    @OperationLog(operation = "修改订单", description = "重建商品类别销售统计")
+    @PostMapping("/dashboard/category-sales/rebuild")
+    public ResponseEntity<?> rebuildCategorySales(HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int categoryCount = categorySalesService.rebuild();
+            dashboardService.evictDashboardCache();
+            response.put("success", true);
+            response.put("message", "商品类别销售统计重建成功");
+            response.put("categoryCount", categoryCount);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("重建商品类别销售统计失败", e);
+            response.put("success", false);
+            response.put("message", "重建商品类别销售统计失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 重建订单搜索索引
+     * 
+     * @param request HTTP请求
+     * @return 重建结果
+     */
+    @ApiOperation(value = "重建订单搜索索引", notes = "重新为订单号、收货人、收货人电话建立n-gram索引，仅管理员可用")
+    @AdminOnly(message = "无权重建搜索索引")
+    @OperationLog(operation = "修改订单", description = "重建订单搜索索引")
+    @PostMapping("/search-index/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex(HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int orderCount = orderSearchIndexService.rebuild();
+            response.put("success", true);
+            response.put("message", "订单搜索索引重建成功");
+            response.put("orderCount", orderCount);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("重建订单搜索索引失败", e);
+            response.put("success", false);
+            response.put("message", "重建订单搜索索引失败: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * 导出订单
+     * 逐行读取订单并直接以gzip压缩格式写入响应，适合数据量不大的即时导出
+     * 
+     * @param format 导出格式：csv、ndjson
+     * @param keyword 订单号、收货人或电话关键词
+     * @param status 订单状态
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @param request HTTP请求
+     * @param response HTTP响应
+     */
+    @ApiOperation(value = "导出订单", notes = "按筛选条件导出订单，返回gzip压缩的CSV或NDJSON文件，仅管理员可用")
+    @ApiImplicitParams({
+        @ApiImplicitParam(name = "format", value = "导出格式(csv/ndjson)", defaultValue = "csv", paramType = "query", dataType = "string"),
+        @ApiImplicitParam(name = "keyword", value = "订单号、收货人或电话关键词", paramType = "query", dataType = "string"),
+        @ApiImplicitParam(name = "status", value = "订单状态", paramType = "query", dataType = "int"),
+        @ApiImplicitParam(name = "startDate", value = "开始日期", paramType = "query", dataType = "string"),
+        @ApiImplicitParam(name = "endDate", value = "结束日期", paramType = "query", dataType = "string")
+    })
+    @AdminOnly(message = "无权导出订单")
+    @OperationLog(operation = "导出订单", description = "导出订单")
+    @GetMapping("/export")
+    public void exportOrders(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "status", required = false) Integer status,
+            @RequestParam(value = "startDate", required = false) String startDate,
+            @RequestParam(value = "endDate", required = false) String endDate,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Integer userId = (Integer) request.getAttribute("userId");
+        if (!"csv".equals(format) && !"ndjson".equals(format)) {
+            writeJsonError(response, HttpStatus.BAD_REQUEST, "导出格式只能是csv或ndjson");
+            return;
+        }
+        
+        Map<String, Object> filters = buildOrderFilters(keyword, status, startDate, endDate);
+        String fileName = "orders_" + new SimpleDateFormat("yyyyMMddHHmmss").format(new Date()) + "." + format + ".gz";
+        response.setContentType("application/gzip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+        long count = orderExportService.exportOrders(filters, format, response.getOutputStream());
+        log.info("管理员 {} 导出订单{}条，筛选条件：{}", userId, count, filters);
+    }
+    
+    /**
+     * 提交后台导出任务
+     * 大批量导出时使用，任务在后台写入文件，通过任务ID查询进度并下载
+     * 
+     * @param format 导出格式：csv、ndjson
+     * @param keyword 订单号、收货人或电话关键词
+     * @param status 订单状态
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @param request HTTP请求
+     * @return 任务信息
+     */
+    @ApiOperation(value = "提交订单导出任务", notes = "后台导出订单，返回任务ID，仅管理员可用")
+    @AdminOnly(message = "无权导出订单")
+    @OperationLog(operation = "导出订单", description = "提交订单导出任务")
+    @PostMapping("/export/jobs")
+    public ResponseEntity<?> submitExportJob(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "status", required = false) Integer status,
+            @RequestParam(value = "startDate", required = false) String startDate,
+            @RequestParam(value = "endDate", required = false) String endDate,
+            HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        Integer userId = (Integer) request.getAttribute("userId");
+        if (!"csv".equals(format) && !"ndjson".equals(format)) {
+            response.put("success", false);
+            response.put("message", "导出格式只能是csv或ndjson");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        try {
+            Map<String, Object> job = orderExportService.submitExportJob(
+                    buildOrderFilters(keyword, status, startDate, endDate), format, userId);
+            response.put("success", true);
+            response.put("message", "导出任务已提交");
+            response.put("job", job);
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+        }
+    }
+    
+    /**
+     * 查询导出任务进度
+     * 
+     * @param jobId 任务ID
+     * @param request HTTP请求
+     * @return 任务信息
+     */
+    @ApiOperation(value = "查询订单导出任务", notes = "查询后台导出任务的状态和进度，仅管理员可用")
+    @AdminOnly(message = "无权查看导出任务")
+    @OperationLog(operation = "导出订单", description = "查询订单导出任务")
+    @GetMapping("/export/jobs/{jobId}")
+    public ResponseEntity<?> getExportJob(@PathVariable String jobId, HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        Map<String, Object> job = orderExportService.getExportJob(jobId);
+        if (job == null) {
+            response.put("success", false);
+            response.put("message", "导出任务不存在或已过期");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("success", true);
+        response.put("job", job);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 下载导出文件
+     * 
+     * @param jobId 任务ID
+     * @param request HTTP请求
+     * @param response HTTP响应
+     */
+    @ApiOperation(value = "下载订单导出文件", notes = "下载已完成的导出任务文件，仅管理员可用")
+    @AdminOnly(message = "无权下载导出文件")
+    @OperationLog(operation = "导出订单", description = "下载订单导出文件")
+    @GetMapping("/export/jobs/{jobId}/download")
+    public void downloadExportFile(@PathVariable String jobId, HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        File file = orderExportService.getExportFile(jobId);
+        if (file == null) {
+            writeJsonError(response, HttpStatus.NOT_FOUND, "导出文件不存在或任务未完成");
+            return;
+        }
+        
+        response.setContentType("application/gzip");
+        response.setContentLengthLong(file.length());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=" + orderExportService.getExportFileName(jobId));
+        Files.copy(file.toPath(), response.getOutputStream());
+    }
+    
+    /**
+     * 构建订单筛选条件
+     */
+    private Map<String, Object> buildOrderFilters(String keyword, Integer status, String startDate, String endDate) {
+        Map<String, Object> filters = new HashMap<>();
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            filters.put("keyword", keyword.trim());
+        }
+        if (status != null) {
+            filters.put("status", status);
+        }
+        if (startDate != null && !startDate.trim().isEmpty()) {
+            filters.put("startDate", startDate);
+        }
+        if (endDate != null && !endDate.trim().isEmpty()) {
+            filters.put("endDate", endDate);
+        }
+        return filters;
+    }
+    
+    /**
+     * 判断当前用户是否为管理员（角色来自已验签的Token，无需查询用户信息）
+     */
+    private boolean isAdmin(HttpServletRequest request) {
+        TokenPrincipal principal = (TokenPrincipal) request.getAttribute(TokenPrincipal.REQUEST_ATTRIBUTE);
+        return principal != null && principal.isAdmin();
+    }
+    
+    /**
+     * 直接向响应写入JSON错误信息（用于返回文件流的接口）
+     */
+    private void writeJsonError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("application/json;charset=UTF-8");
+        response.getWriter().write("{\"success\":false,\"message\":\"" + message + "\"}");
+    }
+
 
     /**
      * 获取订单列表（支持分页）
@@ -136,6 +359,7 @@ public class OrderController {
         @ApiImplicitParam(name = "startDate", value = "开始日期", paramType = "query", dataType = "string"),
         @ApiImplicitParam(name = "endDate", value = "结束日期", paramType = "query", dataType = "string")
     })
+    @OperationLog(operation = "查询订单", description = "获取订单列表")
     @GetMapping
     public ResponseEntity<?> getAllOrders(
             @RequestParam(value = "pageNum", defaultValue = "1") Integer pageNum,
@@ -147,16 +371,13 @@ public class OrderController {
             HttpServletRequest request) {
         // 从请求属性中获取用户ID（由拦截器设置）
         Integer userId = (Integer) request.getAttribute("userId");
-        User user = new User();
-        if( userId != null ){
-            user = userService.getUserById(userId);
-
-        }
 
         PageInfo<Order> pageInfo;
         
-        // 检查用户角色
-        if (user.getRole() == 1) {
+        // 检查用户角色（管理员直接使用Token中的角色，普通用户需校验账号状态）
+        boolean isAdmin = isAdmin(request);
+        User user = (!isAdmin && userId != null) ? userService.getUserById(userId) : null;
+        if (isAdmin) {
             // 管理员可以查看所有订单
             // 处理筛选条件
             Map<String, Object> filters = new HashMap<>();
@@ -176,7 +397,7 @@ public class OrderController {
             // 使用筛选条件查询订单
             pageInfo = orderService.getAllOrdersByPageWithFilters(pageNum, pageSize, filters);
             log.info("管理员查询订单，页码：{}，每页数量：{}，筛选条件：{}", pageNum, pageSize, filters);
-        } else if (user.getRole() == 0 && userId != null && user.getStatus() == 1) {
+        } else if (user != null && user.getRole() == 0 && user.getStatus() == 1) {
             // 普通用户只能查看自己的订单
             pageInfo = orderService.getOrdersByUserIdWithPage(userId, pageNum, pageSize);
             log.info("用户 {} 查询自己的订单，页码：{}，每页数量：{}", userId, pageNum, pageSize);
@@ -202,13 +423,13 @@ public class OrderController {
      */
     @ApiOperation(value = "根据ID获取订单详情", notes = "获取订单的详细信息，包含订单项")
     @ApiImplicitParam(name = "orderId", value = "订单ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "查询订单", description = "获取订单详情")
     @GetMapping("/{orderId}")
     public ResponseEntity<?> getOrderById(
             @PathVariable Integer orderId,
             HttpServletRequest request) {
-        // 从请求属性中获取用户ID和用户信息（由拦截器设置）
+        // 从请求属性中获取用户ID（由拦截器设置）
         Integer userId = (Integer) request.getAttribute("userId");
-        User user = (User) request.getAttribute("user");
         
         if (userId == null) {
             Map<String, Object> response = new HashMap<>();
@@ -228,7 +449,7 @@ public class OrderController {
         }
         
         // 验证当前用户是否有权限查看该订单
-        boolean isAdmin = (user != null && user.getRole() == 1);
+        boolean isAdmin = isAdmin(request);
         if (isAdmin || userId.equals(order.getUserId())) {
             return ResponseEntity.ok(order);
         } else {
@@ -251,14 +472,13 @@ public class OrderController {
      */
     @ApiOperation(value = "根据UUID获取订单详情", notes = "通过订单UUID获取订单的详细信息")
     @ApiImplicitParam(name = "uuid", value = "订单UUID", required = true, paramType = "query", dataType = "string")
+    @OperationLog(operation = "查询订单", description = "根据UUID获取订单详情")
     @GetMapping("/by-uuid")
     public ResponseEntity<?> getOrderByUuid(
             @RequestParam("uuid") String uuid,
             HttpServletRequest request) {
-        // 从请求属性中获取用户ID和用户信息（由拦截器设置）
+        // 从请求属性中获取用户ID（由拦截器设置）
         Integer userId = (Integer) request.getAttribute("userId");
-        User user = userService.getUserById(userId);
-
         
         if (userId == null) {
             Map<String, Object> response = new HashMap<>();
@@ -282,7 +502,7 @@ public class OrderController {
         }
         
         // 验证当前用户是否有权限查看该订单
-        boolean isAdmin = (user.getRole() == 1);
+        boolean isAdmin = isAdmin(request);
         if (isAdmin || userId.equals(order.getUserId())) {
             return ResponseEntity.ok(order);
         } else {
@@ -304,6 +524,7 @@ public class OrderController {
      * @return 创建结果
      */
     @ApiOperation(value = "创建订单", notes = "创建新订单，需要包含订单项信息")
+    @OperationLog(operation = "新增订单", description = "创建订单")
     @PostMapping
     public ResponseEntity<?> createOrder(
             @Valid @RequestBody Order order,
@@ -341,8 +562,7 @@ public class OrderController {
             log.info("为用户 {} 创建订单", userId);
         } else {
             // 如果指定了用户ID，检查当前用户是否为管理员
-            User currentUser = userService.getUserById(userId);
-            if (currentUser == null || currentUser.getRole() != 1) {
+            if (!isAdmin(request)) {
                 // 非管理员不能为其他用户创建订单
                 log.warn("非管理员用户 {} 尝试为用户 {} 创建订单", userId, order.getUserId());
                 Map<String, Object> response = new HashMap<>();
@@ -423,6 +643,8 @@ public class OrderController {
      * @return 创建结果
      */
     @ApiOperation(value = "管理员为指定用户创建订单", notes = "管理员创建订单时可以指定用户ID")
+    @AdminOnly(message = "您无权使用此接口")
+    @OperationLog(operation = "新增订单", description = "管理员为指定用户创建订单")
     @PostMapping("/admin/create")
     public ResponseEntity<?> adminCreateOrder(
             @Valid @RequestBody Order order,
@@ -454,16 +676,6 @@ public class OrderController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
         
-        // 验证当前用户是否为管理员
-        User admin = userService.getUserById(adminId);
-        if (admin == null || admin.getRole() != 1) {
-            log.warn("非管理员用户 {} 尝试使用管理员接口创建订单", adminId);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "您无权使用此接口");
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
-        }
-        
         // 验证指定的用户ID是否存在
         if (order.getUserId() == null) {
             log.error("未指定用户ID");
@@ -543,14 +755,13 @@ public class OrderController {
      */
     @ApiOperation(value = "取消订单", notes = "取消未发货的订单")
     @ApiImplicitParam(name = "orderId", value = "订单ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "修改订单", description = "取消订单")
     @PostMapping("/{orderId}/cancel")
     public ResponseEntity<?> cancelOrder(
             @PathVariable Integer orderId,
             HttpServletRequest request) {
-        // 从请求属性中获取用户ID和用户信息（由拦截器设置）
+        // 从请求属性中获取用户ID（由拦截器设置）
         Integer userId = (Integer) request.getAttribute("userId");
-        User user = (User) request.getAttribute("user");
-        User admin = userService.getUserById(userId);
         if (userId == null) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -569,8 +780,7 @@ public class OrderController {
         }
         
         // 验证当前用户是否有权限操作该订单
-
-        if (admin.getRole() == 1 || userId.equals(order.getUserId())) {
+        if (isAdmin(request) || userId.equals(order.getUserId())) {
             boolean success = orderService.cancelOrder(order.getOrderId());
             
             Map<String, Object> response = new HashMap<>();
@@ -602,13 +812,13 @@ public class OrderController {
      */
     @ApiOperation(value = "跳转到支付页面", notes = "跳转到支付选择页面")
     @ApiImplicitParam(name = "orderId", value = "订单ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "查询订单", description = "跳转到支付页面")
     @GetMapping("/{orderId}/payment")
     public ResponseEntity<?> goToPayment(
             @PathVariable Integer orderId,
             HttpServletRequest request) {
-        // 从请求属性中获取用户ID和用户信息（由拦截器设置）
+        // 从请求属性中获取用户ID（由拦截器设置）
         Integer userId = (Integer) request.getAttribute("userId");
-        User user = (User) request.getAttribute("user");
         
         if (userId == null) {
             Map<String, Object> response = new HashMap<>();
@@ -628,10 +838,10 @@ public class OrderController {
         }
         
         // 验证当前用户是否有权限操作该订单（管理员或订单所有者）
-        User admin = userService.getUserById(userId);
-        if (admin.getRole() == 1 || userId.equals(order.getUserId())) {
+        boolean isAdmin = isAdmin(request);
+        if (isAdmin || userId.equals(order.getUserId())) {
             // 构建支付页面URL
-            String paymentUrl = "/pages/payment.html?orderId=" + orderId + "&isAdmin=" + (admin.getRole() == 1);
+            String paymentUrl = "/pages/payment.html?orderId=" + orderId + "&isAdmin=" + isAdmin;
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -657,14 +867,14 @@ public class OrderController {
      */
     @ApiOperation(value = "支付订单", notes = "支付待付款状态的订单")
     @ApiImplicitParam(name = "orderId", value = "订单ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "修改订单", description = "支付订单")
     @PostMapping("/{orderId}/pay")
     public ResponseEntity<?> payOrder(
             @PathVariable Integer orderId,
             @RequestBody Map<String, Object> paymentData,
             HttpServletRequest request) {
-        // 从请求属性中获取用户ID和用户信息（由拦截器设置）
+        // 从请求属性中获取用户ID（由拦截器设置）
         Integer userId = (Integer) request.getAttribute("userId");
-        User user = (User) request.getAttribute("user");
         
         if (userId == null) {
             Map<String, Object> response = new HashMap<>();
@@ -683,9 +893,6 @@ public class OrderController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
         }
         
-        // 获取用户信息
-        User admin = userService.getUserById(userId);
-        
         // 获取支付方式
         Integer paymentMethod = 0; // 默认为其他支付方式
         if (paymentData != null && paymentData.containsKey("paymentMethod")) {
@@ -697,7 +904,7 @@ public class OrderController {
         }
         
         // 验证当前用户是否有权限操作该订单（管理员或订单所有者）
-        if (admin.getRole() == 1 || userId.equals(order.getUserId())) {
+        if (isAdmin(request) || userId.equals(order.getUserId())) {
             // 设置支付方式
             order.setPaymentMethod(paymentMethod);
 
@@ -735,13 +942,13 @@ public class OrderController {
      */
     @ApiOperation(value = "确认收货", notes = "确认已收到商品，完成订单")
     @ApiImplicitParam(name = "orderId", value = "订单ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "修改订单", description = "确认收货")
     @PostMapping("/{orderId}/confirm")
     public ResponseEntity<?> confirmOrder(
             @PathVariable Integer orderId,
             HttpServletRequest request) {
-        // 从请求属性中获取用户ID和用户信息（由拦截器设置）
+        // 从请求属性中获取用户ID（由拦截器设置）
         Integer userId = (Integer) request.getAttribute("userId");
-        User user = (User) request.getAttribute("user");
 
         if (userId == null) {
             Map<String, Object> response = new HashMap<>();
@@ -749,7 +956,6 @@ public class OrderController {
             response.put("message", "未登录，无法操作订单");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
-        User admin = userService.getUserById(userId);
         // 获取订单信息
         Order order = orderService.getOrderById(orderId);
         
@@ -761,7 +967,7 @@ public class OrderController {
         }
         
         // 验证当前用户是否有权限操作该订单
-        if (admin.getRole()==1 || userId.equals(order.getUserId())) {
+        if (isAdmin(request) || userId.equals(order.getUserId())) {
             boolean success = orderService.completeOrder(order.getOrderId());
             
             Map<String, Object> response = new HashMap<>();
@@ -793,13 +999,14 @@ public class OrderController {
      */
     @ApiOperation(value = "发货订单", notes = "管理员操作：将订单状态更新为已发货")
     @ApiImplicitParam(name = "orderId", value = "订单ID", required = true, paramType = "path", dataType = "int")
+    @AdminOnly(message = "只有管理员可以执行发货操作")
+    @OperationLog(operation = "修改订单", description = "发货")
     @PostMapping("/{orderId}/ship")
     public ResponseEntity<?> shipOrder(
             @PathVariable Integer orderId,
             HttpServletRequest request) {
-        // 从请求属性中获取用户ID和用户信息（由拦截器设置）
+        // 从请求属性中获取用户ID（由拦截器设置）
         Integer userId = (Integer) request.getAttribute("userId");
-        User user = (User) request.getAttribute("user");
 
         
         if (userId == null) {
@@ -808,16 +1015,6 @@ public class OrderController {
             response.put("message", "未登录，无法操作订单");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
-        User admin = userService.getUserById(userId);
-        // 验证是否为管理员
-
-        if (admin.getRole() != 1) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "只有管理员可以执行发货操作");
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
-        }
-        
         // 获取订单信息
         Order order = orderService.getOrderById(orderId);
         
@@ -851,6 +1048,7 @@ public class OrderController {
      * @param request HTTP请求
      * @return 用户订单列表
      */
+    @OperationLog(operation = "查询订单", description = "获取用户订单")
     @GetMapping("/by-user/{userId}")
     public ResponseEntity<?> getUserOrders(
             @PathVariable Integer userId,
@@ -859,7 +1057,6 @@ public class OrderController {
             HttpServletRequest request) {
         // 从请求属性中获取当前用户ID和用户信息（由拦截器设置）
         Integer currentUserId = (Integer) request.getAttribute("userId");
-        User currentUser = (User) request.getAttribute("user");
         
         if (currentUserId == null) {
             Map<String, Object> response = new HashMap<>();
@@ -869,7 +1066,7 @@ public class OrderController {
         }
         
         // 验证是否为管理员或查询自己的订单
-        boolean isAdmin = (currentUser != null && currentUser.getRole() == 1);
+        boolean isAdmin = isAdmin(request);
         boolean isSelfQuery = userId.equals(currentUserId);
         
         if (!isAdmin && !isSelfQuery) {
@@ -896,31 +1093,15 @@ public class OrderController {
      * @param request HTTP请求
      * @return 删除结果
      */
+    @AdminOnly(message = "只有管理员可以删除订单")
+    @OperationLog(operation = "删除订单", description = "批量删除订单")
     @DeleteMapping("/batch")
     public ResponseEntity<?> batchDeleteOrders(
             @RequestBody List<Integer> orderIds,
             HttpServletRequest request) {
         log.info("批量删除订单，ID列表: {}", orderIds);
         
-        // 从请求属性中获取用户ID和用户信息（由拦截器设置）
-        Integer userId = (Integer) request.getAttribute("userId");
-        User admin = userService.getUserById(userId);
-        
-        if (userId == null) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "未登录，无法操作订单");
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
-        }
-        
-        // 验证是否为管理员
-        if (admin.getRole() != 1) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "只有管理员可以删除订单");
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
-        }
-        
+        // 从请求属性中获取用户ID（由拦截器设置）
         if (orderIds == null || orderIds.isEmpty()) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -2,7 +2,9 @@ package com.ordersystem.controller;
 
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import com.ordersystem.annotation.OperationLog;
 import com.ordersystem.entity.Product;
+import com.ordersystem.service.HotProductService;
 import com.ordersystem.service.ProductService;
 import com.ordersystem.util.UUIDGenerater;
 import io.swagger.annotations.Api;
@@ -12,6 +14,7 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -19,10 +22,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -36,9 +41,15 @@ import java.util.Map;
 @RequestMapping("/api/products")
 public class ProductController {
 
+    /** 带版本号的商品图片内容不会变化，缓存一年 */
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private HotProductService hotProductService;
+
     /**
      * 获取商品列表（支持分页和筛选）
      * 使用PageHelper实现分页
@@ -60,6 +71,7 @@ public class ProductController {
         @ApiImplicitParam(name = "sort", value = "排序字段", paramType = "query", dataType = "string"),
         @ApiImplicitParam(name = "order", value = "排序方向(asc/desc)", paramType = "query", dataType = "string")
     })
+    @OperationLog(operation = "查询商品", description = "获取商品列表")
     @GetMapping
     public ResponseEntity<?> getAllProducts(
             @RequestParam(value = "pageNum", defaultValue = "1") Integer pageNum,
@@ -134,6 +146,7 @@ public class ProductController {
      */
     @ApiOperation(value = "根据ID获取商品", notes = "获取单个商品的详细信息")
     @ApiImplicitParam(name = "productId", value = "商品ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "查询商品", description = "获取商品详情")
     @GetMapping("/{productId}")
     public ResponseEntity<?> getProductById(@PathVariable Integer productId) {
         Product product = productService.getProductById(productId);
@@ -152,6 +165,7 @@ public class ProductController {
      */
     @ApiOperation(value = "根据ID获取商品(内部使用)", notes = "系统内部使用的商品查询接口")
     @ApiImplicitParam(name = "productId", value = "商品ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "查询商品", description = "内部获取商品详情")
     @GetMapping("/internal/{productId}")
     public ResponseEntity<Product> getProductByIdInternal(@PathVariable Integer productId) {
         Product product = productService.getProductById(productId);
@@ -169,6 +183,7 @@ public class ProductController {
      * @return 操作结果
      */
     @ApiOperation(value = "添加商品", notes = "创建新商品")
+    @OperationLog(operation = "新增商品", description = "创建商品")
     @PostMapping
     public ResponseEntity<?> createProduct(@RequestBody Product product) {
         // 初始化商品信息
@@ -214,6 +229,7 @@ public class ProductController {
      */
     @ApiOperation(value = "更新商品信息", notes = "修改已有商品的信息")
     @ApiImplicitParam(name = "productId", value = "商品ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "修改商品", description = "更新商品")
     @PutMapping("/{productId}")
     public ResponseEntity<?> updateProduct(@PathVariable Integer productId, @RequestBody Product product) {
         // 查找商品
@@ -253,6 +269,7 @@ public class ProductController {
      */
     @ApiOperation(value = "删除商品", notes = "根据ID删除商品")
     @ApiImplicitParam(name = "productId", value = "商品ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "删除商品", description = "删除商品")
     @DeleteMapping("/{productId}")
     public ResponseEntity<?> deleteProduct(@PathVariable Integer productId) {
         try {
@@ -299,6 +316,7 @@ public class ProductController {
      */
     @ApiOperation(value = "根据名称搜索商品", notes = "搜索名称包含指定关键词的商品")
     @ApiImplicitParam(name = "name", value = "商品名称关键词", required = true, paramType = "query", dataType = "string")
+    @OperationLog(operation = "查询商品", description = "搜索商品")
     @GetMapping("/search")
     public ResponseEntity<?> searchProducts(@RequestParam("name") String productName) {
         List<Product> products = productService.getProductsByName(productName);
@@ -314,6 +332,34 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 获取热销商品
+     * 数据来自内存中的流式统计，不查询订单明细
+     * 
+     * @param window 时间窗口：day-近一天，week-近一周，all-全部
+     * @param limit 数量
+     * @return 热销商品列表
+     */
+    @ApiOperation(value = "获取热销商品", notes = "按销量获取热销商品，支持日、周、全部三个时间窗口")
+    @ApiImplicitParams({
+        @ApiImplicitParam(name = "window", value = "时间窗口(day/week/all)", defaultValue = "week", paramType = "query", dataType = "string"),
+        @ApiImplicitParam(name = "limit", value = "数量", defaultValue = "10", paramType = "query", dataType = "int")
+    })
+    @OperationLog(operation = "查询商品", description = "获取热销商品")
+    @GetMapping("/hot")
+    public ResponseEntity<?> getHotProducts(
+            @RequestParam(value = "window", defaultValue = "week") String window,
+            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        if (!"day".equals(window) && !"week".equals(window) && !"all".equals(window)) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "时间窗口只能是day、week或all");
+            return ResponseEntity.badRequest().body(response);
+        }
+        int size = Math.max(1, Math.min(limit, 50));
+        return ResponseEntity.ok(hotProductService.getHotProducts(window, size));
+    }
+    
     /**
      * 更新商品库存
      * 
@@ -326,6 +372,7 @@ public class ProductController {
         @ApiImplicitParam(name = "productId", value = "商品ID", required = true, paramType = "path", dataType = "int"),
         @ApiImplicitParam(name = "stock", value = "库存变化量（正数增加，负数减少）", required = true, paramType = "query", dataType = "int")
     })
+    @OperationLog(operation = "修改商品", description = "更新商品库存")
     @PutMapping("/{productId}/stock")
     public ResponseEntity<?> updateStock(
             @PathVariable Integer productId,
@@ -370,6 +417,7 @@ public class ProductController {
         @ApiImplicitParam(name = "productId", value = "商品ID", required = true, paramType = "path", dataType = "int"),
         @ApiImplicitParam(name = "file", value = "图片文件", required = true, paramType = "form", dataType = "file")
     })
+    @OperationLog(operation = "修改商品", description = "上传商品图片")
     @PostMapping("/{productId}/image")
     public ResponseEntity<?> uploadImage(
             @PathVariable Integer productId,
@@ -418,14 +466,22 @@ public class ProductController {
     
     /**
      * 获取商品图片
+     * 带版本号v时图片内容随版本固定，允许浏览器长期缓存；
+     * 不带版本号时以图片更新时间作为Last-Modified，浏览器携带If-Modified-Since且图片未变化时返回304
      * 
      * @param productId 商品ID
+     * @param version 图片版本号
+     * @param request HTTP请求
      * @return 图片数据
      */
     @ApiOperation(value = "获取商品图片", notes = "获取指定商品的图片数据")
     @ApiImplicitParam(name = "productId", value = "商品ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "查询商品", description = "获取商品图片")
     @GetMapping("/{productId}/image")
-    public ResponseEntity<?> getImage(@PathVariable Integer productId) {
+    public ResponseEntity<?> getImage(
+            @PathVariable Integer productId,
+            @RequestParam(value = "v", required = false) String version,
+            HttpServletRequest request) {
         try {
             // 查找商品
             Product product = productService.getProductById(productId);
@@ -434,6 +490,20 @@ public class ProductController {
                 return ResponseEntity.notFound().build();
             }
             
+            // 以图片更新时间为准（库存等字段变化不影响图片缓存），按秒比较（HTTP日期只精确到秒）
+            Date imageTime = product.getImageUpdateTime() != null ? product.getImageUpdateTime() : product.getCreateTime();
+            long lastModified = imageTime != null ? imageTime.getTime() / 1000 * 1000 : -1;
+            boolean versioned = version != null && !version.isEmpty();
+            if (!versioned && lastModified >= 0) {
+                long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+                if (ifModifiedSince >= lastModified) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                            .lastModified(lastModified)
+                            .cacheControl(CacheControl.noCache().cachePublic())
+                            .build();
+                }
+            }
+            
             byte[] imageData = productService.getProductImage(product.getProductId());
             
             // 如果图片不存在，返回默认图片
@@ -452,6 +522,14 @@ public class ProductController {
             // 设置响应头
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.IMAGE_JPEG);
+            if (versioned) {
+                headers.setCacheControl(IMMUTABLE_CACHE_CONTROL);
+            } else {
+                headers.setCacheControl(CacheControl.noCache().cachePublic());
+                if (lastModified >= 0) {
+                    headers.setLastModified(lastModified);
+                }
+            }
             
             return new ResponseEntity<>(imageData, headers, HttpStatus.OK);
         } catch (Exception e) {
@@ -470,6 +548,7 @@ public class ProductController {
      */
     @ApiOperation(value = "删除商品图片", notes = "删除指定商品的图片")
     @ApiImplicitParam(name = "productId", value = "商品ID", required = true, paramType = "path", dataType = "int")
+    @OperationLog(operation = "修改商品", description = "删除商品图片")
     @DeleteMapping("/{productId}/image")
     public ResponseEntity<?> deleteProductImage(@PathVariable Integer productId) {
         try {
@@ -2,8 +2,10 @@ package com.ordersystem.controller;
 
 import com.github.pagehelper.PageInfo;
 import com.ordersystem.entity.SysLog;
+import com.ordersystem.service.LogBufferService;
+import com.ordersystem.service.LogStreamService;
+import com.ordersystem.service.LogSyncService;
 import com.ordersystem.service.SysLogService;
-import com.ordersystem.aspect.LogAspect;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiImplicitParam;
 import io.swagger.annotations.ApiImplicitParams;
@@ -18,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.servlet.http.HttpServletRequest;
 import java.util.List;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * 系统日志控制器
@@ -34,7 +37,13 @@ public class SysLogController {
     private SysLogService sysLogService;
     
     @Autowired
-    private LogAspect logAspect;
+    private LogSyncService logSyncService;
+    
+    @Autowired
+    private LogBufferService logBufferService;
+    
+    @Autowired
+    private LogStreamService logStreamService;
 
     /**
      * 获取日志列表（支持分页和多条件筛选）
@@ -237,24 +246,42 @@ public class SysLogController {
         return ResponseEntity.ok().body(result);
     }
     
+    /**
+     * 获取日志缓冲队列和日志流指标
+     * 
+     * @return 队列深度、写入数、丢弃数，以及日志流长度、待确认数等指标
+     */
+    @ApiOperation(value = "日志缓冲队列指标", notes = "查看内存日志缓冲队列的深度、写入、丢弃和转存情况，以及Redis日志流的积压和消费情况")
+    @GetMapping("/buffer-metrics")
+    public ResponseEntity<?> getBufferMetrics() {
+        HashMap<String, Object> result = new HashMap<>();
+        result.put("success", true);
+        result.put("metrics", logBufferService.getMetrics());
+        result.put("stream", logStreamService.getMetrics());
+        return ResponseEntity.ok(result);
+    }
+    
     /**
      * 手动同步Redis中的日志到MySQL数据库
      * 
-     * @return 同步结果
+     * @return 同步条数、吞吐量和剩余积压
      */
-    @ApiOperation(value = "同步日志", notes = "手动将Redis缓存中的日志同步到MySQL数据库")
+    @ApiOperation(value = "同步日志", notes = "手动将Redis中积压的日志同步到MySQL数据库，返回吞吐量和剩余积压")
     @PostMapping("/synchronize")
     public ResponseEntity<?> syncLogs() {
         log.info("手动触发日志同步操作");
         
         try {
-            // 调用LogAspect中的同步方法
-            int processedCount = logAspect.syncLogsToDatabase();
+            Map<String, Object> report = logSyncService.sync();
             
-            HashMap<String, Object> result = new HashMap<>();
+            HashMap<String, Object> result = new HashMap<>(report);
             result.put("success", true);
-            result.put("message", String.format("成功同步 %d 条日志记录", processedCount));
-            result.put("count", processedCount);
+            if (Boolean.TRUE.equals(report.get("running"))) {
+                result.put("message", "日志同步正在进行中，请稍后再试");
+            } else {
+                result.put("message", String.format("成功同步 %d 条日志记录", (Long) report.get("processed")));
+            }
+            result.put("count", report.get("processed"));
             
             return ResponseEntity.ok(result);
         } catch (Exception e) {
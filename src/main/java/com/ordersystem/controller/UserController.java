@@ -1,11 +1,18 @@
 package com.ordersystem.controller;
 
+import com.ordersystem.annotation.AdminOnly;
+import com.ordersystem.annotation.OperationLog;
 import com.ordersystem.entity.User;
+import com.ordersystem.entity.UserAvatar;
+import com.ordersystem.service.AvatarService;
+import com.ordersystem.service.RateLimitService;
 import com.ordersystem.service.RedisService;
 import com.ordersystem.service.UserService;
 import com.ordersystem.util.JwtTokenUtil;
 import com.ordersystem.util.MD5Util;
+import com.ordersystem.util.TokenPrincipal;
 import com.ordersystem.util.UUIDGenerater;
+import com.ordersystem.util.UsernameNormalizer;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import io.swagger.annotations.Api;
@@ -14,19 +21,24 @@ import io.swagger.annotations.ApiImplicitParams;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 用户控制器
@@ -46,6 +58,20 @@ public class UserController {
     @Autowired
     private RedisService redisService;
     
+    @Autowired
+    private AvatarService avatarService;
+    
+    @Autowired
+    private RateLimitService rateLimitService;
+    
+    @Value("${avatar.max-upload-bytes:5242880}")
+    private long avatarMaxUploadBytes;
+    
+    @Value("${avatar.cache-max-age-seconds:0}")
+    private long avatarCacheMaxAgeSeconds;
+    
+    private static final String DEFAULT_AVATAR_ETAG = "\"default-avatar\"";
+    
     /**
      * 获取所有用户列表（支持分页和筛选）
      *
@@ -65,6 +91,7 @@ public class UserController {
         @ApiImplicitParam(name = "role", value = "用户角色", paramType = "query", dataType = "int"),
         @ApiImplicitParam(name = "status", value = "用户状态", paramType = "query", dataType = "int")
     })
+    @OperationLog(operation = "查询用户", description = "获取用户列表")
     @GetMapping
     public ResponseEntity<?> getAllUsers(
             @RequestParam(defaultValue = "1") int pageNum,
@@ -118,6 +145,7 @@ public class UserController {
      * @param status 状态（可选）
      * @return 分页用户列表数据
      */
+    @OperationLog(operation = "查询用户", description = "分页获取用户列表")
     @GetMapping("/page/{pageNum}/{pageSize}")
     public ResponseEntity<?> getUsersByPage(
             @PathVariable Integer pageNum,
@@ -135,6 +163,7 @@ public class UserController {
      * @param userId 用户ID
      * @return 用户数据
      */
+    @OperationLog(operation = "查询用户", description = "获取用户详情")
     @GetMapping("/{userId}")
     public ResponseEntity<?> getUserById(@PathVariable Integer userId) {
         User user = userService.getUserById(userId);
@@ -155,12 +184,23 @@ public class UserController {
      * @param loginUser 登录信息
      * @return 登录结果
      */
+    @OperationLog(operation = "登录", description = "用户登录")
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody User loginUser, HttpServletRequest request) {
         // 调用service层的login方法进行用户验证
         String username = loginUser.getUsername();
         String password = loginUser.getPassword();
 
+        // 同一用户名的登录失败限流（IP维度由RateLimitInterceptor处理），按数据库排序规则归一化，大小写和重音不同的写法共用一个令牌桶
+        // 这里只检查不扣减，密码错误时才扣减令牌，避免他人用频繁请求锁住正常用户的账户
+        String limitKey = username == null ? null : UsernameNormalizer.normalize(username);
+        if (limitKey != null && !rateLimitService.hasToken("login-user", limitKey)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "登录尝试过于频繁，请稍后再试");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(errorResponse);
+        }
+
         try {
             // 验证码验证在前端完成，这里不再重复验证
             // 前端会先调用/api/captcha/verify接口验证验证码，验证通过后再调用登录接口
@@ -190,7 +230,10 @@ public class UserController {
         }
     
  catch (RuntimeException e) {
-            // 登录失败，返回具体错误信息
+            // 登录失败，扣减该用户名的令牌，返回具体错误信息
+            if (limitKey != null) {
+                rateLimitService.tryAcquire("login-user", limitKey);
+            }
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
             errorResponse.put("message", e.getMessage());
@@ -208,11 +251,11 @@ public class UserController {
      * @param username 用户名
      * @return 检查结果
      */
+    @OperationLog(operation = "注册", description = "检查用户名是否可用")
     @GetMapping("/check-username")
     public ResponseEntity<?> checkUsernameExists(@RequestParam String username) {
-        User existingUser = userService.getUserByUsername(username);
         Map<String, Object> response = new HashMap<>();
-        response.put("exists", existingUser != null);
+        response.put("exists", userService.isUsernameTaken(username));
         return ResponseEntity.ok().body(response);
     }
     
@@ -224,19 +267,15 @@ public class UserController {
      * @param user 用户信息
      * @return 注册结果
      */
+    @OperationLog(operation = "注册", description = "用户注册")
     @PostMapping("/register")
     public ResponseEntity<?> register(@RequestBody User user, HttpServletRequest request) {
         // 验证码验证在前端完成，这里不再重复验证
         // 前端会先调用/api/captcha/verify接口验证验证码，验证通过后再调用注册接口
         
         // 检查用户名是否已存在
-        User existingUser = userService.getUserByUsername(user.getUsername());
-        if (existingUser != null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("success", false);
-            errorResponse.put("error_code", "username_exists");
-            errorResponse.put("message", "用户名已存在");
-            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        if (userService.isUsernameTaken(user.getUsername())) {
+            return usernameExistsResponse();
         }
         // 初始化用户信息
         // 加密密码
@@ -246,8 +285,13 @@ public class UserController {
         // 设置创建时间
         user.setCreateTime(new Date());
         user.setUpdateTime(new Date());
-        // 保存用户信息
-        boolean success = userService.addUser(user);
+        // 保存用户信息（并发注册同名用户时由唯一索引兜底）
+        boolean success;
+        try {
+            success = userService.addUser(user);
+        } catch (DuplicateKeyException e) {
+            return usernameExistsResponse();
+        }
         
         if (success) {
             Map<String, Object> response = new HashMap<>();
@@ -270,12 +314,24 @@ public class UserController {
     
 
     
+    /**
+     * 用户名已存在的响应
+     */
+    private ResponseEntity<?> usernameExistsResponse() {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("success", false);
+        errorResponse.put("error_code", "username_exists");
+        errorResponse.put("message", "用户名已存在");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+    
     /**
      * 用户退出登录
      * 
      * @param request HTTP请求
      * @return 退出结果
      */
+    @OperationLog(operation = "退出登录", description = "用户退出登录")
     @PostMapping("/logout")
     public ResponseEntity<?> logout(HttpServletRequest request) {
         // 获取当前登录用户ID
@@ -305,6 +361,7 @@ public class UserController {
      * @param request HTTP请求
      * @return 当前用户信息
      */
+    @OperationLog(operation = "个人资料", description = "获取当前用户信息")
     @GetMapping("/current")
     public ResponseEntity<?> getCurrentUser(HttpServletRequest request) {
         // 从请求属性中获取用户ID（由拦截器设置）
@@ -340,6 +397,8 @@ public class UserController {
      * @param request HTTP请求
      * @return 更新结果
      */
+    @AdminOnly(message = "无权限修改其他用户信息")
+    @OperationLog(operation = "修改用户", description = "更新用户信息")
     @PutMapping("/{userId}")
     public ResponseEntity<?> updateUser(
             @PathVariable Integer userId,
@@ -368,15 +427,6 @@ public class UserController {
         }
     
 
-        User admin = userService.getUserById(currentUserId);
-        // 验证当前用户是否有权限更新此用户信息
-        if (admin.getRole() != 1) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "无权限修改其他用户信息");
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
-        }
-
         System.out.println(user.toString());
         
         // 保留原始ID和密码
@@ -394,6 +444,12 @@ public class UserController {
         
         boolean result = userService.updateUser(user);
         if (result) {
+            // 角色或状态变更后使原Token失效，避免Token中的角色与实际不一致
+            if ((user.getRole() != null && !user.getRole().equals(existingUser.getRole()))
+                    || (user.getStatus() != null && !user.getStatus().equals(existingUser.getStatus()))) {
+                redisService.deleteToken(userId);
+            }
+            
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "用户信息更新成功");
@@ -424,6 +480,7 @@ public class UserController {
      * @param httpRequest HTTP请求
      * @return 修改结果
      */
+    @OperationLog(operation = "密码管理", description = "修改密码")
     @PutMapping("/change-password")
     public ResponseEntity<?> changePasswordForProfile(
             @RequestBody Map<String, String> request,
@@ -508,6 +565,7 @@ public class UserController {
      *                返回响应
      *
      */
+    @OperationLog(operation = "密码管理", description = "重置密码")
     @PostMapping("/{userId}/resetPassword") // 改为POST方法
     public ResponseEntity<?> changePassword(
             @PathVariable Integer userId,
@@ -523,14 +581,6 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
 
-        // 获取当前用户（新增检查）
-        User admin = userService.getUserById(currentUserId);
-        if (admin == null) {
-            response.put("success", false);
-            response.put("message", "当前用户不存在");
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
-        }
-
         // 获取目标用户
         User user = userService.getUserById(userId);
         if (user == null) {
@@ -540,7 +590,8 @@ public class UserController {
         }
 
         // 权限校验（优化逻辑判断）
-        boolean isAdmin = admin.getRole() == 1;
+        TokenPrincipal principal = (TokenPrincipal) httpRequest.getAttribute(TokenPrincipal.REQUEST_ATTRIBUTE);
+        boolean isAdmin = principal != null && principal.isAdmin();
         boolean isSelf = currentUserId.equals(user.getUserId());
         if (!isAdmin && !isSelf) {
             response.put("success", false);
@@ -568,18 +619,18 @@ public class UserController {
     
     /**
      * 上传用户头像
+     * 头像保存在user_avatar表，不再更新用户表
      * 
      * @param file 头像文件
      * @param request HTTP请求
      * @return 上传结果
      */
+    @OperationLog(operation = "头像管理", description = "上传用户头像")
     @PostMapping("/avatar/upload")
     public ResponseEntity<?> uploadAvatar(
             @RequestParam("avatar") MultipartFile file,
             HttpServletRequest request) {
         // 从请求属性中获取用户ID（由拦截器设置）
-        Integer userId = (Integer) request.getAttribute("userId");
-        // 从请求属性中获取用户ID（由拦截器设置）
         Integer currentUserId = (Integer) request.getAttribute("userId");
         if (currentUserId == null) {
             Map<String, Object> response = new HashMap<>();
@@ -588,124 +639,118 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
         }
 
-        // 查找用户
-        User user = userService.getUserById(userId);
-        
-        if (user == null) {
+        if (file.isEmpty()) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "用户不存在");
-            return ResponseEntity.notFound().build();
+            response.put("message", "上传文件不能为空");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         }
 
-        // 验证当前用户是否有权限更新此用户头像
-        if (!currentUserId.equals(user.getUserId())) {
+        if (file.getSize() > avatarMaxUploadBytes) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "无权限修改其他用户头像");
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+            response.put("message", "头像文件不能超过" + (avatarMaxUploadBytes / 1024 / 1024) + "MB");
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
         }
+    
+        // 直接从上传流解码并缩放，不把整个文件读入内存
+        try (InputStream in = file.getInputStream()) {
+            UserAvatar avatar = avatarService.saveAvatar(currentUserId, in);
 
-        if (file.isEmpty()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "头像上传成功");
+            response.put("contentHash", avatar.getContentHash());
+            return ResponseEntity.ok().body(response);
+        } catch (IllegalArgumentException e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
-            response.put("message", "上传文件不能为空");
+            response.put("message", "头像上传失败: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
-        }
-    
-        try {
-            // 读取文件内容为字节数组
-            byte[] avatarData = file.getBytes();
-            
-            // 更新用户头像信息
-            user.setAvatarData(avatarData);
-            user.setUpdateTime(new Date());
-            boolean result = userService.updateUser(user);
-            
-            if (result) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", true);
-                response.put("message", "头像上传成功");
-                return ResponseEntity.ok().body(response);
-            }
-    
- else {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "头像上传失败");
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-            }
-    
-
-        }
-    
- catch (IOException e) {
+        } catch (IOException e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("message", "上传失败: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
-    
-
     }
-    
-
-    
 
     /**
      * 获取用户头像
+     * 以内容哈希作为ETag，浏览器携带If-None-Match且头像未变化时返回304，不读取图片数据
      *
      * @param userId 用户ID
+     * @param ifNoneMatch 浏览器缓存的ETag
      * @return 用户头像
      */
+    @OperationLog(operation = "头像管理", description = "获取用户头像")
     @GetMapping("/avatar/{userId}")
-    public ResponseEntity<?> getUserAvatar(@PathVariable Integer userId) {
+    public ResponseEntity<?> getUserAvatar(
+            @PathVariable Integer userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            // 查找用户
-            User user = userService.getUserById(userId);
-            
-            if (user == null) {
-                return ResponseEntity.notFound().build();
+            CacheControl cacheControl = CacheControl.maxAge(avatarCacheMaxAgeSeconds, TimeUnit.SECONDS).cachePrivate();
+
+            UserAvatar meta = avatarService.getAvatarMeta(userId);
+            UserAvatar avatar = null;
+            if (meta != null) {
+                String etag = "\"" + meta.getContentHash() + "\"";
+                if (etagMatches(ifNoneMatch, etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+                }
+                avatar = avatarService.getAvatar(userId);
             }
-    
 
-            
-            byte[] avatarData = user.getAvatarData();
-            
-            // 如果头像不存在，返回默认头像
-            if (avatarData == null || avatarData.length == 0) {
-                try {
-                    // 读取默认头像
-                    avatarData = Files.readAllBytes(Paths.get("src/main/resources/static/images/default-avatar.jpg"));
+            // 没有头像时返回默认头像
+            if (avatar == null) {
+                if (etagMatches(ifNoneMatch, DEFAULT_AVATAR_ETAG)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(DEFAULT_AVATAR_ETAG).cacheControl(cacheControl).build();
                 }
-    
- catch (IOException e) {
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("success", false);
-                    response.put("message", "获取默认头像失败");
-                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+                byte[] defaultAvatar;
+                try (InputStream in = new ClassPathResource("static/images/default-avatar.jpg").getInputStream()) {
+                    defaultAvatar = StreamUtils.copyToByteArray(in);
                 }
-    
-
+                return ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_JPEG)
+                        .eTag(DEFAULT_AVATAR_ETAG)
+                        .cacheControl(cacheControl)
+                        .body(defaultAvatar);
             }
-    
 
-            
-            // 设置响应头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_JPEG);
-            
-            return new ResponseEntity<>(avatarData, headers, HttpStatus.OK);
-        }
-    
- catch (Exception e) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(avatar.getContentType()))
+                    .eTag("\"" + avatar.getContentHash() + "\"")
+                    .cacheControl(cacheControl)
+                    .body(avatar.getAvatarData());
+        } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("message", "获取头像失败：" + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
-    
+    }
 
+    /**
+     * 判断If-None-Match是否命中ETag
+     * 请求头可以是逗号分隔的多个ETag或*，按弱比较（忽略W/前缀）
+     */
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if ("*".equals(tag)) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
     
 
@@ -717,6 +762,7 @@ public class UserController {
      * @param userProfile 用户个人资料
      * @return 更新结果
      */
+    @OperationLog(operation = "个人资料", description = "更新个人资料")
     @PutMapping("/profile/update")
     public ResponseEntity<?> updateProfile(
             HttpServletRequest request,
@@ -784,20 +830,14 @@ public class UserController {
      * @param request HTTP请求
      * @return 删除结果
      */
+    @AdminOnly(message = "无权限删除用户")
+    @OperationLog(operation = "删除用户", description = "删除用户")
     @DeleteMapping("/{userId}")
     public ResponseEntity<?> deleteUser(
             @PathVariable Integer userId,
             HttpServletRequest request) {
         // 从请求属性中获取用户ID（由拦截器设置）
         Integer currentUserId = (Integer) request.getAttribute("userId");
-        User currentUser = userService.getUserById(currentUserId);
-        
-        if (currentUser == null || currentUser.getRole() != 1) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "无权限删除用户");
-            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
-        }
     
 
         
@@ -101,11 +101,13 @@ public interface CartDao {
     
     /**
      * 查询用户购物车列表
+     * 不加载商品图片二进制数据，只返回图片版本号
      * 
      * @param userId 用户ID
      * @return 购物车列表
      */
-    @Select("SELECT c.*, p.product_name, p.price, p.stock, p.status, p.product_image "
+    @Select("SELECT c.*, p.product_name, p.price, p.stock, p.status, "
+            + "IF(p.product_image IS NULL, NULL, UNIX_TIMESTAMP(IFNULL(p.image_update_time, p.create_time))) AS product_image_version "
             + "FROM cart c "
             + "LEFT JOIN product p ON c.product_id = p.product_id "
             + "WHERE c.user_id = #{userId} "
@@ -123,17 +125,19 @@ public interface CartDao {
         @Result(property = "productPrice", column = "price"),
         @Result(property = "productStock", column = "stock"),
         @Result(property = "productStatus", column = "status"),
-        @Result(property = "productImage", column = "product_image")
+        @Result(property = "productImageVersion", column = "product_image_version")
     })
     List<Cart> getCartListByUserId(Integer userId);
     
     /**
      * 查询用户购物车中已选中的商品列表
+     * 不加载商品图片二进制数据，只返回图片版本号
      * 
      * @param userId 用户ID
      * @return 购物车列表
      */
-    @Select("SELECT c.*, p.product_name, p.price, p.stock, p.status, p.product_image "
+    @Select("SELECT c.*, p.product_name, p.price, p.stock, p.status, "
+            + "IF(p.product_image IS NULL, NULL, UNIX_TIMESTAMP(IFNULL(p.image_update_time, p.create_time))) AS product_image_version "
             + "FROM cart c "
             + "LEFT JOIN product p ON c.product_id = p.product_id "
             + "WHERE c.user_id = #{userId} AND c.selected = 1 "
@@ -151,7 +155,7 @@ public interface CartDao {
         @Result(property = "productPrice", column = "price"),
         @Result(property = "productStock", column = "stock"),
         @Result(property = "productStatus", column = "status"),
-        @Result(property = "productImage", column = "product_image")
+        @Result(property = "productImageVersion", column = "product_image_version")
     })
     List<Cart> getSelectedCartListByUserId(Integer userId);
     
@@ -173,4 +177,42 @@ public interface CartDao {
      */
     @Update("UPDATE cart SET selected = #{selected}, update_time = NOW() WHERE user_id = #{userId}")
     int updateCartSelectedByUserId(@Param("userId") Integer userId, @Param("selected") Integer selected);
-}
\ No newline at end of file
+    
+    /**
+     * 查询用户购物车原始记录（不关联商品）
+     * 
+     * @param userId 用户ID
+     * @return 购物车记录列表
+     */
+    @Select("SELECT cart_id, user_id, product_id, quantity, selected FROM cart WHERE user_id = #{userId}")
+    List<Cart> getCartRowsByUserId(Integer userId);
+    
+    /**
+     * 批量写入购物车项，已存在则更新数量和选中状态
+     * 
+     * @param userId 用户ID
+     * @param carts 购物车项列表
+     * @return 影响行数
+     */
+    @Insert("<script>"
+            + "INSERT INTO cart (user_id, product_id, quantity, selected) VALUES "
+            + "<foreach collection='carts' item='c' separator=','>"
+            + "(#{userId}, #{c.productId}, #{c.quantity}, #{c.selected})"
+            + "</foreach> "
+            + "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), selected = VALUES(selected), update_time = NOW()"
+            + "</script>")
+    int batchUpsertCart(@Param("userId") Integer userId, @Param("carts") List<Cart> carts);
+    
+    /**
+     * 根据用户ID和商品ID列表批量删除购物车项
+     * 
+     * @param userId 用户ID
+     * @param productIds 商品ID列表
+     * @return 影响行数
+     */
+    @Delete("<script>"
+            + "DELETE FROM cart WHERE user_id = #{userId} AND product_id IN "
+            + "<foreach collection='productIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + "</script>")
+    int deleteCartByUserIdAndProductIds(@Param("userId") Integer userId, @Param("productIds") List<Integer> productIds);
+}
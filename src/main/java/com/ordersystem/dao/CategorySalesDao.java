@@ -0,0 +1,52 @@
+package com.ordersystem.dao;
+
+import org.apache.ibatis.annotations.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品类别销售统计DAO接口
+ */
+@Repository
+public interface CategorySalesDao {
+
+    /**
+     * 累加类别销售数据（不存在则插入）
+     * @param category 商品类别
+     * @param itemCount 订单明细数增量
+     * @param quantity 销售数量增量
+     * @param amount 销售金额增量
+     * @return 影响行数
+     */
+    int incrementSales(@Param("category") Integer category,
+                       @Param("itemCount") Integer itemCount,
+                       @Param("quantity") Integer quantity,
+                       @Param("amount") BigDecimal amount);
+
+    /**
+     * 获取商品类别销售分布
+     * @return 商品类别销售分布统计
+     */
+    List<Map<String, Object>> getCategorySalesDistribution();
+
+    /**
+     * 统计类别数
+     * @return 类别数
+     */
+    int countCategories();
+
+    /**
+     * 清空统计数据
+     * @return 影响行数
+     */
+    int deleteAll();
+
+    /**
+     * 根据订单明细重新汇总统计数据（不含已取消订单）
+     * @return 影响行数
+     */
+    int rebuildFromOrderItems();
+}
@@ -1,6 +1,8 @@
 package com.ordersystem.dao;
 
 import com.ordersystem.entity.Order;
+import org.apache.ibatis.session.ResultHandler;
+
 import java.util.List;
 import java.util.Map;
 
@@ -103,11 +105,25 @@ public interface OrderDao {
     
     /**
      * 根据筛选条件查询订单
-     * @param filters 筛选条件，支持keyword(订单号模糊搜索)、status、startDate、endDate等
+     * @param filters 筛选条件，支持keyword(订单号、收货人、收货人电话模糊搜索，可配合keywordGrams使用搜索索引)、status、startDate、endDate等
      * @return 订单列表
      */
     List<Order> getOrdersByFilters(Map<String, Object> filters);
     
+    /**
+     * 统计符合筛选条件的订单数
+     * @param filters 筛选条件，与getOrdersByFilters相同
+     * @return 订单数
+     */
+    long countOrdersByFilters(Map<String, Object> filters);
+    
+    /**
+     * 流式导出订单，每读取一行回调一次，不在内存中组装结果列表
+     * @param filters 筛选条件，与getOrdersByFilters相同
+     * @param handler 行处理器
+     */
+    void exportOrdersByFilters(Map<String, Object> filters, ResultHandler<Map<String, Object>> handler);
+    
     /**
      * 获取订单总数
      * @return 订单总数
@@ -127,11 +143,6 @@ public interface OrderDao {
      */
     List<Map<String, Object>> getOrderStatusDistribution();
     
-    /**
-     * 获取商品类别销售分布
-     * @return 商品类别销售分布统计
-     */
-    List<Map<String, Object>> getProductCategoryDistribution();
     
     /**
      * 获取支付方式分布
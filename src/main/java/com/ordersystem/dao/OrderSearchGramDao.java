@@ -0,0 +1,50 @@
+package com.ordersystem.dao;
+
+import com.ordersystem.entity.Order;
+import com.ordersystem.entity.OrderSearchGram;
+import org.apache.ibatis.annotations.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 订单搜索索引DAO接口
+ * 维护订单号、收货人、收货人电话的n-gram倒排索引
+ */
+@Repository
+public interface OrderSearchGramDao {
+
+    /**
+     * 批量写入索引词
+     * @param grams 索引词列表
+     * @return 影响行数
+     */
+    int batchInsertGrams(@Param("grams") List<OrderSearchGram> grams);
+
+    /**
+     * 删除订单的全部索引词
+     * @param orderId 订单ID
+     * @return 影响行数
+     */
+    int deleteGramsByOrderId(@Param("orderId") Integer orderId);
+
+    /**
+     * 清空索引
+     * @return 影响行数
+     */
+    int deleteAll();
+
+    /**
+     * 统计已建立索引的订单数
+     * @return 订单数
+     */
+    int countIndexedOrders();
+
+    /**
+     * 按订单ID顺序分批读取需要建立索引的字段
+     * @param afterId 上一批最后的订单ID
+     * @param limit 批量大小
+     * @return 订单列表（只包含订单ID、订单号、收货人、收货人电话）
+     */
+    List<Order> getOrdersForIndex(@Param("afterId") Integer afterId, @Param("limit") Integer limit);
+}
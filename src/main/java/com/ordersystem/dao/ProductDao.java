@@ -1,6 +1,8 @@
 package com.ordersystem.dao;
 
+import com.ordersystem.entity.OrderItem;
 import com.ordersystem.entity.Product;
+import org.apache.ibatis.annotations.Param;
 import java.util.List;
 
 /**
@@ -36,6 +38,13 @@ public interface ProductDao {
      */
     Product getProductById(Integer productId);
     
+    /**
+     * 根据ID列表批量查询商品（不含图片数据）
+     * @param productIds 商品ID列表
+     * @return 商品列表
+     */
+    List<Product> getProductsByIds(@Param("productIds") List<Integer> productIds);
+    
     /**
      * 查询所有商品
      * @return 商品列表
@@ -64,4 +73,12 @@ public interface ProductDao {
      * @return 影响行数
      */
     int updateProductImage(Integer productId, byte[] productImage);
-}
\ No newline at end of file
+
+    /**
+     * 批量扣减商品库存
+     * 只扣减上架且库存充足的商品，影响行数小于明细数时说明有商品库存不足或已下架
+     * @param items 订单明细（productId、quantity），商品ID不能重复
+     * @return 影响行数
+     */
+    int batchDecreaseStock(@Param("items") List<OrderItem> items);
+}
@@ -0,0 +1,39 @@
+package com.ordersystem.dao;
+
+import com.ordersystem.entity.UserAvatar;
+import org.springframework.stereotype.Repository;
+
+/**
+ * 用户头像DAO接口
+ */
+@Repository
+public interface UserAvatarDao {
+
+    /**
+     * 保存用户头像（已存在则覆盖）
+     * @param avatar 头像信息
+     * @return 影响行数
+     */
+    int upsertAvatar(UserAvatar avatar);
+
+    /**
+     * 查询头像元数据（不含图片数据）
+     * @param userId 用户ID
+     * @return 头像元数据，没有头像时返回null
+     */
+    UserAvatar getAvatarMeta(Integer userId);
+
+    /**
+     * 查询头像（含图片数据）
+     * @param userId 用户ID
+     * @return 头像，没有头像时返回null
+     */
+    UserAvatar getAvatar(Integer userId);
+
+    /**
+     * 删除用户头像
+     * @param userId 用户ID
+     * @return 影响行数
+     */
+    int deleteAvatar(Integer userId);
+}
@@ -1,9 +1,14 @@
 package com.ordersystem.dao;
 
 import com.ordersystem.entity.User;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 用户DAO接口
@@ -34,14 +39,14 @@ public interface UserDao {
     /**
      * 根据ID查询用户
      * @param userId 用户ID
-     * @return 用户信息
+     * @return 用户信息（不含头像数据）
      */
     User getUserById(Integer userId);
     
     /**
      * 根据用户名查询用户
      * @param username 用户名
-     * @return 用户信息
+     * @return 用户信息（不含头像数据）
      */
     User getUserByUsername(String username);
     
@@ -65,4 +70,38 @@ public interface UserDao {
      */
     @Select("SELECT avatar_data FROM user WHERE user_id = #{userId}")
     byte[] getUserByAvatarData(Integer userId);
-}
\ No newline at end of file
+
+    /**
+     * 清除用户表中的旧头像数据（迁移到user_avatar表后调用），不改变update_time
+     * @param userId 用户ID
+     * @return 影响行数
+     */
+    @Update("UPDATE user SET avatar_data = NULL, update_time = update_time WHERE user_id = #{userId}")
+    int clearAvatarData(Integer userId);
+
+    /**
+     * 批量更新用户登录时间（写入update_time）
+     * @param logins 用户ID -> 登录时间
+     * @return 影响行数
+     */
+    int batchUpdateLoginTime(@Param("logins") Map<Integer, Date> logins);
+
+    /**
+     * 根据用户ID列表批量查询用户
+     * @param userIds 用户ID列表
+     * @return 用户列表（不含头像数据）
+     */
+    List<User> getUsersByIds(@Param("userIds") List<Integer> userIds);
+
+    /**
+     * 统计用户总数
+     * @return 用户总数
+     */
+    int countUsers();
+    
+    /**
+     * 流式读取所有用户名，每读取一行回调一次
+     * @param handler 行处理器
+     */
+    void scanUsernames(ResultHandler<String> handler);
+}
@@ -19,7 +19,9 @@ public class Cart {
     private Double productPrice;   // 商品价格
     private Integer productStock;  // 商品库存
     private Integer productStatus; // 商品状态
-    private byte[] productImage;   // 商品图片（二进制数据）
+    private byte[] productImage;   // 商品图片（二进制数据，购物车查询不再加载，改用productImageUrl）
+    private Long productImageVersion; // 商品图片版本（图片更新时间戳），无图片时为null
+    private String productImageUrl;   // 商品图片地址，带版本号便于浏览器缓存
 
     // 非数据库字段 - 关联的完整商品对象 (可选，如果需要完整对象)
     private Product product;     // 关联的商品信息
@@ -129,6 +131,22 @@ public class Cart {
         this.productImage = productImage;
     }
 
+    public Long getProductImageVersion() {
+        return productImageVersion;
+    }
+
+    public void setProductImageVersion(Long productImageVersion) {
+        this.productImageVersion = productImageVersion;
+    }
+
+    public String getProductImageUrl() {
+        return productImageUrl;
+    }
+
+    public void setProductImageUrl(String productImageUrl) {
+        this.productImageUrl = productImageUrl;
+    }
+
     @Override
     public String toString() {
         return "Cart{" +
@@ -143,7 +161,8 @@ public class Cart {
                 ", productPrice=" + productPrice +
                 ", productStock=" + productStock +
                 ", productStatus=" + productStatus +
-                ", productImage='" + productImage + '\'' +
+                ", productImageVersion=" + productImageVersion +
+                ", productImageUrl='" + productImageUrl + '\'' +
                 '}';
     }
 }
\ No newline at end of file
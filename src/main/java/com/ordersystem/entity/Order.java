@@ -8,11 +8,20 @@ import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.Valid;
+import javax.validation.groups.Default;
 
 /**
  * 订单实体类
  */
 public class Order {
+
+    /**
+     * 收货信息校验分组
+     * 购物车结算时订单项由服务端根据购物车生成，只校验收货信息
+     */
+    public interface Shipping {
+    }
+
     private Integer orderId;        // 订单ID
     private String orderNo;         // 订单编号
     private String orderUuid;       // 订单UUID，用于安全访问，对应数据库中的order_uuid字段
@@ -24,14 +33,14 @@ public class Order {
     private Date shippingTime;      // 发货时间
     private Date completeTime;      // 完成时间
 
-    @NotBlank(message = "收货地址不能为空")
+    @NotBlank(message = "收货地址不能为空", groups = {Default.class, Shipping.class})
     private String address;         // 收货地址
 
-    @NotBlank(message = "收货人不能为空")
+    @NotBlank(message = "收货人不能为空", groups = {Default.class, Shipping.class})
     private String receiver;        // 收货人
 
-    @NotBlank(message = "收货人电话不能为空")
-    @Pattern(regexp = "^\\d{11}$", message = "请输入有效的11位手机号码")
+    @NotBlank(message = "收货人电话不能为空", groups = {Default.class, Shipping.class})
+    @Pattern(regexp = "^\\d{11}$", message = "请输入有效的11位手机号码", groups = {Default.class, Shipping.class})
     private String receiverPhone;   // 收货人电话
 
     private String remark;          // 订单备注
@@ -0,0 +1,41 @@
+package com.ordersystem.entity;
+
+/**
+ * 订单搜索索引词实体类
+ */
+public class OrderSearchGram {
+    private String gram;          // 索引词
+    private Integer orderId;      // 订单ID
+
+    public OrderSearchGram() {
+    }
+
+    public OrderSearchGram(String gram, Integer orderId) {
+        this.gram = gram;
+        this.orderId = orderId;
+    }
+
+    public String getGram() {
+        return gram;
+    }
+
+    public void setGram(String gram) {
+        this.gram = gram;
+    }
+
+    public Integer getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Integer orderId) {
+        this.orderId = orderId;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderSearchGram{" +
+                "gram='" + gram + '\'' +
+                ", orderId=" + orderId +
+                '}';
+    }
+}
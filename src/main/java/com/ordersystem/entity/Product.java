@@ -18,6 +18,7 @@ public class Product {
     private byte[] productImage;    // 商品图片（二进制数据）
     private Date createTime;        // 创建时间
     private Date updateTime;        // 更新时间
+    private Date imageUpdateTime;   // 图片更新时间，只在图片变化时更新
 
     public Integer getProductId() {
         return productId;
@@ -99,6 +100,14 @@ public class Product {
         this.updateTime = updateTime;
     }
 
+    public Date getImageUpdateTime() {
+        return imageUpdateTime;
+    }
+
+    public void setImageUpdateTime(Date imageUpdateTime) {
+        this.imageUpdateTime = imageUpdateTime;
+    }
+
     public byte[] getProductImage() {
         return productImage;
     }
@@ -121,6 +130,7 @@ public class Product {
                 ", productImage=" + (productImage != null ? "[二进制数据]" : "null") +
                 ", createTime=" + createTime +
                 ", updateTime=" + updateTime +
+                ", imageUpdateTime=" + imageUpdateTime +
                 '}';
     }
 }
\ No newline at end of file
@@ -14,7 +14,7 @@ public class User {
     private String phone;       // 电话号码
     private String email;       // 邮箱
     private String address;     // 地址
-    private byte[] avatarData;  // 用户头像二进制数据
+    private byte[] avatarData;  // 旧版头像数据，已迁移到user_avatar表，不再读写（保留字段以兼容已缓存的用户数据）
     private Integer role;       // 用户角色：0-普通用户，1-商家/管理员
     private Integer status;     // 用户状态：0-禁用，1-正常
     private Date createTime;    // 创建时间
@@ -0,0 +1,75 @@
+package com.ordersystem.entity;
+
+import java.util.Date;
+
+/**
+ * 用户头像实体类
+ * 头像与用户表分开存储，按内容哈希生成ETag
+ */
+public class UserAvatar {
+    private Integer userId;       // 用户ID
+    private String contentHash;   // 内容哈希（SHA-256，十六进制）
+    private String contentType;   // 图片类型，如image/jpeg
+    private Integer avatarSize;   // 图片字节数
+    private byte[] avatarData;    // 图片二进制数据（只在读取图片时加载）
+    private Date updateTime;      // 更新时间
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Integer userId) {
+        this.userId = userId;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Integer getAvatarSize() {
+        return avatarSize;
+    }
+
+    public void setAvatarSize(Integer avatarSize) {
+        this.avatarSize = avatarSize;
+    }
+
+    public byte[] getAvatarData() {
+        return avatarData;
+    }
+
+    public void setAvatarData(byte[] avatarData) {
+        this.avatarData = avatarData;
+    }
+
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    @Override
+    public String toString() {
+        return "UserAvatar{" +
+                "userId=" + userId +
+                ", contentHash='" + contentHash + '\'' +
+                ", contentType='" + contentType + '\'' +
+                ", avatarSize=" + avatarSize +
+                ", updateTime=" + updateTime +
+                '}';
+    }
+}
@@ -0,0 +1,67 @@
+package com.ordersystem.interceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordersystem.annotation.AdminOnly;
+import com.ordersystem.util.TokenPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 管理员权限拦截器
+ * 在TokenInterceptor之后执行，对标注了@AdminOnly的接口校验Token中的角色
+ */
+@Component
+public class AdminInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminInterceptor.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        AdminOnly adminOnly = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getMethod(), AdminOnly.class);
+        if (adminOnly == null) {
+            adminOnly = AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), AdminOnly.class);
+        }
+        if (adminOnly == null) {
+            return true;
+        }
+
+        TokenPrincipal principal = (TokenPrincipal) request.getAttribute(TokenPrincipal.REQUEST_ATTRIBUTE);
+        if (principal != null && principal.isAdmin()) {
+            return true;
+        }
+
+        logger.warn("非管理员用户 {} 尝试访问管理员接口 {}",
+                principal != null ? principal.getUserId() : null, request.getRequestURI());
+        responseForbidden(response, adminOnly.message());
+        return false;
+    }
+
+    /**
+     * 返回无权限信息
+     */
+    private void responseForbidden(HttpServletResponse response, String message) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("message", message);
+        response.getWriter().write(MAPPER.writeValueAsString(result));
+    }
+}
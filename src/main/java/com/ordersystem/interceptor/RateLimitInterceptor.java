@@ -0,0 +1,115 @@
+package com.ordersystem.interceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordersystem.service.RateLimitService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 限流拦截器
+ * 对登录、注册和验证码等无需登录且开销较大的接口按IP限流，
+ * 超出限制的请求在进入业务逻辑之前直接返回429。
+ * 每条规则注册一个拦截器，由Spring按与路由相同的路径（解码并规范化后）匹配，
+ * 编码或多余斜杠的路径不会绕过限流
+ */
+@Component
+public class RateLimitInterceptor {
+
+    /** 限流规则及其路径 */
+    public static final Map<String, String[]> RULE_PATHS;
+
+    static {
+        Map<String, String[]> rulePaths = new LinkedHashMap<>();
+        rulePaths.put("login-ip", new String[] {"/api/users/login/**", "/api/admin/auth/login/**"});
+        rulePaths.put("register-ip", new String[] {"/api/users/register/**"});
+        rulePaths.put("captcha-ip", new String[] {"/api/captcha/image/**"});
+        RULE_PATHS = Collections.unmodifiableMap(rulePaths);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    /** 是否启用限流 */
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    /** 是否信任X-Forwarded-For请求头（部署在反向代理之后时开启，否则客户端可以伪造IP绕过限流） */
+    @Value("${rate-limit.trust-forwarded-header:false}")
+    private boolean trustForwardedHeader;
+
+    /** 限流后建议客户端重试的等待时间（秒） */
+    @Value("${rate-limit.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    /**
+     * 创建指定规则的拦截器，注册时配合RULE_PATHS中该规则的路径使用
+     * @param rule 限流规则
+     * @return 拦截器
+     */
+    public HandlerInterceptor forRule(String rule) {
+        return new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+                    throws Exception {
+                return checkLimit(rule, request, response);
+            }
+        };
+    }
+
+    private boolean checkLimit(String rule, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!enabled || "OPTIONS".equals(request.getMethod())) {
+            return true;
+        }
+        String ip = getClientIp(request);
+        if (rateLimitService.tryAcquire(rule, ip)) {
+            return true;
+        }
+        logger.warn("请求过于频繁，已限流，rule={}，ip={}", rule, ip);
+        responseTooManyRequests(response);
+        return false;
+    }
+
+    /**
+     * 获取客户端IP
+     */
+    private String getClientIp(HttpServletRequest request) {
+        if (trustForwardedHeader) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isEmpty() && !"unknown".equalsIgnoreCase(forwarded)) {
+                int comma = forwarded.indexOf(',');
+                return (comma > 0 ? forwarded.substring(0, comma) : forwarded).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * 返回限流信息
+     */
+    private void responseTooManyRequests(HttpServletResponse response) throws IOException {
+        response.setContentType("application/json;charset=UTF-8");
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("success", false);
+        result.put("message", "请求过于频繁，请稍后再试");
+        response.getWriter().write(MAPPER.writeValueAsString(result));
+    }
+}
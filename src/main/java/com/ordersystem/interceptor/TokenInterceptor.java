@@ -3,6 +3,7 @@ package com.ordersystem.interceptor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ordersystem.service.RedisService;
 import com.ordersystem.util.JwtTokenUtil;
+import com.ordersystem.util.TokenPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
@@ -49,14 +50,15 @@ TokenInterceptor implements HandlerInterceptor {
         // 提取Token
         String token = authHeader.substring(TOKEN_PREFIX.length());
         
-        // 验证Token是否有效
-        if (!jwtTokenUtil.validateToken(token)) {
+        // 解析并验证Token（只解析一次）
+        TokenPrincipal principal = jwtTokenUtil.parseToken(token);
+        if (principal == null) {
             responseError(response, "Token已过期或无效");
             return false;
         }
         
         // 获取用户ID
-        Integer userId = jwtTokenUtil.getUserIdFromToken(token);
+        Integer userId = principal.getUserId();
         if (userId == null) {
             responseError(response, "Token中不包含用户信息");
             return false;
@@ -69,9 +71,13 @@ TokenInterceptor implements HandlerInterceptor {
             return false;
         }
         
-        // 将用户ID存入请求属性中，方便后续使用
+        // 记录在线会话活跃时间（节流写入）
+        redisService.touchSession(userId);
+        
+        // 将用户信息存入请求属性中，方便后续使用
+        request.setAttribute(TokenPrincipal.REQUEST_ATTRIBUTE, principal);
         request.setAttribute("userId", userId);
-        request.setAttribute("username", jwtTokenUtil.getUsernameFromToken(token));
+        request.setAttribute("username", principal.getUsername());
         
         return true;
     }
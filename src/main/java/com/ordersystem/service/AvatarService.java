@@ -0,0 +1,44 @@
+package com.ordersystem.service;
+
+import com.ordersystem.entity.UserAvatar;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 用户头像服务接口
+ * 头像单独存储在user_avatar表，上传时缩放并按内容哈希生成ETag
+ */
+public interface AvatarService {
+
+    /**
+     * 保存用户头像
+     * 从输入流解码图片，超过最大边长时缩放，再重新编码保存
+     * @param userId 用户ID
+     * @param in 图片输入流
+     * @return 保存后的头像元数据
+     * @throws IllegalArgumentException 不是支持的图片格式或图片尺寸过大时抛出
+     * @throws IOException 读取图片失败时抛出
+     */
+    UserAvatar saveAvatar(Integer userId, InputStream in) throws IOException;
+
+    /**
+     * 获取头像元数据（内容哈希、类型），优先从缓存读取
+     * @param userId 用户ID
+     * @return 头像元数据，没有头像时返回null
+     */
+    UserAvatar getAvatarMeta(Integer userId);
+
+    /**
+     * 获取头像（含图片数据）
+     * @param userId 用户ID
+     * @return 头像，没有头像时返回null
+     */
+    UserAvatar getAvatar(Integer userId);
+
+    /**
+     * 删除用户头像及其元数据缓存
+     * @param userId 用户ID
+     */
+    void deleteAvatar(Integer userId);
+}
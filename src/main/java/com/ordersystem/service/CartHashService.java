@@ -0,0 +1,147 @@
+package com.ordersystem.service;
+
+import com.ordersystem.entity.Cart;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 购物车Redis哈希服务接口
+ * 每个用户的购物车保存为一个Redis哈希，加购、改数量、勾选等操作只访问Redis，
+ * 变更由后台任务合并后批量写入cart表
+ */
+public interface CartHashService {
+
+    /**
+     * 添加商品（已存在则累加数量），并设为选中
+     * @param userId 用户ID
+     * @param productId 商品ID
+     * @param quantity 增加的数量
+     * @param stock 商品库存，数量不超过库存
+     * @return 累加后的数量
+     */
+    int addItem(Integer userId, Integer productId, int quantity, int stock);
+
+    /**
+     * 设置商品数量
+     * @param userId 用户ID
+     * @param productId 商品ID
+     * @param quantity 数量
+     * @param stock 商品库存，数量不超过库存
+     * @return 购物车中不存在该商品时返回false
+     */
+    boolean setQuantity(Integer userId, Integer productId, int quantity, int stock);
+
+    /**
+     * 设置商品选中状态
+     * @param userId 用户ID
+     * @param productId 商品ID
+     * @param selected 选中状态：0-未选中，1-已选中
+     * @return 购物车中不存在该商品时返回false
+     */
+    boolean setSelected(Integer userId, Integer productId, int selected);
+
+    /**
+     * 设置所有商品的选中状态
+     * @param userId 用户ID
+     * @param selected 选中状态：0-未选中，1-已选中
+     */
+    void setAllSelected(Integer userId, int selected);
+
+    /**
+     * 删除商品
+     * @param userId 用户ID
+     * @param productId 商品ID
+     * @return 购物车中不存在该商品时返回false
+     */
+    boolean removeItem(Integer userId, Integer productId);
+
+    /**
+     * 清空购物车
+     * @param userId 用户ID
+     */
+    void clear(Integer userId);
+
+    /**
+     * 根据购物车ID查找商品ID，同时用于校验购物车项是否属于该用户
+     * @param userId 用户ID
+     * @param cartId 购物车ID
+     * @return 商品ID，不属于该用户时返回null
+     */
+    Integer getProductIdByCartId(Integer userId, Integer cartId);
+
+    /**
+     * 判断商品是否在购物车中
+     * @param userId 用户ID
+     * @param productId 商品ID
+     * @return 是否在购物车中
+     */
+    boolean containsProduct(Integer userId, Integer productId);
+
+    /**
+     * 统计购物车商品种类数，直接读取哈希中维护的计数
+     * @param userId 用户ID
+     * @return 商品种类数
+     */
+    int countItems(Integer userId);
+
+    /**
+     * 重新计算购物车商品种类数：哈希存在时按哈希中的商品计数，否则从数据库加载
+     * @param userId 用户ID
+     * @return 商品种类数
+     */
+    int repairCount(Integer userId);
+
+    /**
+     * 立即把该用户未写入数据库的变更写入cart表（读取数据库前调用）
+     * 定时写入正在进行时等待其完成，返回时cart表与Redis哈希一致
+     * @param userId 用户ID
+     */
+    void flushUser(Integer userId);
+
+    /**
+     * 删除所有选中的商品
+     * @param userId 用户ID
+     * @return 被删除的商品ID列表
+     */
+    List<Integer> removeSelected(Integer userId);
+
+    /**
+     * 根据购物车ID批量删除商品（不属于该用户的ID忽略）
+     * @param userId 用户ID
+     * @param cartIds 购物车ID列表
+     * @return 被删除的商品ID列表
+     */
+    List<Integer> removeByCartIds(Integer userId, List<Integer> cartIds);
+
+    /**
+     * 批量删除指定商品（购物车中不存在的商品忽略）
+     * @param userId 用户ID
+     * @param productIds 商品ID列表
+     * @return 被删除的商品ID列表
+     */
+    List<Integer> removeProducts(Integer userId, List<Integer> productIds);
+
+    /**
+     * 放回之前删除的购物车记录（结算事务回滚时调用），哈希中已重新加入的商品不覆盖
+     * @param userId 用户ID
+     * @param carts 购物车记录（含购物车ID、数量和选中状态）
+     */
+    void restoreItems(Integer userId, List<Cart> carts);
+
+    /**
+     * 根据购物车ID批量查找商品ID
+     * @param userId 用户ID
+     * @param cartIds 购物车ID列表
+     * @return 购物车ID -> 商品ID，不属于该用户的ID不包含在结果中
+     */
+    Map<Integer, Integer> getProductIdsByCartIds(Integer userId, List<Integer> cartIds);
+
+    /**
+     * 批量设置商品数量（购物车中不存在的商品忽略）
+     * @param userId 用户ID
+     * @param quantities 商品ID -> 数量
+     * @return 更新的商品数
+     */
+    int setQuantities(Integer userId, Map<Integer, Integer> quantities);
+}
@@ -23,28 +23,40 @@ public interface CartService {
     /**
      * 更新购物车商品数量
      * 
+     * @param userId 用户ID
      * @param cartId 购物车ID
      * @param quantity 数量
      * @return 是否成功
      */
-    boolean updateCartQuantity(Integer cartId, Integer quantity);
+    boolean updateCartQuantity(Integer userId, Integer cartId, Integer quantity);
     
     /**
      * 更新购物车商品选中状态
      * 
+     * @param userId 用户ID
      * @param cartId 购物车ID
      * @param selected 选中状态：0-未选中，1-已选中
      * @return 是否成功
      */
-    boolean updateCartSelected(Integer cartId, Integer selected);
+    boolean updateCartSelected(Integer userId, Integer cartId, Integer selected);
     
     /**
      * 删除购物车商品
      * 
+     * @param userId 用户ID
      * @param cartId 购物车ID
      * @return 是否成功
      */
-    boolean deleteCart(Integer cartId);
+    boolean deleteCart(Integer userId, Integer cartId);
+    
+    /**
+     * 判断购物车项是否属于用户
+     * 
+     * @param userId 用户ID
+     * @param cartId 购物车ID
+     * @return 是否属于该用户
+     */
+    boolean isUserCart(Integer userId, Integer cartId);
     
     /**
      * 清空用户购物车
@@ -105,4 +117,30 @@ public interface CartService {
      * @return 是否在购物车中
      */
     boolean isProductInCart(Integer userId, Integer productId);
-}
\ No newline at end of file
+    
+    /**
+     * 删除所有已选中的购物车商品
+     * 
+     * @param userId 用户ID
+     * @return 删除的商品数
+     */
+    int deleteSelectedCart(Integer userId);
+    
+    /**
+     * 根据购物车ID批量删除购物车商品，不属于该用户的ID忽略
+     * 
+     * @param userId 用户ID
+     * @param cartIds 购物车ID列表
+     * @return 删除的商品数
+     */
+    int deleteCartsByIds(Integer userId, List<Integer> cartIds);
+    
+    /**
+     * 批量更新购物车商品数量，数量超过库存时调整为最大库存
+     * 
+     * @param userId 用户ID
+     * @param items 购物车项列表（cartId、quantity）
+     * @return 更新的商品数
+     */
+    int updateCartQuantities(Integer userId, List<Cart> items);
+}
@@ -0,0 +1,37 @@
+package com.ordersystem.service;
+
+import com.ordersystem.entity.OrderItem;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品类别销售统计服务接口
+ * 在下单、取消订单时增量维护各类别的销售计数和金额，避免每次统计扫描全部订单明细
+ */
+public interface CategorySalesService {
+
+    /**
+     * 累加订单明细的类别销售数据（下单时调用）
+     * @param items 订单明细列表
+     */
+    void addSales(List<OrderItem> items);
+
+    /**
+     * 扣减订单明细的类别销售数据（取消或删除订单时调用）
+     * @param items 订单明细列表
+     */
+    void subtractSales(List<OrderItem> items);
+
+    /**
+     * 获取商品类别销售分布
+     * @return 商品类别销售分布统计
+     */
+    List<Map<String, Object>> getCategorySalesDistribution();
+
+    /**
+     * 根据订单明细重建类别销售统计
+     * @return 重建后的类别数
+     */
+    int rebuild();
+}
@@ -0,0 +1,23 @@
+package com.ordersystem.service;
+
+import java.util.Map;
+
+/**
+ * 仪表盘服务接口
+ * 聚合订单相关的各项统计数据
+ */
+public interface DashboardService {
+
+    /**
+     * 获取仪表盘数据
+     * 各项统计并发查询，某一项超时或失败时返回其余部分，并在missingParts中列出缺失项
+     * @param days 近期订单统计天数
+     * @return 仪表盘数据
+     */
+    Map<String, Object> getDashboardData(Integer days);
+
+    /**
+     * 清除仪表盘缓存
+     */
+    void evictDashboardCache();
+}
@@ -0,0 +1,32 @@
+package com.ordersystem.service;
+
+import com.ordersystem.entity.OrderItem;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热销商品服务接口
+ * 根据下单数据流式统计热销商品，支持日、周、全部三个时间窗口
+ */
+public interface HotProductService {
+
+    /**
+     * 记录订单明细的销量（下单时调用，事务提交后生效）
+     * @param items 订单明细列表
+     */
+    void recordSales(List<OrderItem> items);
+
+    /**
+     * 获取热销商品
+     * @param window 时间窗口：day、week、all
+     * @param limit 数量
+     * @return 热销商品列表
+     */
+    List<Map<String, Object>> getHotProducts(String window, int limit);
+
+    /**
+     * 将当前统计保存到Redis
+     */
+    void saveSnapshot();
+}
@@ -0,0 +1,26 @@
+package com.ordersystem.service;
+
+import com.ordersystem.entity.SysLog;
+
+import java.util.Map;
+
+/**
+ * 操作日志缓冲服务接口
+ * 日志先写入内存环形队列，由后台线程按批量大小或最大延迟批量写入日志流或数据库，记录日志不阻塞请求
+ */
+public interface LogBufferService {
+
+    /**
+     * 提交一条日志（不阻塞）
+     * 队列已满时按溢出策略丢弃或转存到磁盘
+     * @param sysLog 日志
+     * @return 是否进入内存队列
+     */
+    boolean submit(SysLog sysLog);
+
+    /**
+     * 获取缓冲队列指标：队列深度、容量、提交数、写入数、丢弃数、转存数等
+     * @return 指标数据
+     */
+    Map<String, Object> getMetrics();
+}
@@ -0,0 +1,45 @@
+package com.ordersystem.service;
+
+import com.ordersystem.entity.SysLog;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 操作日志流服务接口
+ * 日志写入Redis Stream，各节点以同一消费组中的不同消费者读取并写入数据库，
+ * 每条日志只会投递给一个节点，写库成功后确认；节点宕机未确认的日志超时后由其他节点认领
+ */
+public interface LogStreamService {
+
+    /**
+     * 批量追加日志到日志流（管道提交）
+     * @param logs 日志列表
+     */
+    void append(List<SysLog> logs);
+
+    /**
+     * 消费日志流并写入数据库：先认领超时未确认的日志，再读取新日志
+     * @return 本次处理的日志条数
+     */
+    int drain();
+
+    /**
+     * 读取一批新日志并写入数据库，多个线程可同时调用，每条消息只会被其中一个读到
+     * @param count 最多读取条数
+     * @return 处理的消息数（含无法解析而丢弃的），0表示没有新日志，-1表示写库失败
+     */
+    int drainBatch(int count);
+
+    /**
+     * 获取积压量：流中尚未确认删除的日志条数
+     * @return 积压条数
+     */
+    long getBacklog();
+
+    /**
+     * 获取日志流指标：流长度、待确认数、追加数、写入数、认领数、失败数等
+     * @return 指标数据
+     */
+    Map<String, Object> getMetrics();
+}
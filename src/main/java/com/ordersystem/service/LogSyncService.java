@@ -0,0 +1,24 @@
+package com.ordersystem.service;
+
+import java.util.Map;
+
+/**
+ * 日志同步服务接口
+ * 多个工作线程并行把Redis中积压的日志（旧版本列表格式和日志流）批量写入数据库，
+ * 每批条数根据写库耗时自适应调整
+ */
+public interface LogSyncService {
+
+    /**
+     * 同步积压日志，直到没有积压或达到单次最长运行时间
+     * 已有同步在执行时直接返回，running为true
+     * @return 同步结果：处理条数、耗时、吞吐量、批量大小、剩余积压等
+     */
+    Map<String, Object> sync();
+
+    /**
+     * 获取积压量：旧版本列表和日志流中尚未写入数据库的日志条数
+     * @return 积压数据
+     */
+    Map<String, Object> getBacklog();
+}
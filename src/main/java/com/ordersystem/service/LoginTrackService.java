@@ -0,0 +1,20 @@
+package com.ordersystem.service;
+
+/**
+ * 登录时间记录服务接口
+ * 登录时只在内存中记录时间，定时用一条批量UPDATE写入数据库
+ */
+public interface LoginTrackService {
+
+    /**
+     * 记录用户登录（只写内存）
+     * @param userId 用户ID
+     */
+    void recordLogin(Integer userId);
+
+    /**
+     * 把内存中记录的登录时间写入数据库
+     * @return 写入的用户数
+     */
+    int flush();
+}
@@ -0,0 +1,19 @@
+package com.ordersystem.service;
+
+import java.util.Map;
+
+/**
+ * 在线用户服务接口
+ * 在线会话保存在Redis有序集合中（按最近活跃时间排序），支持分页查询
+ */
+public interface OnlineUserService {
+
+    /**
+     * 分页获取在线用户
+     * @param pageNum 页码
+     * @param pageSize 每页数量
+     * @param currentUserId 当前用户ID，用于标记当前用户
+     * @return 分页数据：list、total、pageNum、pageSize
+     */
+    Map<String, Object> getOnlineUsers(int pageNum, int pageSize, Integer currentUserId);
+}
@@ -0,0 +1,53 @@
+package com.ordersystem.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * 订单导出服务接口
+ * 逐行读取订单并直接写入gzip压缩的CSV或NDJSON，内存占用与导出行数无关
+ */
+public interface OrderExportService {
+
+    /**
+     * 导出订单到输出流
+     * @param filters 筛选条件，与订单列表查询相同（keyword、status、startDate、endDate）
+     * @param format 导出格式：csv、ndjson
+     * @param out 输出流，写入gzip压缩后的数据
+     * @return 导出行数
+     * @throws IOException 写入失败
+     */
+    long exportOrders(Map<String, Object> filters, String format, OutputStream out) throws IOException;
+
+    /**
+     * 提交后台导出任务
+     * @param filters 筛选条件
+     * @param format 导出格式
+     * @param userId 发起导出的用户ID
+     * @return 任务信息
+     */
+    Map<String, Object> submitExportJob(Map<String, Object> filters, String format, Integer userId);
+
+    /**
+     * 获取导出任务进度
+     * @param jobId 任务ID
+     * @return 任务信息，不存在返回null
+     */
+    Map<String, Object> getExportJob(String jobId);
+
+    /**
+     * 获取已完成的导出文件
+     * @param jobId 任务ID
+     * @return 导出文件，任务不存在或未完成返回null
+     */
+    File getExportFile(String jobId);
+
+    /**
+     * 获取导出文件的下载文件名
+     * @param jobId 任务ID
+     * @return 文件名
+     */
+    String getExportFileName(String jobId);
+}
@@ -0,0 +1,37 @@
+package com.ordersystem.service;
+
+import com.ordersystem.entity.Order;
+
+import java.util.Map;
+
+/**
+ * 订单搜索索引服务接口
+ * 为订单号、收货人、收货人电话维护n-gram索引，关键词搜索先通过索引定位订单ID，避免全表扫描
+ */
+public interface OrderSearchIndexService {
+
+    /**
+     * 建立或更新订单的索引
+     * @param order 订单信息（需包含订单ID、订单号、收货人、收货人电话）
+     */
+    void indexOrder(Order order);
+
+    /**
+     * 删除订单的索引
+     * @param orderId 订单ID
+     */
+    void removeOrder(Integer orderId);
+
+    /**
+     * 根据关键词补充索引查询条件
+     * @param filters 原筛选条件
+     * @return 新的筛选条件，包含keywordGrams和keywordGramCount
+     */
+    Map<String, Object> prepareFilters(Map<String, Object> filters);
+
+    /**
+     * 重建全部订单的索引
+     * @return 建立索引的订单数
+     */
+    int rebuild();
+}
@@ -17,6 +17,15 @@ public interface OrderService {
      */
     boolean createOrder(Order order);
     
+    /**
+     * 购物车结算：在一个事务中把已选中的购物车商品生成订单、扣减库存并移出购物车
+     * @param userId 用户ID
+     * @param order 收货信息（收货人、电话、地址、备注、支付方式）
+     * @return 创建的订单
+     * @throws IllegalStateException 购物车没有选中商品、商品已下架或库存不足时抛出
+     */
+    Order checkoutCart(Integer userId, Order order);
+    
     /**
      * 删除订单
      * @param orderId 订单ID
@@ -79,4 +79,11 @@ public interface ProductService {
      * @return 商品列表
      */
     List<Product> getProductsByFilters(Map<String, Object> filters);
-}
\ No newline at end of file
+    
+    /**
+     * 根据商品ID列表批量查询商品（不含图片数据，不经过缓存）
+     * @param productIds 商品ID列表
+     * @return 商品列表
+     */
+    List<Product> getProductsByIds(List<Integer> productIds);
+}
@@ -0,0 +1,36 @@
+package com.ordersystem.service;
+
+/**
+ * 限流服务接口
+ * 令牌桶算法：桶容量即允许的突发请求数，令牌按固定速率补充。
+ * 支持单机模式（进程内令牌桶）和集群模式（Redis中的令牌桶，多个节点共享）
+ */
+public interface RateLimitService {
+
+    /**
+     * 尝试从指定令牌桶中获取一个令牌
+     * @param key 令牌桶标识，如 login:ip:127.0.0.1
+     * @param capacity 桶容量
+     * @param refillPerSecond 每秒补充的令牌数
+     * @return 是否获取成功，false表示应拒绝请求
+     */
+    boolean tryAcquire(String key, int capacity, double refillPerSecond);
+
+    /**
+     * 按规则尝试获取一个令牌
+     * 规则的容量和补充速率在 rate-limit.rules.规则名 下配置，未配置时使用默认规则
+     * @param rule 规则名，如 login-ip
+     * @param key 限流对象，如IP地址或用户名
+     * @return 是否获取成功，false表示应拒绝请求
+     */
+    boolean tryAcquire(String rule, String key);
+
+    /**
+     * 按规则检查令牌桶中是否还有令牌，不扣减
+     * 用于只对失败请求计数的场景：请求前检查，请求失败后再调用tryAcquire扣减
+     * @param rule 规则名，如 login-user
+     * @param key 限流对象，如用户名
+     * @return 是否还有令牌，false表示应拒绝请求
+     */
+    boolean hasToken(String rule, String key);
+}
@@ -1,5 +1,7 @@
 package com.ordersystem.service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -7,6 +9,15 @@ import java.util.Map;
  */
 public interface RedisService {
     
+    /** Token失效通知频道，消息内容为"用户ID:节点ID" */
+    String TOKEN_INVALIDATE_CHANNEL = "token:invalidate";
+    
+    /**
+     * 获取当前节点ID，用于忽略本节点发出的失效通知
+     * @return 节点ID
+     */
+    String getNodeId();
+    
     /**
      * 存储Token
      * @param userId 用户ID
@@ -17,6 +28,7 @@ public interface RedisService {
     
     /**
      * 获取Token
+     * 优先读取本地短时缓存，Token变更时通过Redis发布订阅通知各节点清除缓存
      * @param userId 用户ID
      * @return Token字符串
      */
@@ -29,10 +41,50 @@ public interface RedisService {
     void deleteToken(Integer userId);
     
     /**
-     * 获取所有用户的Token
-     * @return 用户ID和Token的映射
+     * 清除本地Token缓存（收到其他节点的失效通知时调用）
+     * @param userId 用户ID
+     */
+    void evictLocalToken(Integer userId);
+    
+    /**
+     * 记录用户活跃时间（在线会话有序集合，按间隔节流写入）
+     * @param userId 用户ID
+     */
+    void touchSession(Integer userId);
+    
+    /**
+     * 按最近活跃时间倒序分页获取在线会话
+     * @param offset 起始位置
+     * @param count 数量
+     * @return 用户ID -> 最近活跃时间（毫秒时间戳），按活跃时间倒序
+     */
+    Map<Integer, Long> getOnlineSessions(long offset, long count);
+    
+    /**
+     * 获取在线会话数量
+     * @return 会话数量
+     */
+    long countOnlineSessions();
+    
+    /**
+     * 从在线会话中移除用户
+     * @param userIds 用户ID列表
+     */
+    void removeSessions(Collection<Integer> userIds);
+    
+    /**
+     * 移除最近活跃时间早于指定时间的会话
+     * @param before 时间（毫秒时间戳）
+     * @return 移除的会话数
+     */
+    long removeSessionsBefore(long before);
+    
+    /**
+     * 批量获取缓存（一次MGET）
+     * @param keys 键列表
+     * @return 值列表，与键一一对应，不存在的键为null
      */
-    Map<Integer, String> getAllUserTokens();
+    List<Object> multiGet(List<String> keys);
     
     /**
      * 存储验证码
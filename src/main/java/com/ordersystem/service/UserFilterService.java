@@ -0,0 +1,38 @@
+package com.ordersystem.service;
+
+/**
+ * 用户存在性过滤服务接口
+ * 在内存中维护用户名布隆过滤器，用于快速判断用户名一定未被占用，避免查询数据库。
+ * 各节点各自维护过滤器，新增的用户名通过Redis发布订阅通知其他节点
+ */
+public interface UserFilterService {
+
+    /** 用户名新增通知频道，消息内容为"节点ID:归一化后的用户名" */
+    String USERNAME_ADDED_CHANNEL = "user-filter:username-added";
+
+    /**
+     * 判断用户名是否可能已存在
+     * 过滤器尚未构建完成时始终返回true
+     * @param username 用户名
+     * @return false表示一定不存在，true表示可能存在
+     */
+    boolean mightContainUsername(String username);
+
+    /**
+     * 添加用户名（注册或修改用户名后调用），并通知其他节点
+     * @param username 用户名
+     */
+    void addUsername(String username);
+
+    /**
+     * 只添加到本节点的过滤器（收到其他节点的新增通知时调用）
+     * @param normalizedUsername 已归一化的用户名
+     */
+    void addLocalUsername(String normalizedUsername);
+
+    /**
+     * 从数据库重新构建过滤器
+     * @return 载入的用户名数量
+     */
+    long rebuild();
+}
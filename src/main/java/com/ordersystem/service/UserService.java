@@ -44,6 +44,14 @@ public interface UserService {
      */
     User getUserByUsername(String username);
     
+    /**
+     * 判断用户名是否已被占用
+     * 布隆过滤器判断一定不存在时直接返回false，不查询数据库
+     * @param username 用户名
+     * @return 是否已被占用
+     */
+    boolean isUsernameTaken(String username);
+    
     /**
      * 查询所有用户
      * @return 用户列表
@@ -68,10 +76,4 @@ public interface UserService {
      * @return 分页用户列表数据
      */
     Map<String, Object> getUsersByPage(Integer pageNum, Integer pageSize, String username, Integer role, Integer status);
-
-    /**
-     * 获取用户头像
-     * @param userId 用户ID
-     */
-    byte[] getUserAvatar(Integer userId);
 }
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.dao.UserAvatarDao;
+import com.ordersystem.dao.UserDao;
+import com.ordersystem.entity.UserAvatar;
+import com.ordersystem.service.AvatarService;
+import com.ordersystem.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+
+/**
+ * 用户头像服务实现类
+ *
+ * 上传的图片直接从输入流解码，按最大边长缩放后重新编码（有透明通道用PNG，否则用JPEG），
+ * 元数据缓存在Redis（avatar:meta:{userId}），用于ETag校验时不查询数据库。
+ * 还没有迁移到user_avatar表的旧头像（user.avatar_data）在第一次读取时迁移，迁移成功后清除旧数据
+ */
+@Service
+public class AvatarServiceImpl implements AvatarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarServiceImpl.class);
+
+    private static final String META_KEY_PREFIX = "avatar:meta:";
+    private static final long META_CACHE_SECONDS = 24 * 60 * 60;
+
+    @Autowired
+    private UserAvatarDao userAvatarDao;
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Value("${avatar.max-dimension:256}")
+    private int maxDimension;
+
+    @Value("${avatar.max-source-pixels:40000000}")
+    private long maxSourcePixels;
+
+    @PostConstruct
+    public void init() {
+        // 图片解码不使用磁盘临时文件
+        ImageIO.setUseCache(false);
+    }
+
+    @Override
+    public UserAvatar saveAvatar(Integer userId, InputStream in) throws IOException {
+        BufferedImage image = readScaled(in);
+        boolean alpha = image.getColorModel().hasAlpha();
+        String format = alpha ? "png" : "jpg";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(alpha ? image : toRgb(image), format, out)) {
+            throw new IllegalArgumentException("不支持的图片格式");
+        }
+        byte[] data = out.toByteArray();
+
+        UserAvatar avatar = new UserAvatar();
+        avatar.setUserId(userId);
+        avatar.setContentHash(sha256(data));
+        avatar.setContentType(alpha ? "image/png" : "image/jpeg");
+        avatar.setAvatarSize(data.length);
+        avatar.setAvatarData(data);
+        userAvatarDao.upsertAvatar(avatar);
+        logger.info("用户头像已保存，userId={}, size={}, hash={}", userId, data.length, avatar.getContentHash());
+
+        avatar.setAvatarData(null);
+        cacheMeta(userId, avatar);
+        return avatar;
+    }
+
+    @Override
+    public UserAvatar getAvatarMeta(Integer userId) {
+        String key = META_KEY_PREFIX + userId;
+        try {
+            UserAvatar cached = redisService.get(key, UserAvatar.class);
+            if (cached != null) {
+                // 没有头像的用户也缓存一条contentHash为空的记录
+                return cached.getContentHash() == null ? null : cached;
+            }
+        } catch (Exception e) {
+            logger.error("从Redis获取头像元数据失败, userId={}", userId, e);
+        }
+
+        UserAvatar meta = userAvatarDao.getAvatarMeta(userId);
+        if (meta == null) {
+            meta = migrateLegacyAvatar(userId);
+        }
+        cacheMeta(userId, meta);
+        return meta;
+    }
+
+    @Override
+    public UserAvatar getAvatar(Integer userId) {
+        return userAvatarDao.getAvatar(userId);
+    }
+
+    @Override
+    public void deleteAvatar(Integer userId) {
+        userAvatarDao.deleteAvatar(userId);
+        try {
+            redisService.delete(META_KEY_PREFIX + userId);
+        } catch (Exception e) {
+            logger.error("删除头像元数据缓存失败, userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 把user表中的旧头像转存到user_avatar表
+     * @return 迁移后的头像元数据，没有旧头像时返回null
+     */
+    private UserAvatar migrateLegacyAvatar(Integer userId) {
+        byte[] legacy = userDao.getUserByAvatarData(userId);
+        if (legacy == null || legacy.length == 0) {
+            return null;
+        }
+        UserAvatar migrated;
+        try {
+            migrated = saveAvatar(userId, new ByteArrayInputStream(legacy));
+        } catch (Exception e) {
+            logger.warn("旧头像迁移失败，userId={}", userId, e);
+            return null;
+        }
+        try {
+            userDao.clearAvatarData(userId);
+        } catch (Exception e) {
+            // 已写入user_avatar表，旧数据不会再被读取，下次迁移前不影响使用
+            logger.error("清除旧头像数据失败，userId={}", userId, e);
+        }
+        return migrated;
+    }
+
+    private void cacheMeta(Integer userId, UserAvatar meta) {
+        try {
+            redisService.set(META_KEY_PREFIX + userId, meta != null ? meta : new UserAvatar(), META_CACHE_SECONDS);
+        } catch (Exception e) {
+            logger.error("缓存头像元数据失败, userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 解码图片并缩放到最大边长以内
+     * 先读取图片尺寸拒绝过大的图片，大图解码时按比例隔行采样，减少解码占用的内存
+     */
+    private BufferedImage readScaled(InputStream in) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = iis == null ? null : ImageIO.getImageReaders(iis);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("不支持的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IllegalArgumentException("图片尺寸过大");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(width, height) / (maxDimension * 2);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return scale(reader.read(0, param));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int longest = Math.max(width, height);
+        if (longest <= maxDimension) {
+            return source;
+        }
+        int targetWidth = Math.max(1, width * maxDimension / longest);
+        int targetHeight = Math.max(1, height * maxDimension / longest);
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, type);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * JPEG编码需要不带透明通道的RGB图片
+     */
+    private BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, source.getWidth(), source.getHeight());
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    private String sha256(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
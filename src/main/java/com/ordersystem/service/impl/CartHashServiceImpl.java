@@ -0,0 +1,691 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.dao.CartDao;
+import com.ordersystem.entity.Cart;
+import com.ordersystem.service.CartHashService;
+import com.ordersystem.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 购物车Redis哈希服务实现类
+ *
+ * 哈希结构（key为cart:hash:{userId}）：
+ *   _loaded        -> 1，表示已从数据库加载，用于区分"空购物车"和"未加载"
+ *   _count         -> 商品种类数，由各变更脚本维护，购物车角标直接读取
+ *   q:{productId}  -> 数量
+ *   s:{productId}  -> 选中状态
+ *   c:{productId}  -> 购物车ID（写入数据库后才有）
+ *   i:{cartId}     -> 商品ID，用于按购物车ID定位商品并校验归属
+ *
+ * 每次变更用一个Lua脚本完成，同时把用户ID加入待写入集合cart:dirty并清除购物车列表缓存，
+ * 定时任务按用户合并写入cart表：一次查询现有记录，一条批量upsert，一条批量删除
+ * _count缺失时（如旧版本写入的哈希）按哈希中的商品重新计数，哈希不存在时从数据库加载。
+ * 同一用户的写入数据库由cart:flush-lock:{userId}串行化：定时任务弹出用户后可能尚未写完，
+ * flushUser等待其结束后再按当前哈希写入一次，返回时数据库一定是最新的
+ */
+@Service
+public class CartHashServiceImpl implements CartHashService {
+
+    private static final Logger log = LoggerFactory.getLogger(CartHashServiceImpl.class);
+
+    private static final String HASH_KEY_PREFIX = "cart:hash:";
+    private static final String DIRTY_KEY = "cart:dirty";
+    private static final String FLUSH_LOCK_PREFIX = "cart:flush-lock:";
+    private static final String LOADED_FIELD = "_loaded";
+    private static final String COUNT_FIELD = "_count";
+
+    /** 哈希未加载 */
+    private static final long NOT_LOADED = -1;
+    /** 商品不在购物车中 */
+    private static final long NOT_FOUND = -2;
+
+    private static final DefaultRedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then return -1 end "
+            + "if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[1]) == 0 then redis.call('HINCRBY', KEYS[1], '_count', 1) end "
+            + "local q = redis.call('HINCRBY', KEYS[1], 'q:' .. ARGV[1], ARGV[2]) "
+            + "local stock = tonumber(ARGV[3]) "
+            + "if q > stock then q = stock; redis.call('HSET', KEYS[1], 'q:' .. ARGV[1], q) end "
+            + "redis.call('HSET', KEYS[1], 's:' .. ARGV[1], 1) "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+            + "redis.call('SADD', KEYS[2], ARGV[5]) "
+            + "redis.call('DEL', KEYS[3]) "
+            + "return q", Long.class);
+
+    private static final DefaultRedisScript<Long> SET_FIELD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then return -1 end "
+            + "if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[1]) == 0 then return -2 end "
+            + "redis.call('HSET', KEYS[1], ARGV[2] .. ARGV[1], ARGV[3]) "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+            + "redis.call('SADD', KEYS[2], ARGV[5]) "
+            + "redis.call('DEL', KEYS[3]) "
+            + "return 1", Long.class);
+
+    private static final DefaultRedisScript<Long> SELECT_ALL_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then return -1 end "
+            + "local fields = redis.call('HKEYS', KEYS[1]) "
+            + "for _, f in ipairs(fields) do "
+            + "  if string.sub(f, 1, 2) == 's:' then redis.call('HSET', KEYS[1], f, ARGV[1]) end "
+            + "end "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[2]) "
+            + "redis.call('SADD', KEYS[2], ARGV[3]) "
+            + "redis.call('DEL', KEYS[3]) "
+            + "return 1", Long.class);
+
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then return -1 end "
+            + "if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[1]) == 0 then return -2 end "
+            + "local cid = redis.call('HGET', KEYS[1], 'c:' .. ARGV[1]) "
+            + "if cid then redis.call('HDEL', KEYS[1], 'i:' .. cid) end "
+            + "redis.call('HDEL', KEYS[1], 'q:' .. ARGV[1], 's:' .. ARGV[1], 'c:' .. ARGV[1]) "
+            + "redis.call('HINCRBY', KEYS[1], '_count', -1) "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[2]) "
+            + "redis.call('SADD', KEYS[2], ARGV[3]) "
+            + "redis.call('DEL', KEYS[3]) "
+            + "return 1", Long.class);
+
+    private static final DefaultRedisScript<Long> CLEAR_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) "
+            + "redis.call('HSET', KEYS[1], '_loaded', 1, '_count', 0) "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+            + "redis.call('SADD', KEYS[2], ARGV[2]) "
+            + "redis.call('DEL', KEYS[3]) "
+            + "return 1", Long.class);
+
+    private static final String REMOVE_FIELDS_LUA =
+            "local function removeItem(pid) "
+            + "  local cid = redis.call('HGET', KEYS[1], 'c:' .. pid) "
+            + "  if cid then redis.call('HDEL', KEYS[1], 'i:' .. cid) end "
+            + "  redis.call('HDEL', KEYS[1], 'q:' .. pid, 's:' .. pid, 'c:' .. pid) "
+            + "  redis.call('HINCRBY', KEYS[1], '_count', -1) "
+            + "end ";
+
+    private static final String MARK_CHANGED_LUA =
+            "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+            + "redis.call('SADD', KEYS[2], ARGV[2]) "
+            + "redis.call('DEL', KEYS[3]) ";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> REMOVE_SELECTED_SCRIPT = new DefaultRedisScript<>(
+            REMOVE_FIELDS_LUA
+            + "local removed = {} "
+            + "local fields = redis.call('HGETALL', KEYS[1]) "
+            + "for i = 1, #fields, 2 do "
+            + "  if string.sub(fields[i], 1, 2) == 's:' and fields[i + 1] == '1' then "
+            + "    local pid = string.sub(fields[i], 3) "
+            + "    removeItem(pid) "
+            + "    table.insert(removed, pid) "
+            + "  end "
+            + "end "
+            + "if #removed > 0 then " + MARK_CHANGED_LUA + "end "
+            + "return removed", List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> REMOVE_BY_CART_IDS_SCRIPT = new DefaultRedisScript<>(
+            REMOVE_FIELDS_LUA
+            + "local removed = {} "
+            + "for i = 3, #ARGV do "
+            + "  local pid = redis.call('HGET', KEYS[1], 'i:' .. ARGV[i]) "
+            + "  if pid then removeItem(pid); table.insert(removed, pid) end "
+            + "end "
+            + "if #removed > 0 then " + MARK_CHANGED_LUA + "end "
+            + "return removed", List.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> REMOVE_PRODUCTS_SCRIPT = new DefaultRedisScript<>(
+            REMOVE_FIELDS_LUA
+            + "local removed = {} "
+            + "for i = 3, #ARGV do "
+            + "  if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[i]) == 1 then "
+            + "    removeItem(ARGV[i]); table.insert(removed, ARGV[i]) "
+            + "  end "
+            + "end "
+            + "if #removed > 0 then " + MARK_CHANGED_LUA + "end "
+            + "return removed", List.class);
+
+    /** 放回商品：ARGV[3..]每四个一组（商品ID、数量、选中状态、购物车ID），已存在的商品跳过 */
+    private static final DefaultRedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then return -1 end "
+            + "local restored = 0 "
+            + "for i = 3, #ARGV, 4 do "
+            + "  if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[i]) == 0 then "
+            + "    redis.call('HSET', KEYS[1], 'q:' .. ARGV[i], ARGV[i + 1], 's:' .. ARGV[i], ARGV[i + 2]) "
+            + "    if ARGV[i + 3] ~= '' then "
+            + "      redis.call('HSET', KEYS[1], 'c:' .. ARGV[i], ARGV[i + 3], 'i:' .. ARGV[i + 3], ARGV[i]) "
+            + "    end "
+            + "    redis.call('HINCRBY', KEYS[1], '_count', 1) "
+            + "    restored = restored + 1 "
+            + "  end "
+            + "end "
+            + "if restored > 0 then " + MARK_CHANGED_LUA + "end "
+            + "return restored", Long.class);
+
+    private static final DefaultRedisScript<Long> SET_QUANTITIES_SCRIPT = new DefaultRedisScript<>(
+            "local updated = 0 "
+            + "for i = 3, #ARGV, 2 do "
+            + "  if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[i]) == 1 then "
+            + "    redis.call('HSET', KEYS[1], 'q:' .. ARGV[i], ARGV[i + 1]) "
+            + "    updated = updated + 1 "
+            + "  end "
+            + "end "
+            + "if updated > 0 then " + MARK_CHANGED_LUA + "end "
+            + "return updated", Long.class);
+
+    /** 从数据库加载：哈希已存在时不覆盖，避免覆盖并发写入的变更 */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end "
+            + "for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end "
+            + "redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+            + "return 1", Long.class);
+
+    /** 写入数据库失败的商品（已被删除）从哈希中移除 */
+    private static final DefaultRedisScript<Long> DROP_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HDEL', KEYS[1], 'q:' .. ARGV[1]) == 0 then return 0 end "
+            + "redis.call('HDEL', KEYS[1], 's:' .. ARGV[1]) "
+            + "redis.call('HINCRBY', KEYS[1], '_count', -1) "
+            + "return 1", Long.class);
+
+    /** 按哈希中的商品重新计数，哈希未加载时返回-1 */
+    private static final DefaultRedisScript<Long> RECOUNT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], '_loaded') == 0 then return -1 end "
+            + "local count = 0 "
+            + "for _, f in ipairs(redis.call('HKEYS', KEYS[1])) do "
+            + "  if string.sub(f, 1, 2) == 'q:' then count = count + 1 end "
+            + "end "
+            + "redis.call('HSET', KEYS[1], '_count', count) "
+            + "return count", Long.class);
+
+    /** 释放写入锁：只删除自己持有的锁 */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+            + "return 0", Long.class);
+
+    /** 写入数据库后回填购物车ID（商品已被删除则不回填） */
+    private static final DefaultRedisScript<Long> BIND_ID_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[1]) == 0 then return 0 end "
+            + "redis.call('HSET', KEYS[1], 'c:' .. ARGV[1], ARGV[2], 'i:' .. ARGV[2], ARGV[1]) "
+            + "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private CartDao cartDao;
+
+    @Autowired
+    private RedisService redisService;
+
+    /** 写入数据库使用独立事务，在结算等外层事务中调用时也会立即提交，不随外层事务回滚 */
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${cart.hash-ttl-seconds:604800}")
+    private long hashTtlSeconds;
+
+    @Value("${cart.flush-batch-size:100}")
+    private int flushBatchSize;
+
+    /** 写入锁的过期时间（毫秒），持有者宕机时最多阻塞这么久 */
+    @Value("${cart.flush-lock-ms:30000}")
+    private long flushLockMs;
+
+    /** flushUser等待写入锁的最长时间（毫秒），超时后仍然写入 */
+    @Value("${cart.flush-wait-ms:5000}")
+    private long flushWaitMs;
+
+    public CartHashServiceImpl(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public int addItem(Integer userId, Integer productId, int quantity, int stock) {
+        long result = executeLoaded(userId, ADD_SCRIPT, String.valueOf(productId), String.valueOf(quantity),
+                String.valueOf(stock), String.valueOf(hashTtlSeconds), String.valueOf(userId));
+        return (int) result;
+    }
+
+    @Override
+    public boolean setQuantity(Integer userId, Integer productId, int quantity, int stock) {
+        int value = Math.min(quantity, stock);
+        return executeLoaded(userId, SET_FIELD_SCRIPT, String.valueOf(productId), "q:", String.valueOf(value),
+                String.valueOf(hashTtlSeconds), String.valueOf(userId)) > 0;
+    }
+
+    @Override
+    public boolean setSelected(Integer userId, Integer productId, int selected) {
+        return executeLoaded(userId, SET_FIELD_SCRIPT, String.valueOf(productId), "s:", String.valueOf(selected),
+                String.valueOf(hashTtlSeconds), String.valueOf(userId)) > 0;
+    }
+
+    @Override
+    public void setAllSelected(Integer userId, int selected) {
+        executeLoaded(userId, SELECT_ALL_SCRIPT, String.valueOf(selected),
+                String.valueOf(hashTtlSeconds), String.valueOf(userId));
+    }
+
+    @Override
+    public boolean removeItem(Integer userId, Integer productId) {
+        return executeLoaded(userId, REMOVE_SCRIPT, String.valueOf(productId),
+                String.valueOf(hashTtlSeconds), String.valueOf(userId)) > 0;
+    }
+
+    @Override
+    public void clear(Integer userId) {
+        stringRedisTemplate.execute(CLEAR_SCRIPT, changeKeys(userId),
+                String.valueOf(hashTtlSeconds), String.valueOf(userId));
+    }
+
+    @Override
+    public Integer getProductIdByCartId(Integer userId, Integer cartId) {
+        ensureLoaded(userId);
+        Object productId = stringRedisTemplate.opsForHash().get(hashKey(userId), "i:" + cartId);
+        return productId == null ? null : Integer.valueOf(productId.toString());
+    }
+
+    @Override
+    public boolean containsProduct(Integer userId, Integer productId) {
+        ensureLoaded(userId);
+        return stringRedisTemplate.opsForHash().hasKey(hashKey(userId), "q:" + productId);
+    }
+
+    @Override
+    public int countItems(Integer userId) {
+        Object count = stringRedisTemplate.opsForHash().get(hashKey(userId), COUNT_FIELD);
+        if (count != null) {
+            return Integer.parseInt(count.toString());
+        }
+        return repairCount(userId);
+    }
+
+    @Override
+    public int repairCount(Integer userId) {
+        Long count = stringRedisTemplate.execute(RECOUNT_SCRIPT, Collections.singletonList(hashKey(userId)));
+        if (count != null && count >= 0) {
+            return count.intValue();
+        }
+        // 哈希不存在，从数据库加载（加载时写入计数）后再计数
+        loadFromDatabase(userId);
+        count = stringRedisTemplate.execute(RECOUNT_SCRIPT, Collections.singletonList(hashKey(userId)));
+        return count == null || count < 0 ? 0 : count.intValue();
+    }
+
+    @Override
+    public List<Integer> removeSelected(Integer userId) {
+        ensureLoaded(userId);
+        return toIntegers(stringRedisTemplate.execute(REMOVE_SELECTED_SCRIPT, changeKeys(userId),
+                String.valueOf(hashTtlSeconds), String.valueOf(userId)));
+    }
+
+    @Override
+    public List<Integer> removeByCartIds(Integer userId, List<Integer> cartIds) {
+        if (cartIds == null || cartIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ensureLoaded(userId);
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(hashTtlSeconds));
+        args.add(String.valueOf(userId));
+        for (Integer cartId : cartIds) {
+            args.add(String.valueOf(cartId));
+        }
+        return toIntegers(stringRedisTemplate.execute(REMOVE_BY_CART_IDS_SCRIPT, changeKeys(userId), args.toArray()));
+    }
+
+    @Override
+    public List<Integer> removeProducts(Integer userId, List<Integer> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ensureLoaded(userId);
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(hashTtlSeconds));
+        args.add(String.valueOf(userId));
+        for (Integer productId : productIds) {
+            args.add(String.valueOf(productId));
+        }
+        return toIntegers(stringRedisTemplate.execute(REMOVE_PRODUCTS_SCRIPT, changeKeys(userId), args.toArray()));
+    }
+
+    @Override
+    public void restoreItems(Integer userId, List<Cart> carts) {
+        if (carts == null || carts.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(hashTtlSeconds));
+        args.add(String.valueOf(userId));
+        for (Cart cart : carts) {
+            args.add(String.valueOf(cart.getProductId()));
+            args.add(String.valueOf(cart.getQuantity()));
+            args.add(String.valueOf(cart.getSelected() == null ? 1 : cart.getSelected()));
+            args.add(cart.getCartId() == null ? "" : String.valueOf(cart.getCartId()));
+        }
+        Long restored = stringRedisTemplate.execute(RESTORE_SCRIPT, changeKeys(userId), args.toArray());
+        if (restored != null && restored == NOT_LOADED) {
+            // 哈希已过期，下次访问时从数据库（已回滚）重新加载
+            log.debug("购物车哈希不存在，无需放回，userId={}", userId);
+        }
+    }
+
+    @Override
+    public Map<Integer, Integer> getProductIdsByCartIds(Integer userId, List<Integer> cartIds) {
+        Map<Integer, Integer> result = new LinkedHashMap<>();
+        if (cartIds == null || cartIds.isEmpty()) {
+            return result;
+        }
+        ensureLoaded(userId);
+        List<Object> fields = new ArrayList<>();
+        for (Integer cartId : cartIds) {
+            fields.add("i:" + cartId);
+        }
+        List<Object> productIds = stringRedisTemplate.opsForHash().multiGet(hashKey(userId), fields);
+        for (int i = 0; i < cartIds.size(); i++) {
+            Object productId = productIds.get(i);
+            if (productId != null) {
+                result.put(cartIds.get(i), Integer.valueOf(productId.toString()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int setQuantities(Integer userId, Map<Integer, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            return 0;
+        }
+        ensureLoaded(userId);
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(hashTtlSeconds));
+        args.add(String.valueOf(userId));
+        for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+            args.add(String.valueOf(entry.getKey()));
+            args.add(String.valueOf(entry.getValue()));
+        }
+        Long updated = stringRedisTemplate.execute(SET_QUANTITIES_SCRIPT, changeKeys(userId), args.toArray());
+        return updated == null ? 0 : updated.intValue();
+    }
+
+    @Override
+    public void flushUser(Integer userId) {
+        // 定时任务可能已弹出该用户但尚未写完，不能以SREM是否成功判断是否需要写入：
+        // 等待写入锁后按当前哈希写入，与数据库一致时只有一次查询
+        String token = acquireFlushLock(userId, flushWaitMs);
+        if (token == null) {
+            log.warn("等待购物车写入锁超时，直接写入，userId={}", userId);
+        }
+        try {
+            stringRedisTemplate.opsForSet().remove(DIRTY_KEY, String.valueOf(userId));
+            persistSafely(userId);
+        } finally {
+            releaseFlushLock(userId, token);
+        }
+    }
+
+    /**
+     * 定时把有变更的购物车写入数据库，同一用户在一个周期内的多次变更只写一次
+     */
+    @Scheduled(fixedDelayString = "${cart.flush-interval-ms:1000}")
+    public void flushDirtyCarts() {
+        List<String> userIds;
+        try {
+            userIds = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, flushBatchSize);
+        } catch (Exception e) {
+            log.error("获取待写入的购物车失败", e);
+            return;
+        }
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        for (String userId : userIds) {
+            Integer id = Integer.valueOf(userId);
+            String token = acquireFlushLock(id, 0);
+            if (token == null) {
+                // 正在由flushUser写入，放回集合下一周期再写
+                stringRedisTemplate.opsForSet().add(DIRTY_KEY, userId);
+                continue;
+            }
+            try {
+                persistSafely(id);
+            } finally {
+                releaseFlushLock(id, token);
+            }
+        }
+    }
+
+    /**
+     * 获取用户的写入锁
+     * @param waitMs 最长等待时间（毫秒），0表示不等待
+     * @return 锁标识，未获取到返回null
+     */
+    private String acquireFlushLock(Integer userId, long waitMs) {
+        String key = FLUSH_LOCK_PREFIX + userId;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + waitMs;
+        while (true) {
+            try {
+                if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                        .setIfAbsent(key, token, flushLockMs, TimeUnit.MILLISECONDS))) {
+                    return token;
+                }
+            } catch (Exception e) {
+                log.error("获取购物车写入锁失败，userId=" + userId, e);
+                return null;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return null;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    private void releaseFlushLock(Integer userId, String token) {
+        if (token == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(FLUSH_LOCK_PREFIX + userId), token);
+        } catch (Exception e) {
+            log.error("释放购物车写入锁失败，userId=" + userId, e);
+        }
+    }
+
+    private void persistSafely(Integer userId) {
+        try {
+            persist(userId);
+        } catch (Exception e) {
+            log.error("购物车写入数据库失败，稍后重试，userId=" + userId, e);
+            try {
+                stringRedisTemplate.opsForSet().add(DIRTY_KEY, String.valueOf(userId));
+            } catch (Exception ex) {
+                log.error("购物车重新加入待写入集合失败，userId=" + userId, ex);
+            }
+        }
+    }
+
+    /**
+     * 把Redis中的购物车与数据库记录对比，只写入有差异的部分
+     */
+    private void persist(Integer userId) {
+        String key = hashKey(userId);
+        Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(key);
+        if (!entries.containsKey(LOADED_FIELD)) {
+            log.warn("购物车哈希已过期，无法写入数据库，userId={}", userId);
+            return;
+        }
+
+        // Redis中的购物车状态
+        Map<Integer, Cart> desired = new LinkedHashMap<>();
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = entry.getKey().toString();
+            if (field.startsWith("q:")) {
+                Integer productId = Integer.valueOf(field.substring(2));
+                Cart cart = new Cart();
+                cart.setUserId(userId);
+                cart.setProductId(productId);
+                cart.setQuantity(Integer.valueOf(entry.getValue().toString()));
+                Object selected = entries.get("s:" + productId);
+                cart.setSelected(selected == null ? 1 : Integer.valueOf(selected.toString()));
+                desired.put(productId, cart);
+            }
+        }
+
+        // 与数据库记录对比
+        Map<Integer, Cart> existing = new HashMap<>();
+        for (Cart row : cartDao.getCartRowsByUserId(userId)) {
+            existing.put(row.getProductId(), row);
+        }
+        List<Cart> upserts = new ArrayList<>();
+        for (Cart cart : desired.values()) {
+            Cart row = existing.get(cart.getProductId());
+            if (row == null || !row.getQuantity().equals(cart.getQuantity()) || !row.getSelected().equals(cart.getSelected())) {
+                upserts.add(cart);
+            }
+        }
+        List<Integer> deletes = new ArrayList<>();
+        for (Integer productId : existing.keySet()) {
+            if (!desired.containsKey(productId)) {
+                deletes.add(productId);
+            }
+        }
+        if (upserts.isEmpty() && deletes.isEmpty()) {
+            return;
+        }
+
+        List<Cart> rejected = new ArrayList<>();
+        transactionTemplate.execute(status -> {
+            if (!deletes.isEmpty()) {
+                cartDao.deleteCartByUserIdAndProductIds(userId, deletes);
+            }
+            if (!upserts.isEmpty()) {
+                try {
+                    cartDao.batchUpsertCart(userId, upserts);
+                } catch (DataIntegrityViolationException e) {
+                    // 商品已被删除（外键约束），逐条写入并丢弃失效的商品
+                    for (Cart cart : upserts) {
+                        try {
+                            cartDao.batchUpsertCart(userId, Collections.singletonList(cart));
+                        } catch (DataIntegrityViolationException ex) {
+                            rejected.add(cart);
+                        }
+                    }
+                }
+            }
+            return null;
+        });
+
+        for (Cart cart : rejected) {
+            log.warn("购物车商品已不存在，从购物车中移除，userId={}, productId={}", userId, cart.getProductId());
+            stringRedisTemplate.execute(DROP_SCRIPT, Collections.singletonList(key), String.valueOf(cart.getProductId()));
+        }
+
+        // 为新写入的商品回填购物车ID
+        boolean hasNew = false;
+        for (Cart cart : upserts) {
+            if (!existing.containsKey(cart.getProductId())) {
+                hasNew = true;
+                break;
+            }
+        }
+        if (hasNew) {
+            for (Cart row : cartDao.getCartRowsByUserId(userId)) {
+                if (!existing.containsKey(row.getProductId())) {
+                    stringRedisTemplate.execute(BIND_ID_SCRIPT, Collections.singletonList(key),
+                            String.valueOf(row.getProductId()), String.valueOf(row.getCartId()));
+                }
+            }
+        }
+
+        // 清除购物车列表缓存
+        redisService.delete(listCacheKey(userId));
+    }
+
+    /**
+     * 执行需要购物车已加载的脚本，未加载时先从数据库加载再重试一次
+     */
+    private long executeLoaded(Integer userId, DefaultRedisScript<Long> script, String... args) {
+        List<String> keys = changeKeys(userId);
+        Long result = stringRedisTemplate.execute(script, keys, (Object[]) args);
+        if (result != null && result == NOT_LOADED) {
+            loadFromDatabase(userId);
+            result = stringRedisTemplate.execute(script, keys, (Object[]) args);
+        }
+        if (result == null || result == NOT_LOADED) {
+            throw new IllegalStateException("购物车加载失败，userId=" + userId);
+        }
+        return result == NOT_FOUND ? 0 : result;
+    }
+
+    private void ensureLoaded(Integer userId) {
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForHash().hasKey(hashKey(userId), LOADED_FIELD))) {
+            loadFromDatabase(userId);
+        }
+    }
+
+    /**
+     * 从数据库重建用户购物车哈希
+     */
+    private void loadFromDatabase(Integer userId) {
+        List<Cart> rows = cartDao.getCartRowsByUserId(userId);
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(hashTtlSeconds));
+        args.add(LOADED_FIELD);
+        args.add("1");
+        args.add(COUNT_FIELD);
+        args.add(String.valueOf(rows.size()));
+        for (Cart row : rows) {
+            args.add("q:" + row.getProductId());
+            args.add(String.valueOf(row.getQuantity()));
+            args.add("s:" + row.getProductId());
+            args.add(String.valueOf(row.getSelected()));
+            args.add("c:" + row.getProductId());
+            args.add(String.valueOf(row.getCartId()));
+            args.add("i:" + row.getCartId());
+            args.add(String.valueOf(row.getProductId()));
+        }
+        stringRedisTemplate.execute(LOAD_SCRIPT, Collections.singletonList(hashKey(userId)), args.toArray());
+        log.debug("从数据库加载购物车到Redis，userId={}, 商品数={}", userId, rows.size());
+    }
+
+    private String hashKey(Integer userId) {
+        return HASH_KEY_PREFIX + userId;
+    }
+
+    private String listCacheKey(Integer userId) {
+        return "user:cart:" + userId;
+    }
+
+    /**
+     * 变更脚本使用的key：购物车哈希、待写入集合、购物车列表缓存
+     */
+    private List<String> changeKeys(Integer userId) {
+        return Arrays.asList(hashKey(userId), DIRTY_KEY, listCacheKey(userId));
+    }
+
+    private List<Integer> toIntegers(List<?> values) {
+        List<Integer> result = new ArrayList<>();
+        if (values != null) {
+            for (Object value : values) {
+                result.add(Integer.valueOf(value.toString()));
+            }
+        }
+        return result;
+    }
+}
@@ -3,21 +3,26 @@ package com.ordersystem.service.impl;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import com.ordersystem.dao.CartDao;
-import com.ordersystem.dao.ProductDao;
 import com.ordersystem.entity.Cart;
 import com.ordersystem.entity.Product;
+import com.ordersystem.service.CartHashService;
 import com.ordersystem.service.CartService;
+import com.ordersystem.service.ProductService;
 import com.ordersystem.service.RedisService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 购物车服务实现类
+ * 购物车的增删改由CartHashService在Redis中完成，读取列表前先把未落库的变更写入数据库
  */
 @Service
 public class CartServiceImpl implements CartService {
@@ -28,13 +33,16 @@ public class CartServiceImpl implements CartService {
     private CartDao cartDao;
 
     @Autowired
-    private ProductDao productDao;
+    private ProductService productService;
     @Autowired
     private RedisService redisService;
+    @Autowired
+    private CartHashService cartHashService;
 
     /**
      * 添加商品到购物车
      * 如果购物车中已存在该商品，则增加数量
+     * 只写入Redis哈希，由后台任务批量写入数据库
      *
      * @param userId    用户ID
      * @param productId 商品ID
@@ -42,11 +50,10 @@ public class CartServiceImpl implements CartService {
      * @return 是否成功
      */
     @Override
-    @Transactional
     public boolean addToCart(Integer userId, Integer productId, Integer quantity) {
         try {
             // 检查商品是否存在且上架
-            Product product = productDao.getProductById(productId);
+            Product product = productService.getProductById(productId);
             if (product == null) {
                 log.error("添加购物车失败：商品不存在，productId={}", productId);
                 return false;
@@ -60,27 +67,9 @@ public class CartServiceImpl implements CartService {
                 return false;
             }
 
-            // 检查购物车中是否已存在该商品
-            Cart existCart = cartDao.getCartByUserIdAndProductId(userId, productId);
-            if (existCart != null) {
-                // 已存在，增加数量
-                int newQuantity = existCart.getQuantity() + quantity;
-                // 确保不超过库存
-                if (newQuantity > product.getStock()) {
-                    newQuantity = product.getStock();
-                }
-                existCart.setQuantity(newQuantity);
-                existCart.setSelected(1); // 默认选中
-                return cartDao.updateCart(existCart) > 0;
-            } else {
-                // 不存在，新增
-                Cart cart = new Cart();
-                cart.setUserId(userId);
-                cart.setProductId(productId);
-                cart.setQuantity(quantity);
-                cart.setSelected(1); // 默认选中
-                return cartDao.addCart(cart) > 0;
-            }
+            // 累加数量（不超过库存）并默认选中
+            cartHashService.addItem(userId, productId, quantity, product.getStock());
+            return true;
         } catch (Exception e) {
             log.error("添加购物车异常", e);
             return false;
@@ -90,49 +79,39 @@ public class CartServiceImpl implements CartService {
     /**
      * 更新购物车商品数量
      *
+     * @param userId   用户ID
      * @param cartId   购物车ID
      * @param quantity 数量
      * @return 是否成功
      */
     @Override
-    public boolean updateCartQuantity(Integer cartId, Integer quantity) {
+    public boolean updateCartQuantity(Integer userId, Integer cartId, Integer quantity) {
         try {
             if (quantity <= 0) {
                 log.error("更新购物车数量失败：数量必须大于0，cartId={}, quantity={}", cartId, quantity);
                 return false;
             }
 
-            // 获取购物车项
-            Cart cart = cartDao.getCartById(cartId);
-            if (cart == null) {
+            // 获取购物车项对应的商品
+            Integer productId = cartHashService.getProductIdByCartId(userId, cartId);
+            if (productId == null) {
                 log.error("更新购物车数量失败：购物车项不存在，cartId={}", cartId);
                 return false;
             }
 
             // 检查商品库存
-            Product product = productDao.getProductById(cart.getProductId());
+            Product product = productService.getProductById(productId);
             if (product == null || product.getStatus() != 1) {
-                log.error("更新购物车数量失败：商品不存在或已下架，productId={}", cart.getProductId());
+                log.error("更新购物车数量失败：商品不存在或已下架，productId={}", productId);
                 return false;
             }
 
             // 确保不超过库存
             if (quantity > product.getStock()) {
-                quantity = product.getStock();
                 log.warn("购物车数量超过库存，已调整为最大库存，cartId={}, quantity={}, stock={}", cartId, quantity, product.getStock());
             }
 
-            boolean result = cartDao.updateCartQuantity(cartId, quantity) > 0;
-            if (result) {
-                // 更新Redis缓存
-                String key = "cart:" + cartId;
-                redisService.set(key, cart, 24 * 60 * 60); // 缓存24小时
-                
-                // 清除用户购物车列表缓存，以便重新加载
-                String userCartKey = "user:cart:" + cart.getUserId();
-                redisService.delete(userCartKey);
-            }
-            return result;
+            return cartHashService.setQuantity(userId, productId, quantity, product.getStock());
         } catch (Exception e) {
             log.error("更新购物车数量异常", e);
             return false;
@@ -142,12 +121,13 @@ public class CartServiceImpl implements CartService {
     /**
      * 更新购物车商品选中状态
      *
+     * @param userId   用户ID
      * @param cartId   购物车ID
      * @param selected 选中状态：0-未选中，1-已选中
      * @return 是否成功
      */
     @Override
-    public boolean updateCartSelected(Integer cartId, Integer selected) {
+    public boolean updateCartSelected(Integer userId, Integer cartId, Integer selected) {
         try {
             if (selected != 0 && selected != 1) {
                 log.error("更新购物车选中状态失败：状态值无效，cartId={}, selected={}", cartId, selected);
@@ -155,23 +135,13 @@ public class CartServiceImpl implements CartService {
             }
 
             // 检查购物车项是否存在
-            Cart cart = cartDao.getCartById(cartId);
-            if (cart == null) {
+            Integer productId = cartHashService.getProductIdByCartId(userId, cartId);
+            if (productId == null) {
                 log.error("更新购物车选中状态失败：购物车项不存在，cartId={}", cartId);
                 return false;
             }
 
-            boolean result = cartDao.updateCartSelected(cartId, selected) > 0;
-            if (result) {
-                // 更新Redis缓存
-                String key = "cart:" + cartId;
-                redisService.set(key, cart, 24 * 60 * 60); // 缓存24小时
-                
-                // 清除用户购物车列表缓存，以便重新加载
-                String userCartKey = "user:cart:" + cart.getUserId();
-                redisService.delete(userCartKey);
-            }
-            return result;
+            return cartHashService.setSelected(userId, productId, selected);
         } catch (Exception e) {
             log.error("更新购物车选中状态异常", e);
             return false;
@@ -181,30 +151,41 @@ public class CartServiceImpl implements CartService {
     /**
      * 删除购物车商品
      *
+     * @param userId 用户ID
      * @param cartId 购物车ID
      * @return 是否成功
      */
     @Override
-    public boolean deleteCart(Integer cartId) {
+    public boolean deleteCart(Integer userId, Integer cartId) {
         try {
-            Cart cart = cartDao.getCartById(cartId);
-            boolean result = cartDao.deleteCart(cartId) > 0;
-            if (result && cart != null) {
-                // 从Redis缓存中删除
-                String key = "cart:" + cartId;
-                redisService.delete(key);
-                
-                // 清除用户购物车列表缓存，以便重新加载
-                String userCartKey = "user:cart:" + cart.getUserId();
-                redisService.delete(userCartKey);
+            Integer productId = cartHashService.getProductIdByCartId(userId, cartId);
+            if (productId == null) {
+                return false;
             }
-            return result;
+            return cartHashService.removeItem(userId, productId);
         } catch (Exception e) {
             log.error("删除购物车异常", e);
             return false;
         }
     }
 
+    /**
+     * 判断购物车项是否属于用户
+     *
+     * @param userId 用户ID
+     * @param cartId 购物车ID
+     * @return 是否属于该用户
+     */
+    @Override
+    public boolean isUserCart(Integer userId, Integer cartId) {
+        try {
+            return cartHashService.getProductIdByCartId(userId, cartId) != null;
+        } catch (Exception e) {
+            log.error("校验购物车归属异常", e);
+            return false;
+        }
+    }
+
     /**
      * 清空用户购物车
      *
@@ -214,20 +195,8 @@ public class CartServiceImpl implements CartService {
     @Override
     public boolean clearCart(Integer userId) {
         try {
-            boolean result = cartDao.clearCart(userId) >= 0; // 即使没有记录被删除也视为成功
-            if (result) {
-                // 清除用户购物车列表缓存
-                String userCartKey = "user:cart:" + userId;
-                redisService.delete(userCartKey);
-                
-                // 获取用户所有购物车项并删除缓存
-                List<Cart> userCarts = cartDao.getCartListByUserId(userId);
-                for (Cart cart : userCarts) {
-                    String key = "cart:" + cart.getCartId();
-                    redisService.delete(key);
-                }
-            }
-            return result;
+            cartHashService.clear(userId);
+            return true;
         } catch (Exception e) {
             log.error("清空购物车异常", e);
             return false;
@@ -251,8 +220,10 @@ public class CartServiceImpl implements CartService {
                 return carts;
             }
             
-            // 缓存中没有，从数据库获取
+            // 缓存中没有，先写入未落库的变更，再从数据库获取
+            cartHashService.flushUser(userId);
             carts = cartDao.getCartListByUserId(userId);
+            fillProductImageUrl(carts);
             if (carts != null && !carts.isEmpty()) {
                 // 放入缓存
                 redisService.set(userCartKey, carts, 24 * 60 * 60); // 缓存24小时
@@ -281,8 +252,10 @@ public class CartServiceImpl implements CartService {
     @Override
     public PageInfo<Cart> getCartListWithPage(Integer userId, Integer pageNum, Integer pageSize) {
         try {
+            cartHashService.flushUser(userId);
             PageHelper.startPage(pageNum, pageSize);
             List<Cart> cartList = cartDao.getCartListByUserId(userId);
+            fillProductImageUrl(cartList);
             return new PageInfo<>(cartList);
         } catch (Exception e) {
             log.error("获取分页购物车列表异常", e);
@@ -299,7 +272,10 @@ public class CartServiceImpl implements CartService {
     @Override
     public List<Cart> getSelectedCartList(Integer userId) {
         try {
-            return cartDao.getSelectedCartListByUserId(userId);
+            cartHashService.flushUser(userId);
+            List<Cart> cartList = cartDao.getSelectedCartListByUserId(userId);
+            fillProductImageUrl(cartList);
+            return cartList;
         } catch (Exception e) {
             log.error("获取已选中的购物车列表异常", e);
             return null;
@@ -321,7 +297,8 @@ public class CartServiceImpl implements CartService {
                 return false;
             }
 
-            return cartDao.updateCartSelectedByUserId(userId, selected) >= 0; // 即使没有记录被更新也视为成功
+            cartHashService.setAllSelected(userId, selected);
+            return true;
         } catch (Exception e) {
             log.error("全选/取消全选购物车异常", e);
             return false;
@@ -337,7 +314,7 @@ public class CartServiceImpl implements CartService {
     @Override
     public int getCartCount(Integer userId) {
         try {
-            return cartDao.countCartByUserId(userId);
+            return cartHashService.countItems(userId);
         } catch (Exception e) {
             log.error("获取购物车商品数量异常", e);
             return 0;
@@ -354,11 +331,99 @@ public class CartServiceImpl implements CartService {
     @Override
     public boolean isProductInCart(Integer userId, Integer productId) {
         try {
-            Cart cart = cartDao.getCartByUserIdAndProductId(userId, productId);
-            return cart != null;
+            return cartHashService.containsProduct(userId, productId);
         } catch (Exception e) {
             log.error("检查商品是否在购物车中异常", e);
             return false;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 删除所有已选中的购物车商品
+     * 在Redis哈希中一次完成删除，数据库由后台任务一条DELETE语句同步
+     *
+     * @param userId 用户ID
+     * @return 删除的商品数
+     */
+    @Override
+    public int deleteSelectedCart(Integer userId) {
+        return cartHashService.removeSelected(userId).size();
+    }
+
+    /**
+     * 根据购物车ID批量删除购物车商品
+     *
+     * @param userId  用户ID
+     * @param cartIds 购物车ID列表
+     * @return 删除的商品数
+     */
+    @Override
+    public int deleteCartsByIds(Integer userId, List<Integer> cartIds) {
+        return cartHashService.removeByCartIds(userId, cartIds).size();
+    }
+
+    /**
+     * 批量更新购物车商品数量
+     * 商品信息一次批量查询，数量不合法、商品下架或不属于该用户的项忽略
+     *
+     * @param userId 用户ID
+     * @param items  购物车项列表（cartId、quantity）
+     * @return 更新的商品数
+     */
+    @Override
+    public int updateCartQuantities(Integer userId, List<Cart> items) {
+        if (items == null || items.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, Integer> requested = new LinkedHashMap<>();
+        for (Cart item : items) {
+            if (item.getCartId() != null && item.getQuantity() != null && item.getQuantity() > 0) {
+                requested.put(item.getCartId(), item.getQuantity());
+            }
+        }
+        Map<Integer, Integer> productIds = cartHashService.getProductIdsByCartIds(userId, new ArrayList<>(requested.keySet()));
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+
+        Map<Integer, Product> products = new HashMap<>();
+        for (Product product : productService.getProductsByIds(new ArrayList<>(productIds.values()))) {
+            products.put(product.getProductId(), product);
+        }
+
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : productIds.entrySet()) {
+            Product product = products.get(entry.getValue());
+            if (product == null || product.getStatus() != 1) {
+                log.warn("批量更新购物车数量：商品不存在或已下架，cartId={}, productId={}", entry.getKey(), entry.getValue());
+                continue;
+            }
+            int quantity = requested.get(entry.getKey());
+            if (quantity > product.getStock()) {
+                log.warn("购物车数量超过库存，已调整为最大库存，cartId={}, quantity={}, stock={}", entry.getKey(), quantity, product.getStock());
+                quantity = product.getStock();
+            }
+            if (quantity > 0) {
+                quantities.put(entry.getValue(), quantity);
+            }
+        }
+        return cartHashService.setQuantities(userId, quantities);
+    }
+
+    /**
+     * 根据图片版本号生成商品图片地址
+     * 购物车查询不加载图片二进制数据，前端通过图片接口按需加载，版本号变化时浏览器重新获取
+     *
+     * @param carts 购物车列表
+     */
+    private void fillProductImageUrl(List<Cart> carts) {
+        if (carts == null) {
+            return;
+        }
+        for (Cart cart : carts) {
+            if (cart.getProductImageVersion() != null) {
+                cart.setProductImageUrl("/api/products/" + cart.getProductId() + "/image?v=" + cart.getProductImageVersion());
+            }
+        }
+    }
+}
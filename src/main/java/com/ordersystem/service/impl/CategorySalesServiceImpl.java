@@ -0,0 +1,183 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.dao.CategorySalesDao;
+import com.ordersystem.entity.OrderItem;
+import com.ordersystem.entity.Product;
+import com.ordersystem.service.CategorySalesService;
+import com.ordersystem.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品类别销售统计服务实现类
+ * 统计数据保存在product_category_sales表中，每个类别一行，
+ * 随订单所在事务一起更新；启动时若统计表为空则根据历史订单重建一次
+ */
+@Service
+public class CategorySalesServiceImpl implements CategorySalesService, CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategorySalesServiceImpl.class);
+
+    private static final String CACHE_KEY = "productCategoryDistribution";
+
+    @Autowired
+    private CategorySalesDao categorySalesDao;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 项目启动时检查统计表，为空则根据历史订单重建
+     */
+    @Override
+    public void run(String... args) throws Exception {
+        try {
+            if (categorySalesDao.countCategories() == 0) {
+                logger.info("商品类别销售统计为空，开始根据历史订单重建...");
+                int count = rebuild();
+                logger.info("商品类别销售统计重建完成，共{}个类别", count);
+            }
+        } catch (Exception e) {
+            logger.error("初始化商品类别销售统计失败", e);
+        }
+    }
+
+    @Override
+    public void addSales(List<OrderItem> items) {
+        applySales(items, 1);
+    }
+
+    @Override
+    public void subtractSales(List<OrderItem> items) {
+        applySales(items, -1);
+    }
+
+    /**
+     * 按类别合并订单明细后再更新统计表，每个类别只更新一次
+     * @param items 订单明细列表
+     * @param sign 1-累加，-1-扣减
+     */
+    private void applySales(List<OrderItem> items, int sign) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        Map<Integer, int[]> counts = new HashMap<>();
+        Map<Integer, BigDecimal> amounts = new HashMap<>();
+        for (OrderItem item : items) {
+            if (item.getProductId() == null || item.getQuantity() == null) {
+                continue;
+            }
+            Integer category = resolveCategory(item);
+            int[] c = counts.computeIfAbsent(category, k -> new int[2]);
+            c[0] += 1;
+            c[1] += item.getQuantity();
+            BigDecimal total = item.getTotalPrice();
+            if (total == null && item.getProductPrice() != null) {
+                total = item.getProductPrice().multiply(new BigDecimal(item.getQuantity()));
+            }
+            if (total != null) {
+                amounts.merge(category, total, BigDecimal::add);
+            }
+        }
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            Integer category = entry.getKey();
+            BigDecimal amount = amounts.getOrDefault(category, BigDecimal.ZERO);
+            categorySalesDao.incrementSales(category,
+                    sign * entry.getValue()[0],
+                    sign * entry.getValue()[1],
+                    sign > 0 ? amount : amount.negate());
+        }
+        evictCache();
+    }
+
+    /**
+     * 获取订单明细对应商品的类别，商品不存在或未分类时归为0（其他）
+     */
+    private Integer resolveCategory(OrderItem item) {
+        Product product = item.getProduct();
+        if (product == null || product.getCategory() == null) {
+            product = productService.getProductById(item.getProductId());
+        }
+        if (product == null || product.getCategory() == null) {
+            return 0;
+        }
+        return product.getCategory();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> getCategorySalesDistribution() {
+        try {
+            // 尝试从Redis缓存获取
+            Object cachedData = redisTemplate.opsForValue().get(CACHE_KEY);
+            if (cachedData != null) {
+                return (List<Map<String, Object>>) cachedData;
+            }
+        } catch (Exception e) {
+            logger.error("从Redis获取商品类别销售分布失败", e);
+            // 继续从数据库获取
+        }
+
+        // 统计表每个类别只有一行，直接读取
+        List<Map<String, Object>> result = categorySalesDao.getCategorySalesDistribution();
+
+        try {
+            // 缓存结果，设置1小时过期，统计变化时会主动清除
+            redisTemplate.opsForValue().set(CACHE_KEY, result, 1, java.util.concurrent.TimeUnit.HOURS);
+        } catch (Exception e) {
+            logger.error("缓存商品类别销售分布失败", e);
+            // 缓存失败不影响业务
+        }
+
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public int rebuild() {
+        categorySalesDao.deleteAll();
+        categorySalesDao.rebuildFromOrderItems();
+        evictCache();
+        return categorySalesDao.countCategories();
+    }
+
+    /**
+     * 清除分布缓存；处于事务中时在提交后再清除，避免并发读取把未提交前的旧数据重新写入缓存
+     */
+    private void evictCache() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvictCache();
+                }
+            });
+            return;
+        }
+        doEvictCache();
+    }
+
+    private void doEvictCache() {
+        try {
+            redisTemplate.delete(CACHE_KEY);
+        } catch (Exception e) {
+            logger.error("清除商品类别销售分布缓存失败", e);
+            // 缓存操作失败不影响业务操作
+        }
+    }
+}
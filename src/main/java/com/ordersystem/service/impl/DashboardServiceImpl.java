@@ -0,0 +1,134 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.service.DashboardService;
+import com.ordersystem.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 仪表盘服务实现类
+ * 各项统计在有界线程池中并发执行，整体共用一个截止时间，
+ * 超时或失败的部分不影响其他部分返回；只有完整结果才写入缓存。
+ * 超时的任务会被中断，统计查询本身另有语句超时（dashboardQueryTimeout），不会在数据库中继续执行
+ */
+@Service
+public class DashboardServiceImpl implements DashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardServiceImpl.class);
+
+    private static final String CACHE_KEY_PREFIX = "dashboard:";
+
+    /** 记录已写入的各天数缓存key，清除缓存时据此删除，不使用KEYS扫描 */
+    private static final String CACHE_KEYS_SET = "dashboard:cache-keys";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    @Qualifier("dashboardExecutor")
+    private ThreadPoolTaskExecutor dashboardExecutor;
+
+    @Value("${dashboard.part-timeout-ms:3000}")
+    private long partTimeoutMs;
+
+    @Value("${dashboard.cache-seconds:60}")
+    private long cacheSeconds;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getDashboardData(Integer days) {
+        String cacheKey = CACHE_KEY_PREFIX + days;
+        try {
+            Object cached = redisTemplate.opsForValue().get(cacheKey);
+            if (cached instanceof Map) {
+                return (Map<String, Object>) cached;
+            }
+        } catch (Exception e) {
+            logger.error("从缓存获取仪表盘数据失败", e);
+        }
+
+        // 提交各项统计任务
+        Map<String, Future<?>> futures = new LinkedHashMap<>();
+        futures.put("totalOrders", submit(orderService::getOrderCount));
+        futures.put("recentOrders", submit(() -> orderService.getRecentOrdersCount(days)));
+        futures.put("orderStatusDistribution", submit(orderService::getOrderStatusDistribution));
+        futures.put("productCategoryDistribution", submit(orderService::getProductCategoryDistribution));
+        futures.put("paymentMethodDistribution", submit(orderService::getPaymentMethodDistribution));
+
+        // 所有部分共用一个截止时间，最慢的部分决定整体耗时上限
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(partTimeoutMs);
+        Map<String, Object> dashboardData = new HashMap<>();
+        List<String> missingParts = new ArrayList<>();
+        for (Map.Entry<String, Future<?>> entry : futures.entrySet()) {
+            String part = entry.getKey();
+            Future<?> future = entry.getValue();
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                dashboardData.put(part, future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                missingParts.add(part);
+                logger.warn("仪表盘数据[{}]查询超时（{}ms）", part, partTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                missingParts.add(part);
+            } catch (Exception e) {
+                missingParts.add(part);
+                logger.error("仪表盘数据[" + part + "]查询失败", e);
+            }
+        }
+
+        dashboardData.put("partial", !missingParts.isEmpty());
+        dashboardData.put("missingParts", missingParts);
+
+        if (missingParts.isEmpty()) {
+            try {
+                redisTemplate.opsForValue().set(cacheKey, dashboardData, cacheSeconds, TimeUnit.SECONDS);
+                redisTemplate.opsForSet().add(CACHE_KEYS_SET, cacheKey);
+                redisTemplate.expire(CACHE_KEYS_SET, cacheSeconds, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logger.error("缓存仪表盘数据失败", e);
+            }
+        }
+        return dashboardData;
+    }
+
+    @Override
+    public void evictDashboardCache() {
+        try {
+            Set<Object> members = redisTemplate.opsForSet().members(CACHE_KEYS_SET);
+            List<String> keys = new ArrayList<>();
+            keys.add(CACHE_KEYS_SET);
+            if (members != null) {
+                for (Object member : members) {
+                    keys.add(member.toString());
+                }
+            }
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            logger.error("清除仪表盘缓存失败", e);
+        }
+    }
+
+    /**
+     * 提交统计任务，返回的Future取消时会中断执行线程（CompletableFuture取消不会中断）
+     */
+    private <T> Future<T> submit(Callable<T> task) {
+        return dashboardExecutor.submit(task);
+    }
+}
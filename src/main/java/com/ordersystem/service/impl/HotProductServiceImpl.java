@@ -0,0 +1,233 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.entity.OrderItem;
+import com.ordersystem.entity.Product;
+import com.ordersystem.service.HotProductService;
+import com.ordersystem.service.ProductService;
+import com.ordersystem.util.TopKTracker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+
+/**
+ * 热销商品服务实现类
+ * 每个时间窗口各有一个内存中的Top-K统计，日、周窗口按指数衰减（时间常数分别为1天、7天），
+ * 全部窗口不衰减；定期衰减并把各窗口的候选保存到Redis，重启后据此恢复
+ */
+@Service
+public class HotProductServiceImpl implements HotProductService, CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotProductServiceImpl.class);
+
+    private static final String SNAPSHOT_KEY = "hot:products:snapshot";
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Value("${hot-products.top-k:50}")
+    private int topK;
+
+    @Value("${hot-products.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${hot-products.sketch-width:2048}")
+    private int sketchWidth;
+
+    /**
+     * 时间窗口 -> 衰减时间常数（毫秒），0表示不衰减
+     */
+    private final Map<String, Long> windowSpans = new LinkedHashMap<>();
+
+    private final Map<String, TopKTracker> trackers = new LinkedHashMap<>();
+
+    private volatile long lastDecayTime = System.currentTimeMillis();
+
+    @PostConstruct
+    public void init() {
+        windowSpans.put("day", DAY_MILLIS);
+        windowSpans.put("week", 7 * DAY_MILLIS);
+        windowSpans.put("all", 0L);
+        for (String window : windowSpans.keySet()) {
+            trackers.put(window, new TopKTracker(topK, sketchDepth, sketchWidth));
+        }
+    }
+
+    /**
+     * 项目启动时从Redis快照恢复热销统计
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run(String... args) throws Exception {
+        try {
+            Object cached = redisTemplate.opsForValue().get(SNAPSHOT_KEY);
+            if (!(cached instanceof Map)) {
+                return;
+            }
+            Map<String, Object> snapshot = (Map<String, Object>) cached;
+            long savedAt = ((Number) snapshot.get("savedAt")).longValue();
+            long elapsed = Math.max(0, System.currentTimeMillis() - savedAt);
+            int restored = 0;
+            for (Map.Entry<String, TopKTracker> entry : trackers.entrySet()) {
+                Object items = snapshot.get(entry.getKey());
+                if (!(items instanceof List)) {
+                    continue;
+                }
+                // 停机期间同样需要衰减
+                double factor = decayFactor(entry.getKey(), elapsed);
+                for (Object item : (List<Object>) items) {
+                    Map<String, Object> map = (Map<String, Object>) item;
+                    long productId = ((Number) map.get("productId")).longValue();
+                    double score = ((Number) map.get("score")).doubleValue() * factor;
+                    entry.getValue().add(productId, score);
+                    restored++;
+                }
+            }
+            logger.info("热销商品统计已从Redis快照恢复，共{}条记录", restored);
+        } catch (Exception e) {
+            logger.error("从Redis恢复热销商品统计失败", e);
+        }
+    }
+
+    @Override
+    public void recordSales(List<OrderItem> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        List<OrderItem> copy = new ArrayList<>(items);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 订单事务提交后再计入，回滚的订单不计入销量
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doRecordSales(copy);
+                }
+            });
+            return;
+        }
+        doRecordSales(copy);
+    }
+
+    private void doRecordSales(List<OrderItem> items) {
+        for (OrderItem item : items) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                continue;
+            }
+            for (TopKTracker tracker : trackers.values()) {
+                tracker.add(item.getProductId(), item.getQuantity());
+            }
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getHotProducts(String window, int limit) {
+        TopKTracker tracker = trackers.get(window);
+        if (tracker == null) {
+            throw new IllegalArgumentException("不支持的时间窗口: " + window);
+        }
+        List<Map.Entry<Long, Double>> ranking = tracker.top(topK);
+        List<Map<String, Object>> result = new ArrayList<>();
+        if (ranking.isEmpty() || limit <= 0) {
+            return result;
+        }
+        // 一次查询取出排行中的全部商品，再按排行顺序组装
+        List<Integer> productIds = new ArrayList<>(ranking.size());
+        for (Map.Entry<Long, Double> entry : ranking) {
+            productIds.add(entry.getKey().intValue());
+        }
+        Map<Integer, Product> products = new HashMap<>();
+        for (Product product : productService.getProductsByIds(productIds)) {
+            products.put(product.getProductId(), product);
+        }
+        for (Map.Entry<Long, Double> entry : ranking) {
+            if (result.size() >= limit) {
+                break;
+            }
+            Product product = products.get(entry.getKey().intValue());
+            // 跳过已删除或已下架的商品
+            if (product == null || product.getStatus() == null || product.getStatus() != 1) {
+                continue;
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("productId", product.getProductId());
+            map.put("productUuid", product.getProductUuid());
+            map.put("productName", product.getProductName());
+            map.put("price", product.getPrice());
+            map.put("category", product.getCategory());
+            map.put("stock", product.getStock());
+            map.put("score", Math.round(entry.getValue() * 100) / 100.0);
+            result.add(map);
+        }
+        return result;
+    }
+
+    /**
+     * 定期衰减并保存快照
+     */
+    @Scheduled(fixedRateString = "${hot-products.snapshot-interval-ms:300000}",
+            initialDelayString = "${hot-products.snapshot-interval-ms:300000}")
+    public void decayAndSnapshot() {
+        long now = System.currentTimeMillis();
+        long elapsed = now - lastDecayTime;
+        lastDecayTime = now;
+        for (Map.Entry<String, TopKTracker> entry : trackers.entrySet()) {
+            double factor = decayFactor(entry.getKey(), elapsed);
+            if (factor < 1.0) {
+                entry.getValue().decay(factor);
+            }
+        }
+        saveSnapshot();
+    }
+
+    @Override
+    public void saveSnapshot() {
+        try {
+            Map<String, Object> snapshot = new HashMap<>();
+            snapshot.put("savedAt", System.currentTimeMillis());
+            for (Map.Entry<String, TopKTracker> entry : trackers.entrySet()) {
+                List<Map<String, Object>> items = new ArrayList<>();
+                for (Map.Entry<Long, Double> item : entry.getValue().top(topK)) {
+                    Map<String, Object> map = new HashMap<>();
+                    map.put("productId", item.getKey());
+                    map.put("score", item.getValue());
+                    items.add(map);
+                }
+                snapshot.put(entry.getKey(), items);
+            }
+            redisTemplate.opsForValue().set(SNAPSHOT_KEY, snapshot);
+        } catch (Exception e) {
+            logger.error("保存热销商品统计快照失败", e);
+        }
+    }
+
+    /**
+     * 应用关闭前保存一次快照
+     */
+    @PreDestroy
+    public void destroy() {
+        saveSnapshot();
+    }
+
+    private double decayFactor(String window, long elapsedMillis) {
+        long span = windowSpans.getOrDefault(window, 0L);
+        if (span <= 0 || elapsedMillis <= 0) {
+            return 1.0;
+        }
+        return Math.exp(-(double) elapsedMillis / span);
+    }
+}
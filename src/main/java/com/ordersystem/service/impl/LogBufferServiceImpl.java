@@ -0,0 +1,402 @@
+package com.ordersystem.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordersystem.dao.SysLogDao;
+import com.ordersystem.entity.SysLog;
+import com.ordersystem.service.LogBufferService;
+import com.ordersystem.service.LogStreamService;
+import com.ordersystem.util.RingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 操作日志缓冲服务实现类
+ * 请求线程只做一次无锁入队；后台刷写线程凑满batch-size条或最早一条等待超过max-latency-ms时批量写出。
+ * sink为stream时批量追加到Redis日志流，由各节点消费写库；为database或日志流不可用时直接写入数据库。
+ * 队列满时按overflow-policy处理：drop直接丢弃并计数，spill放入转存队列，由转存线程追加写入磁盘文件，
+ * 队列空闲时再回放入库；请求线程不写文件，转存队列也满时丢弃并计数
+ */
+@Service
+public class LogBufferServiceImpl implements LogBufferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogBufferServiceImpl.class);
+
+    private static final String SPILL_FILE = "sys-log-spill.ndjson";
+    private static final String REPLAY_SUFFIX = ".replay";
+
+    @Autowired
+    private SysLogDao sysLogDao;
+
+    @Autowired
+    private LogStreamService logStreamService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** 写出目标：stream（Redis日志流）或database（直接写库） */
+    @Value("${log-buffer.sink:stream}")
+    private String sink;
+
+    /** 队列容量 */
+    @Value("${log-buffer.capacity:65536}")
+    private int capacity;
+
+    /** 每批写入的最大条数 */
+    @Value("${log-buffer.batch-size:500}")
+    private int batchSize;
+
+    /** 日志在队列中的最大等待时间（毫秒），超过后不足一批也写入 */
+    @Value("${log-buffer.max-latency-ms:1000}")
+    private long maxLatencyMs;
+
+    /** 溢出策略：drop（丢弃）或spill（转存到磁盘） */
+    @Value("${log-buffer.overflow-policy:drop}")
+    private String overflowPolicy;
+
+    /** 转存队列容量，队列满且转存队列也满时丢弃 */
+    @Value("${log-buffer.spill-queue-capacity:8192}")
+    private int spillQueueCapacity;
+
+    /** 转存文件目录 */
+    @Value("${log-buffer.spill-dir:logs/spill}")
+    private String spillDir;
+
+    /** 回放转存文件的间隔（毫秒） */
+    @Value("${log-buffer.replay-interval-ms:30000}")
+    private long replayIntervalMs;
+
+    private RingBuffer<SysLog> buffer;
+    private RingBuffer<SysLog> spillQueue;
+    private Thread flusher;
+    private Thread spiller;
+    private volatile boolean running;
+
+    private final Object spillLock = new Object();
+    private BufferedWriter spillWriter;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long lastFlushTime;
+    private volatile long lastFlushMillis;
+
+    @PostConstruct
+    public void start() {
+        buffer = new RingBuffer<>(capacity);
+        running = true;
+        flusher = new Thread(this::runFlusher, "log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        if (isSpillPolicy()) {
+            spillQueue = new RingBuffer<>(spillQueueCapacity);
+            spiller = new Thread(this::runSpiller, "log-spiller");
+            spiller.setDaemon(true);
+            spiller.start();
+        }
+        logger.info("日志缓冲队列已启动，容量{}，批量{}条，最大延迟{}ms，溢出策略{}，写出目标{}",
+                buffer.capacity(), batchSize, maxLatencyMs, overflowPolicy, sink);
+    }
+
+    @Override
+    public boolean submit(SysLog sysLog) {
+        submitted.incrementAndGet();
+        if (buffer.offer(sysLog)) {
+            return true;
+        }
+        // 请求线程只入转存队列，写文件由转存线程完成
+        if (spillQueue == null || !spillQueue.offer(sysLog)) {
+            dropped.incrementAndGet();
+        }
+        return false;
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("depth", buffer.size());
+        metrics.put("spillDepth", spillQueue == null ? 0 : spillQueue.size());
+        metrics.put("capacity", buffer.capacity());
+        metrics.put("submitted", submitted.get());
+        metrics.put("flushed", flushed.get());
+        metrics.put("dropped", dropped.get());
+        metrics.put("spilled", spilled.get());
+        metrics.put("replayed", replayed.get());
+        metrics.put("failed", failed.get());
+        metrics.put("batches", batches.get());
+        metrics.put("lastFlushMillis", lastFlushMillis);
+        metrics.put("lastFlushTime", lastFlushTime > 0 ? new Date(lastFlushTime) : null);
+        metrics.put("overflowPolicy", overflowPolicy);
+        metrics.put("sink", sink);
+        return metrics;
+    }
+
+    /**
+     * 刷写线程主循环
+     */
+    private void runFlusher() {
+        List<SysLog> batch = new ArrayList<>(batchSize);
+        long batchStart = 0;
+        long lastReplay = System.currentTimeMillis();
+        while (running) {
+            try {
+                int drained = buffer.drainTo(batch, batchSize - batch.size());
+                long now = System.currentTimeMillis();
+                if (!batch.isEmpty() && batchStart == 0) {
+                    batchStart = now;
+                }
+                if (batch.size() >= batchSize || (!batch.isEmpty() && now - batchStart >= maxLatencyMs)) {
+                    flush(batch);
+                    batch.clear();
+                    batchStart = 0;
+                    continue;
+                }
+                if (isSpillPolicy() && now - lastReplay >= replayIntervalMs && buffer.size() < buffer.capacity() / 2) {
+                    replaySpillFiles();
+                    lastReplay = now;
+                }
+                if (drained == 0) {
+                    TimeUnit.MILLISECONDS.sleep(Math.min(10, maxLatencyMs));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("日志刷写线程异常", e);
+            }
+        }
+        // 停止前写入已取出的日志
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    /**
+     * 转存线程主循环：取出转存队列中的日志批量追加到转存文件
+     */
+    private void runSpiller() {
+        List<SysLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                if (spillQueue.drainTo(batch, batchSize) == 0) {
+                    TimeUnit.MILLISECONDS.sleep(10);
+                    continue;
+                }
+                spill(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("日志转存线程异常", e);
+            }
+        }
+    }
+
+    /**
+     * 批量写出到日志流或数据库，失败时按溢出策略转存或计入失败数
+     */
+    private void flush(List<SysLog> batch) {
+        long start = System.currentTimeMillis();
+        try {
+            if (!isStreamSink() || !appendToStream(batch)) {
+                sysLogDao.batchSave(batch);
+            }
+            flushed.addAndGet(batch.size());
+            batches.incrementAndGet();
+            lastFlushTime = System.currentTimeMillis();
+            lastFlushMillis = lastFlushTime - start;
+        } catch (Exception e) {
+            logger.error("批量写入日志失败，本批{}条", batch.size(), e);
+            if (isSpillPolicy()) {
+                spill(batch);
+            } else {
+                failed.addAndGet(batch.size());
+            }
+        }
+    }
+
+    /**
+     * 批量追加写入转存文件，只在转存线程、刷写线程（写库失败时）和关闭时调用，每批只刷盘一次
+     */
+    private void spill(List<SysLog> batch) {
+        try {
+            synchronized (spillLock) {
+                if (spillWriter == null) {
+                    Path dir = Paths.get(spillDir);
+                    Files.createDirectories(dir);
+                    spillWriter = Files.newBufferedWriter(dir.resolve(SPILL_FILE), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                for (SysLog sysLog : batch) {
+                    spillWriter.write(objectMapper.writeValueAsString(sysLog));
+                    spillWriter.newLine();
+                }
+                spillWriter.flush();
+            }
+            spilled.addAndGet(batch.size());
+        } catch (IOException e) {
+            dropped.addAndGet(batch.size());
+            logger.error("日志转存到磁盘失败，本批{}条已丢弃", batch.size(), e);
+        }
+    }
+
+    /**
+     * 回放转存文件：先把当前转存文件改名为回放文件，再逐批写入数据库，成功后删除
+     */
+    private void replaySpillFiles() {
+        Path dir = Paths.get(spillDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        synchronized (spillLock) {
+            Path spillFile = dir.resolve(SPILL_FILE);
+            if (Files.exists(spillFile)) {
+                try {
+                    closeSpillWriter();
+                    Files.move(spillFile, dir.resolve(SPILL_FILE + "." + System.currentTimeMillis() + REPLAY_SUFFIX));
+                } catch (IOException e) {
+                    logger.error("准备回放日志转存文件失败", e);
+                    return;
+                }
+            }
+        }
+        File[] files = dir.toFile().listFiles((d, name) -> name.endsWith(REPLAY_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!replayFile(file.toPath())) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 回放单个文件
+     * @return 是否全部写入成功
+     */
+    private boolean replayFile(Path file) {
+        List<SysLog> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                batch.add(objectMapper.readValue(line, SysLog.class));
+                if (batch.size() >= batchSize) {
+                    sysLogDao.batchSave(batch);
+                    count += batch.size();
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                sysLogDao.batchSave(batch);
+                count += batch.size();
+            }
+            Files.delete(file);
+            replayed.addAndGet(count);
+            logger.info("日志转存文件回放完成，{}条，文件{}", count, file.getFileName());
+            return true;
+        } catch (Exception e) {
+            // 已写入的部分会在下次回放时重复写入，日志允许少量重复
+            logger.error("回放日志转存文件失败，稍后重试，文件{}", file.getFileName(), e);
+            return false;
+        }
+    }
+
+    private void closeSpillWriter() throws IOException {
+        if (spillWriter != null) {
+            spillWriter.close();
+            spillWriter = null;
+        }
+    }
+
+    /**
+     * 追加到日志流
+     * @return 是否成功，失败时由调用方直接写库
+     */
+    private boolean appendToStream(List<SysLog> batch) {
+        try {
+            logStreamService.append(batch);
+            return true;
+        } catch (Exception e) {
+            logger.warn("追加日志流失败，本批{}条改为直接写库: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isStreamSink() {
+        return "stream".equalsIgnoreCase(sink);
+    }
+
+    private boolean isSpillPolicy() {
+        return "spill".equalsIgnoreCase(overflowPolicy);
+    }
+
+    /**
+     * 应用关闭前停止刷写线程和转存线程，并写出两个队列中剩余的日志
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (spiller != null) {
+            try {
+                spiller.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<SysLog> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+        while (spillQueue != null && spillQueue.drainTo(batch, batchSize) > 0) {
+            spill(batch);
+            batch.clear();
+        }
+        synchronized (spillLock) {
+            try {
+                closeSpillWriter();
+            } catch (IOException e) {
+                logger.error("关闭日志转存文件失败", e);
+            }
+        }
+        logger.info("日志缓冲队列已关闭，共写入{}条，丢弃{}条，转存{}条", flushed.get(), dropped.get(), spilled.get());
+    }
+}
@@ -0,0 +1,434 @@
+package com.ordersystem.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordersystem.dao.SysLogDao;
+import com.ordersystem.entity.SysLog;
+import com.ordersystem.service.LogStreamService;
+import com.ordersystem.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 操作日志流服务实现类
+ * 每条日志是流中的一条消息，字段data为日志JSON。消费者名为本节点ID，
+ * 写库成功后确认并删除消息；写库失败的消息留在待确认列表中，空闲超过claim-idle-ms后由任一节点认领重试
+ */
+@Service
+public class LogStreamServiceImpl implements LogStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStreamServiceImpl.class);
+
+    private static final String FIELD_DATA = "data";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private SysLogDao sysLogDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** 日志流的key */
+    @Value("${log-stream.key:system:log:stream}")
+    private String streamKey;
+
+    /** 消费组名称 */
+    @Value("${log-stream.group:log-writers}")
+    private String group;
+
+    /**
+     * 流的最大长度（近似裁剪），0表示不限制
+     * 消息写库确认后即被删除，流的长度就是积压量；裁剪按写入顺序删除最早的消息，
+     * 不区分是否已被消费或正在等待确认，被裁掉的日志不会写入数据库
+     */
+    @Value("${log-stream.max-length:0}")
+    private long maxLength;
+
+    /** 每次读取的最大条数 */
+    @Value("${log-stream.batch-size:1000}")
+    private int batchSize;
+
+    /** 每轮消费最多读取的批数 */
+    @Value("${log-stream.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    /** 待确认消息空闲多久后可被认领（毫秒） */
+    @Value("${log-stream.claim-idle-ms:60000}")
+    private long claimIdleMs;
+
+    /** 最大投递次数，超过后逐条写入，仍失败的丢弃 */
+    @Value("${log-stream.max-deliveries:5}")
+    private long maxDeliveries;
+
+    /** 本节点是否参与消费 */
+    @Value("${log-stream.consumer-enabled:true}")
+    private boolean consumerEnabled;
+
+    private byte[] rawKey;
+    private volatile boolean groupReady;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        rawKey = streamKey.getBytes(StandardCharsets.UTF_8);
+        if (maxLength > 0) {
+            logger.warn("日志流已启用长度上限{}，积压超过上限时最早的日志将被丢弃", maxLength);
+        }
+        try {
+            ensureGroup();
+        } catch (Exception e) {
+            logger.warn("创建日志流消费组失败，将在首次消费时重试: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void append(List<SysLog> logs) {
+        if (logs == null || logs.isEmpty()) {
+            return;
+        }
+        List<byte[]> payloads = new ArrayList<>(logs.size());
+        try {
+            for (SysLog sysLog : logs) {
+                payloads.add(objectMapper.writeValueAsBytes(sysLog));
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("日志序列化失败", e);
+        }
+        byte[] field = FIELD_DATA.getBytes(StandardCharsets.UTF_8);
+        XAddOptions options = maxLength > 0
+                ? XAddOptions.maxlen(maxLength).approximateTrimming(true)
+                : XAddOptions.none();
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[] payload : payloads) {
+                connection.streamCommands().xAdd(
+                        MapRecord.create(rawKey, Collections.singletonMap(field, payload)), options);
+            }
+            return null;
+        });
+        appended.addAndGet(logs.size());
+    }
+
+    /**
+     * 定时消费日志流
+     */
+    @Scheduled(fixedDelayString = "${log-stream.poll-interval-ms:1000}")
+    public void scheduledDrain() {
+        if (!consumerEnabled) {
+            return;
+        }
+        try {
+            drain();
+        } catch (Exception e) {
+            logger.error("消费日志流失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int drain() {
+        // 同一节点上的定时消费不重叠执行
+        if (!draining.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            ensureGroup();
+            int total = recoverPending();
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                int consumed = drainBatch(batchSize);
+                if (consumed < 0) {
+                    break;
+                }
+                total += consumed;
+                if (consumed < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                logger.debug("日志流消费完成，本轮处理{}条", total);
+            }
+            return total;
+        } catch (RuntimeException e) {
+            checkGroupMissing(e);
+            throw e;
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    @Override
+    public int drainBatch(int count) {
+        try {
+            ensureGroup();
+            Consumer consumer = Consumer.from(group, redisService.getNodeId());
+            List<MapRecord<String, Object, Object>> records = readGroup(consumer,
+                    StreamReadOptions.empty().count(count), StreamOffset.create(streamKey, ReadOffset.lastConsumed()));
+            if (records == null || records.isEmpty()) {
+                return 0;
+            }
+            List<RecordId> ids = new ArrayList<>(records.size());
+            List<String> payloads = new ArrayList<>(records.size());
+            for (MapRecord<String, Object, Object> record : records) {
+                ids.add(record.getId());
+                Object data = record.getValue().get(FIELD_DATA);
+                payloads.add(data != null ? data.toString() : null);
+            }
+            // 写库失败时消息留在待确认列表中，等待认领重试
+            return persist(ids, payloads, false) < 0 ? -1 : records.size();
+        } catch (RuntimeException e) {
+            checkGroupMissing(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 以消费组方式读取单个流（XREADGROUP）
+     * StreamOperations.read只有泛型可变参数形式，传入单个位置会产生unchecked警告，这里显式创建数组
+     */
+    private List<MapRecord<String, Object, Object>> readGroup(Consumer consumer, StreamReadOptions options,
+                                                              StreamOffset<String> offset) {
+        @SuppressWarnings("unchecked")
+        StreamOffset<String>[] offsets = (StreamOffset<String>[]) new StreamOffset<?>[] {offset};
+        return stringRedisTemplate.opsForStream().read(consumer, options, offsets);
+    }
+
+    /**
+     * 流或消费组被删除时，下次消费前重建
+     */
+    private void checkGroupMissing(RuntimeException e) {
+        if (e.getMessage() != null && e.getMessage().contains("NOGROUP")) {
+            groupReady = false;
+        }
+    }
+
+    @Override
+    public long getBacklog() {
+        Long size = stringRedisTemplate.opsForStream().size(streamKey);
+        return size != null ? size : 0;
+    }
+
+    /**
+     * 认领空闲超过claim-idle-ms的待确认消息并写入数据库
+     * 这些消息属于宕机或写库失败的消费者（包括本节点）
+     * @return 写入数据库的条数
+     */
+    private int recoverPending() {
+        PendingMessages pending = stringRedisTemplate.opsForStream()
+                .pending(streamKey, group, Range.unbounded(), batchSize);
+        if (pending == null || pending.isEmpty()) {
+            return 0;
+        }
+        List<RecordId> staleIds = new ArrayList<>();
+        boolean lastAttempt = false;
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().toMillis() >= claimIdleMs) {
+                staleIds.add(message.getId());
+                if (message.getTotalDeliveryCount() >= maxDeliveries) {
+                    lastAttempt = true;
+                }
+            }
+        }
+        if (staleIds.isEmpty()) {
+            return 0;
+        }
+        String consumerName = redisService.getNodeId();
+        // XCLAIM会再次检查空闲时间，多个节点同时认领时只有一个能成功
+        List<ByteRecord> records = stringRedisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                connection.streamCommands().xClaim(rawKey, group, consumerName,
+                        XClaimOptions.minIdleMs(claimIdleMs).ids(staleIds)));
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+        claimed.addAndGet(records.size());
+        List<RecordId> ids = new ArrayList<>(records.size());
+        List<String> payloads = new ArrayList<>(records.size());
+        for (ByteRecord record : records) {
+            ids.add(record.getId());
+            payloads.add(readData(record.getValue()));
+        }
+        logger.info("认领{}条超时未确认的日志", records.size());
+        return Math.max(persist(ids, payloads, lastAttempt), 0);
+    }
+
+    /**
+     * 解析并批量写入数据库，成功后确认并删除消息
+     * 无法解析的消息直接确认丢弃；lastAttempt为true时整批失败改为逐条写入，仍失败的丢弃
+     * @return 写入条数，写库失败返回-1（消息未确认）
+     */
+    private int persist(List<RecordId> ids, List<String> payloads, boolean lastAttempt) {
+        List<SysLog> logs = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            String payload = payloads.get(i);
+            try {
+                if (payload != null) {
+                    logs.add(objectMapper.readValue(payload, SysLog.class));
+                    continue;
+                }
+            } catch (Exception e) {
+                logger.warn("日志消息解析失败，已丢弃，ID: {}", ids.get(i));
+            }
+            discarded.incrementAndGet();
+        }
+        int saved = logs.size();
+        if (!logs.isEmpty()) {
+            try {
+                sysLogDao.batchSave(logs);
+            } catch (Exception e) {
+                failedBatches.incrementAndGet();
+                if (!lastAttempt) {
+                    logger.error("日志流批量写库失败，本批{}条，稍后重试: {}", logs.size(), e.getMessage());
+                    return -1;
+                }
+                saved = saveOneByOne(logs);
+            }
+        }
+        acknowledge(ids);
+        persisted.addAndGet(saved);
+        return saved;
+    }
+
+    private int saveOneByOne(List<SysLog> logs) {
+        int saved = 0;
+        for (SysLog sysLog : logs) {
+            try {
+                sysLogDao.save(sysLog);
+                saved++;
+            } catch (Exception e) {
+                discarded.incrementAndGet();
+                logger.error("日志多次写库失败，已丢弃: {}", e.getMessage());
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * 确认并删除消息
+     * 流只有一个消费组，确认后的消息不再需要，删除以控制内存占用
+     */
+    private void acknowledge(List<RecordId> ids) {
+        RecordId[] idArray = ids.toArray(new RecordId[0]);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.streamCommands().xAck(rawKey, group, idArray);
+            connection.streamCommands().xDel(rawKey, idArray);
+            return null;
+        });
+    }
+
+    private String readData(Map<byte[], byte[]> value) {
+        byte[] field = FIELD_DATA.getBytes(StandardCharsets.UTF_8);
+        for (Map.Entry<byte[], byte[]> entry : value.entrySet()) {
+            if (Arrays.equals(field, entry.getKey())) {
+                return new String(entry.getValue(), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 创建消费组（流不存在时一并创建），已存在时忽略
+     */
+    private void ensureGroup() {
+        if (groupReady) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) connection ->
+                    connection.streamCommands().xGroupCreate(rawKey, group, ReadOffset.from("0"), true));
+            logger.info("已创建日志流消费组，流{}，消费组{}", streamKey, group);
+        } catch (Exception e) {
+            if (!isBusyGroup(e)) {
+                throw e;
+            }
+        }
+        groupReady = true;
+    }
+
+    private boolean isBusyGroup(Throwable e) {
+        while (e != null) {
+            if (e.getMessage() != null && e.getMessage().contains("BUSYGROUP")) {
+                return true;
+            }
+            e = e.getCause();
+        }
+        return false;
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("key", streamKey);
+        metrics.put("group", group);
+        metrics.put("consumer", redisService.getNodeId());
+        metrics.put("consumerEnabled", consumerEnabled);
+        try {
+            metrics.put("length", stringRedisTemplate.opsForStream().size(streamKey));
+            metrics.put("pending", stringRedisTemplate.opsForStream().pending(streamKey, group).getTotalPendingMessages());
+        } catch (Exception e) {
+            logger.warn("获取日志流长度失败: {}", e.getMessage());
+        }
+        metrics.put("appended", appended.get());
+        metrics.put("persisted", persisted.get());
+        metrics.put("claimed", claimed.get());
+        metrics.put("discarded", discarded.get());
+        metrics.put("failedBatches", failedBatches.get());
+        return metrics;
+    }
+
+    /**
+     * 节点关闭时，若本节点没有待确认消息则从消费组中移除，避免消费者列表不断增长
+     * 有待确认消息时保留，由其他节点认领
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!groupReady) {
+            return;
+        }
+        try {
+            Consumer consumer = Consumer.from(group, redisService.getNodeId());
+            PendingMessages own = stringRedisTemplate.opsForStream().pending(streamKey, consumer, Range.unbounded(), 1);
+            if (own == null || own.isEmpty()) {
+                stringRedisTemplate.opsForStream().deleteConsumer(streamKey, consumer);
+            }
+        } catch (Exception e) {
+            logger.warn("移除日志流消费者失败: {}", e.getMessage());
+        }
+    }
+}
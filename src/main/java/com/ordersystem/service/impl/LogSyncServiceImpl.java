@@ -0,0 +1,427 @@
+package com.ordersystem.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordersystem.dao.SysLogDao;
+import com.ordersystem.entity.SysLog;
+import com.ordersystem.service.LogStreamService;
+import com.ordersystem.service.LogSyncService;
+import com.ordersystem.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 日志同步服务实现类
+ * 旧版本列表用Lua脚本把一段ID原子移到工作线程自己的处理中列表（与RPOPLPUSH相同的语义），多个线程同时弹出也不会重复，
+ * 写库完成后删除处理中列表；进程在写库途中退出时，处理中列表空闲超过processing-idle-ms后在启动或下次同步时放回原列表。
+ * 日志流用XREADGROUP按批读取。
+ * 每批写满时根据耗时调整批量：低于目标耗时一半时增大，超过目标耗时时缩小，范围在min-batch-size到max-batch-size之间。
+ * 旧版本日志写库失败时ID放回列表并记录失败次数，达到max-attempts后改为逐条写入，仍失败的丢弃
+ */
+@Service
+public class LogSyncServiceImpl implements LogSyncService, CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogSyncServiceImpl.class);
+
+    /** 旧版本日志内容的key前缀 */
+    private static final String LEGACY_LOG_KEY_PREFIX = "system:log:";
+
+    /** 旧版本日志ID列表的key */
+    private static final String LEGACY_LOG_IDS_KEY = "system:log:ids";
+
+    /** 旧版本日志写库失败次数：日志ID -> 次数 */
+    private static final String LEGACY_LOG_ATTEMPTS_KEY = "system:log:sync-attempts";
+
+    /** 旧版本日志处理中列表的key前缀，后接节点ID和工作线程序号 */
+    private static final String LEGACY_PROCESSING_KEY_PREFIX = "system:log:ids:processing:";
+
+    /** 所有处理中列表：列表key -> 弹出时间（毫秒） */
+    private static final String LEGACY_PROCESSING_SET_KEY = "system:log:ids:processing";
+
+    /**
+     * 把列表头部最多ARGV[1]个元素原子移到处理中列表并登记弹出时间
+     * KEYS[1]=ID列表，KEYS[2]=处理中列表，KEYS[3]=处理中列表登记，ARGV[2]=当前时间（毫秒）
+     */
+    private static final DefaultRedisScript<List<Object>> POP_CHUNK_SCRIPT = listScript(
+            "local ids = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1) "
+            + "if #ids > 0 then "
+            + "  redis.call('LTRIM', KEYS[1], #ids, -1) "
+            + "  redis.call('DEL', KEYS[2]) "
+            + "  redis.call('RPUSH', KEYS[2], unpack(ids)) "
+            + "  redis.call('ZADD', KEYS[3], ARGV[2], KEYS[2]) "
+            + "end "
+            + "return ids");
+
+    /**
+     * 处理完成，删除处理中列表
+     * KEYS[1]=处理中列表，KEYS[2]=处理中列表登记
+     */
+    private static final DefaultRedisScript<Long> RELEASE_CHUNK_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1]) "
+            + "return redis.call('ZREM', KEYS[2], KEYS[1])", Long.class);
+
+    /**
+     * 把处理中列表按原顺序放回ID列表头部
+     * KEYS[1]=ID列表，KEYS[2]=处理中列表，KEYS[3]=处理中列表登记
+     */
+    private static final DefaultRedisScript<Long> RETURN_CHUNK_SCRIPT = new DefaultRedisScript<>(
+            "local ids = redis.call('LRANGE', KEYS[2], 0, -1) "
+            + "for i = #ids, 1, -1 do redis.call('LPUSH', KEYS[1], ids[i]) end "
+            + "redis.call('DEL', KEYS[2]) "
+            + "redis.call('ZREM', KEYS[3], KEYS[2]) "
+            + "return #ids", Long.class);
+
+    /**
+     * 把弹出时间早于ARGV[1]的处理中列表放回ID列表头部（处理它们的进程已退出）
+     * KEYS[1]=ID列表，KEYS[2]=处理中列表登记；处理中列表的key从登记中读取，只适用于单机Redis
+     */
+    private static final DefaultRedisScript<Long> RECOVER_SCRIPT = new DefaultRedisScript<>(
+            "local keys = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1]) "
+            + "local restored = 0 "
+            + "for _, key in ipairs(keys) do "
+            + "  local ids = redis.call('LRANGE', key, 0, -1) "
+            + "  for i = #ids, 1, -1 do redis.call('LPUSH', KEYS[1], ids[i]) end "
+            + "  restored = restored + #ids "
+            + "  redis.call('DEL', key) "
+            + "  redis.call('ZREM', KEYS[2], key) "
+            + "end "
+            + "return restored", Long.class);
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private LogStreamService logStreamService;
+
+    @Autowired
+    private SysLogDao sysLogDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    @Qualifier("logSyncExecutor")
+    private ThreadPoolTaskExecutor logSyncExecutor;
+
+    /** 工作线程数 */
+    @Value("${log-sync.workers:4}")
+    private int workers;
+
+    /** 最小批量 */
+    @Value("${log-sync.min-batch-size:500}")
+    private int minBatchSize;
+
+    /** 最大批量 */
+    @Value("${log-sync.max-batch-size:1000}")
+    private int maxBatchSize;
+
+    /** 每次调整的步长 */
+    @Value("${log-sync.batch-size-step:100}")
+    private int batchSizeStep;
+
+    /** 每批目标耗时（毫秒） */
+    @Value("${log-sync.target-batch-ms:200}")
+    private long targetBatchMillis;
+
+    /** 单次同步最长运行时间（毫秒） */
+    @Value("${log-sync.max-run-ms:120000}")
+    private long maxRunMillis;
+
+    /** 旧版本日志批量写库的最大尝试次数，达到后逐条写入，仍失败的丢弃 */
+    @Value("${log-sync.max-attempts:5}")
+    private int maxAttempts;
+
+    /** 处理中列表空闲多久后视为处理它的进程已退出，放回ID列表（毫秒） */
+    @Value("${log-sync.processing-idle-ms:60000}")
+    private long processingIdleMs;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger currentBatchSize = new AtomicInteger();
+
+    /**
+     * 启动时放回上次进程退出时未处理完的旧版本日志ID
+     */
+    @Override
+    public void run(String... args) {
+        try {
+            recoverProcessing();
+        } catch (Exception e) {
+            logger.error("恢复旧版本日志处理中列表失败，下次同步时重试", e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> sync() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        if (!running.compareAndSet(false, true)) {
+            report.put("running", true);
+            report.put("processed", 0L);
+            report.put("backlog", getBacklog());
+            return report;
+        }
+        try {
+            currentBatchSize.compareAndSet(0, minBatchSize);
+            try {
+                recoverProcessing();
+            } catch (Exception e) {
+                logger.warn("恢复旧版本日志处理中列表失败: {}", e.getMessage());
+            }
+            SyncStats stats = new SyncStats();
+            long start = System.currentTimeMillis();
+            long deadline = start + maxRunMillis;
+            List<CompletableFuture<Void>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                String processingKey = LEGACY_PROCESSING_KEY_PREFIX + redisService.getNodeId() + ":" + i;
+                futures.add(CompletableFuture.runAsync(() -> runWorker(stats, deadline, processingKey), logSyncExecutor));
+            }
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                        .get(maxRunMillis + TimeUnit.SECONDS.toMillis(30), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (TimeoutException e) {
+                logger.warn("日志同步工作线程未在限定时间内结束");
+            } catch (Exception e) {
+                logger.error("日志同步工作线程异常", e);
+            }
+            long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+            long processed = stats.legacy.get() + stats.stream.get();
+            report.put("running", false);
+            report.put("processed", processed);
+            report.put("legacyProcessed", stats.legacy.get());
+            report.put("streamProcessed", stats.stream.get());
+            report.put("batches", stats.batches.get());
+            report.put("failedBatches", stats.failedBatches.get());
+            report.put("elapsedMs", elapsed);
+            report.put("rowsPerSecond", processed * 1000 / elapsed);
+            report.put("batchSize", currentBatchSize.get());
+            report.put("workers", workers);
+            report.put("backlog", getBacklog());
+            if (processed > 0) {
+                logger.info("日志同步完成，共{}条，耗时{}ms，{}条/秒，当前批量{}",
+                        processed, elapsed, processed * 1000 / elapsed, currentBatchSize.get());
+            }
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getBacklog() {
+        Map<String, Object> backlog = new LinkedHashMap<>();
+        try {
+            Long legacy = redisTemplate.opsForList().size(LEGACY_LOG_IDS_KEY);
+            backlog.put("legacy", legacy != null ? legacy : 0L);
+            backlog.put("stream", logStreamService.getBacklog());
+        } catch (Exception e) {
+            logger.warn("获取日志积压量失败: {}", e.getMessage());
+        }
+        return backlog;
+    }
+
+    /**
+     * 工作线程：先清空旧版本列表，再消费日志流，直到都没有积压、写库失败或到达截止时间
+     */
+    private void runWorker(SyncStats stats, long deadline, String processingKey) {
+        boolean legacyDone = false;
+        while (System.currentTimeMillis() < deadline) {
+            int size = currentBatchSize.get();
+            long start = System.currentTimeMillis();
+            int count;
+            try {
+                count = legacyDone ? logStreamService.drainBatch(size) : drainLegacyChunk(size, processingKey);
+            } catch (Exception e) {
+                logger.error("日志同步批次失败: {}", e.getMessage());
+                count = -1;
+            }
+            if (count < 0) {
+                stats.failedBatches.incrementAndGet();
+            }
+            if (count <= 0) {
+                if (legacyDone) {
+                    return;
+                }
+                legacyDone = true;
+                continue;
+            }
+            (legacyDone ? stats.stream : stats.legacy).addAndGet(count);
+            stats.batches.incrementAndGet();
+            if (count >= size) {
+                adjustBatchSize(size, System.currentTimeMillis() - start);
+            }
+        }
+    }
+
+    /**
+     * 根据写满一批的耗时调整批量
+     */
+    private void adjustBatchSize(int size, long millis) {
+        int next = size;
+        if (millis > targetBatchMillis) {
+            next = Math.max(minBatchSize, size * 3 / 4);
+        } else if (millis < targetBatchMillis / 2) {
+            next = Math.min(maxBatchSize, size + batchSizeStep);
+        }
+        if (next != size && currentBatchSize.compareAndSet(size, next)) {
+            logger.debug("日志同步批量调整为{}，上一批耗时{}ms", next, millis);
+        }
+    }
+
+    /**
+     * 把弹出后空闲超过processing-idle-ms的处理中列表放回ID列表
+     * @return 放回的ID数量
+     */
+    private long recoverProcessing() {
+        Long restored = redisTemplate.execute(RECOVER_SCRIPT,
+                Arrays.asList(LEGACY_LOG_IDS_KEY, LEGACY_PROCESSING_SET_KEY),
+                System.currentTimeMillis() - processingIdleMs);
+        if (restored != null && restored > 0) {
+            logger.warn("已放回{}条未处理完的旧版本日志ID", restored);
+        }
+        return restored != null ? restored : 0;
+    }
+
+    /**
+     * 从旧版本列表原子弹出一段ID到处理中列表并写入数据库，完成后删除处理中列表
+     * 写库失败时把ID放回列表头部并记录失败次数，日志内容保留；
+     * 本批中有日志已失败max-attempts - 1次时不再放回，改为逐条写入，仍失败的丢弃
+     * @param processingKey 本工作线程的处理中列表
+     * @return 处理条数，0表示列表已空，-1表示写库失败
+     */
+    private int drainLegacyChunk(int size, String processingKey) {
+        List<String> chunkKeys = Arrays.asList(LEGACY_LOG_IDS_KEY, processingKey, LEGACY_PROCESSING_SET_KEY);
+        List<Object> ids = redisTemplate.execute(POP_CHUNK_SCRIPT, chunkKeys, size, System.currentTimeMillis());
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(ids.size());
+        List<Object> attemptKeys = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            keys.add(LEGACY_LOG_KEY_PREFIX + id);
+            attemptKeys.add(String.valueOf(id));
+        }
+        List<Object> attempts = redisTemplate.opsForHash().multiGet(LEGACY_LOG_ATTEMPTS_KEY, attemptKeys);
+        int previousAttempts = maxAttempts(attempts);
+
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        List<SysLog> logs = new ArrayList<>(ids.size());
+        if (values != null) {
+            for (int i = 0; i < values.size(); i++) {
+                Object value = values.get(i);
+                if (value == null) {
+                    continue;
+                }
+                try {
+                    logs.add(objectMapper.readValue(value.toString(), SysLog.class));
+                } catch (Exception e) {
+                    logger.warn("旧版本日志解析失败，已丢弃，key: {}", keys.get(i));
+                }
+            }
+        }
+        if (!logs.isEmpty()) {
+            try {
+                sysLogDao.batchSave(logs);
+            } catch (Exception e) {
+                if (previousAttempts + 1 < maxAttempts) {
+                    logger.error("旧版本日志批量写库失败，本批{}条已放回列表: {}", logs.size(), e.getMessage());
+                    recordAttempts(attemptKeys, attempts);
+                    redisTemplate.execute(RETURN_CHUNK_SCRIPT, chunkKeys);
+                    return -1;
+                }
+                int saved = saveOneByOne(logs);
+                logger.error("旧版本日志批量写库已失败{}次，本批{}条改为逐条写入，成功{}条: {}",
+                        previousAttempts + 1, logs.size(), saved, e.getMessage());
+            }
+        }
+        redisTemplate.delete(keys);
+        if (previousAttempts > 0) {
+            redisTemplate.opsForHash().delete(LEGACY_LOG_ATTEMPTS_KEY, attemptKeys.toArray());
+        }
+        redisTemplate.execute(RELEASE_CHUNK_SCRIPT, Arrays.asList(processingKey, LEGACY_PROCESSING_SET_KEY));
+        return ids.size();
+    }
+
+    private int saveOneByOne(List<SysLog> logs) {
+        int saved = 0;
+        for (SysLog sysLog : logs) {
+            try {
+                sysLogDao.save(sysLog);
+                saved++;
+            } catch (Exception e) {
+                logger.error("旧版本日志多次写库失败，已丢弃: {}", e.getMessage());
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * 本批日志中最多的已失败次数
+     */
+    private int maxAttempts(List<Object> attempts) {
+        int max = 0;
+        if (attempts != null) {
+            for (Object attempt : attempts) {
+                if (attempt != null) {
+                    max = Math.max(max, Integer.parseInt(attempt.toString()));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 本批日志的失败次数各加一，ID已移到本线程的处理中列表，其他线程不会同时修改
+     */
+    private void recordAttempts(List<Object> attemptKeys, List<Object> attempts) {
+        Map<Object, Object> updated = new LinkedHashMap<>();
+        for (int i = 0; i < attemptKeys.size(); i++) {
+            Object attempt = attempts != null ? attempts.get(i) : null;
+            updated.put(attemptKeys.get(i), attempt != null ? Integer.parseInt(attempt.toString()) + 1 : 1);
+        }
+        redisTemplate.opsForHash().putAll(LEGACY_LOG_ATTEMPTS_KEY, updated);
+    }
+
+    /**
+     * 创建返回列表的脚本
+     */
+    @SuppressWarnings("unchecked")
+    private static DefaultRedisScript<List<Object>> listScript(String script) {
+        DefaultRedisScript<List<Object>> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptText(script);
+        redisScript.setResultType((Class<List<Object>>) (Class<?>) List.class);
+        return redisScript;
+    }
+
+    /**
+     * 单次同步的统计
+     */
+    private static class SyncStats {
+        private final AtomicLong legacy = new AtomicLong();
+        private final AtomicLong stream = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong failedBatches = new AtomicLong();
+    }
+}
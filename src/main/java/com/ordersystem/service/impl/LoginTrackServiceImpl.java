@@ -0,0 +1,87 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.dao.UserDao;
+import com.ordersystem.service.LoginTrackService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登录时间记录服务实现类
+ * 同一用户在一个周期内多次登录只保留最后一次，写入失败的记录放回内存等待下次写入
+ */
+@Service
+public class LoginTrackServiceImpl implements LoginTrackService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginTrackServiceImpl.class);
+
+    private final ConcurrentHashMap<Integer, Long> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private UserDao userDao;
+
+    @Value("${login-track.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void recordLogin(Integer userId) {
+        if (userId != null) {
+            pending.merge(userId, System.currentTimeMillis(), Math::max);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${login-track.flush-interval-ms:5000}")
+    public int flush() {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        // 取出当前记录，写入期间的新登录留在pending中等待下次写入
+        Map<Integer, Date> logins = new LinkedHashMap<>();
+        for (Integer userId : new ArrayList<>(pending.keySet())) {
+            Long time = pending.remove(userId);
+            if (time != null) {
+                logins.put(userId, new Date(time));
+            }
+        }
+
+        int written = 0;
+        List<Map.Entry<Integer, Date>> entries = new ArrayList<>(logins.entrySet());
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            Map<Integer, Date> batch = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Date> entry : entries.subList(from, Math.min(from + batchSize, entries.size()))) {
+                batch.put(entry.getKey(), entry.getValue());
+            }
+            try {
+                userDao.batchUpdateLoginTime(batch);
+                written += batch.size();
+            } catch (Exception e) {
+                logger.error("批量写入登录时间失败，{}个用户等待下次写入", batch.size(), e);
+                for (Map.Entry<Integer, Date> entry : batch.entrySet()) {
+                    pending.merge(entry.getKey(), entry.getValue().getTime(), Math::max);
+                }
+            }
+        }
+        logger.debug("登录时间写入完成，用户数={}", written);
+        return written;
+    }
+
+    /**
+     * 应用关闭前写入剩余的登录时间
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
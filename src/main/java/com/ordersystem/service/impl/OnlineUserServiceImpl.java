@@ -0,0 +1,118 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.dao.UserDao;
+import com.ordersystem.entity.User;
+import com.ordersystem.service.OnlineUserService;
+import com.ordersystem.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * 在线用户服务实现类
+ * 一页在线用户只需：一次ZREVRANGE、一次MGET读取Token、一次MGET读取用户缓存，
+ * 缓存未命中的用户用一条IN查询补齐
+ */
+@Service
+public class OnlineUserServiceImpl implements OnlineUserService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OnlineUserServiceImpl.class);
+
+    @Autowired
+    private RedisService redisService;
+
+    @Autowired
+    private UserDao userDao;
+
+    /** 会话最长保留时间，与Token有效期一致 */
+    @Value("${online.session-max-age-ms:86400000}")
+    private long sessionMaxAgeMs;
+
+    @Override
+    public Map<String, Object> getOnlineUsers(int pageNum, int pageSize, Integer currentUserId) {
+        Map<String, Object> result = new HashMap<>();
+        Map<Integer, Long> sessions = redisService.getOnlineSessions((long) (pageNum - 1) * pageSize, pageSize);
+        List<Integer> userIds = new ArrayList<>(sessions.keySet());
+
+        // 批量读取Token，Token已过期或被删除的会话从集合中移除
+        List<String> tokenKeys = new ArrayList<>();
+        List<String> userKeys = new ArrayList<>();
+        for (Integer userId : userIds) {
+            tokenKeys.add("token:" + userId);
+            userKeys.add("user:" + userId);
+        }
+        List<Object> tokens = redisService.multiGet(tokenKeys);
+        List<Integer> expired = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            if (tokens.get(i) == null) {
+                expired.add(userIds.get(i));
+            }
+        }
+        if (!expired.isEmpty()) {
+            redisService.removeSessions(expired);
+        }
+
+        // 批量读取用户信息，缓存未命中的一次从数据库查询
+        Map<Integer, User> users = new HashMap<>();
+        List<Object> cachedUsers = redisService.multiGet(userKeys);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            Integer userId = userIds.get(i);
+            if (expired.contains(userId)) {
+                continue;
+            }
+            Object cached = cachedUsers.get(i);
+            if (cached instanceof User) {
+                users.put(userId, (User) cached);
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (User user : userDao.getUsersByIds(missing)) {
+                users.put(user.getUserId(), user);
+            }
+        }
+
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Map.Entry<Integer, Long> session : sessions.entrySet()) {
+            User user = users.get(session.getKey());
+            if (user == null) {
+                continue;
+            }
+            Map<String, Object> userInfo = new HashMap<>();
+            userInfo.put("userId", user.getUserId());
+            userInfo.put("username", user.getUsername());
+            userInfo.put("realName", user.getRealName());
+            userInfo.put("lastActiveTime", new Date(session.getValue()));
+            userInfo.put("isCurrentUser", Objects.equals(user.getUserId(), currentUserId));
+            list.add(userInfo);
+        }
+
+        result.put("list", list);
+        result.put("total", redisService.countOnlineSessions());
+        result.put("pageNum", pageNum);
+        result.put("pageSize", pageSize);
+        return result;
+    }
+
+    /**
+     * 定时清理超过Token有效期仍未活跃的会话
+     */
+    @Scheduled(fixedDelayString = "${online.cleanup-interval-ms:600000}")
+    public void cleanExpiredSessions() {
+        try {
+            long removed = redisService.removeSessionsBefore(System.currentTimeMillis() - sessionMaxAgeMs);
+            if (removed > 0) {
+                logger.info("清理过期在线会话{}个", removed);
+            }
+        } catch (Exception e) {
+            logger.error("清理过期在线会话失败", e);
+        }
+    }
+}
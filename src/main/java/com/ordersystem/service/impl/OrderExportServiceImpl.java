@@ -0,0 +1,306 @@
+package com.ordersystem.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordersystem.dao.OrderDao;
+import com.ordersystem.service.OrderExportService;
+import com.ordersystem.service.OrderSearchIndexService;
+import com.ordersystem.util.UUIDGenerater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 订单导出服务实现类
+ * 通过MyBatis ResultHandler配合流式fetchSize逐行读取，每行立即写出，
+ * 后台任务写入本地临时文件，进度保存在内存中，过期任务定时清理
+ */
+@Service
+public class OrderExportServiceImpl implements OrderExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportServiceImpl.class);
+
+    private static final String[] COLUMNS = {
+            "orderId", "orderNo", "userId", "username", "totalAmount", "status", "paymentMethod",
+            "paymentTime", "shippingTime", "completeTime", "receiver", "receiverPhone", "address",
+            "remark", "createTime"
+    };
+
+    private static final String[] CSV_HEADERS = {
+            "订单ID", "订单编号", "用户ID", "用户名", "订单金额", "订单状态", "支付方式",
+            "支付时间", "发货时间", "完成时间", "收货人", "收货人电话", "收货地址",
+            "订单备注", "创建时间"
+    };
+
+    private static final String[] STATUS_NAMES = {"待付款", "已付款", "已发货", "已完成", "已取消"};
+
+    private static final String[] PAYMENT_METHOD_NAMES = {"其他", "支付宝", "微信支付", "银行卡"};
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** 普通数字（含负数），不需要防公式注入处理 */
+    private static final Pattern PLAIN_NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+    @Autowired
+    private OrderDao orderDao;
+
+    @Autowired
+    private OrderSearchIndexService orderSearchIndexService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("exportExecutor")
+    private ThreadPoolTaskExecutor exportExecutor;
+
+    @Value("${order-export.dir:${java.io.tmpdir}/order-exports}")
+    private String exportDir;
+
+    @Value("${order-export.retention-hours:24}")
+    private int retentionHours;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public long exportOrders(Map<String, Object> filters, String format, OutputStream out) throws IOException {
+        return doExport(orderSearchIndexService.prepareFilters(filters), format, out, new AtomicLong());
+    }
+
+    private long doExport(Map<String, Object> filters, String format, OutputStream out, AtomicLong progress) throws IOException {
+        boolean csv = "csv".equals(format);
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), 64 * 1024);
+        if (csv) {
+            // 写入BOM，便于Excel正确识别UTF-8编码
+            writer.write('\uFEFF');
+            writeCsvLine(writer, Arrays.asList(CSV_HEADERS));
+        }
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        try {
+            orderDao.exportOrdersByFilters(filters, context -> {
+                Map<String, Object> row = context.getResultObject();
+                try {
+                    if (csv) {
+                        List<String> values = new ArrayList<>(COLUMNS.length);
+                        for (String column : COLUMNS) {
+                            values.add(formatValue(column, row.get(column), dateFormat));
+                        }
+                        writeCsvLine(writer, values);
+                    } else {
+                        Map<String, Object> line = new LinkedHashMap<>();
+                        for (String column : COLUMNS) {
+                            Object value = row.get(column);
+                            line.put(column, value instanceof Date || value instanceof TemporalAccessor
+                                    ? formatValue(column, value, dateFormat) : value);
+                        }
+                        writer.write(objectMapper.writeValueAsString(line));
+                        writer.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                progress.incrementAndGet();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        gzip.finish();
+        return progress.get();
+    }
+
+    private String formatValue(String column, Object value, SimpleDateFormat dateFormat) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Date) {
+            return dateFormat.format((Date) value);
+        }
+        if (value instanceof TemporalAccessor) {
+            return DATE_TIME_FORMATTER.format((TemporalAccessor) value);
+        }
+        if ("status".equals(column) && value instanceof Number) {
+            int status = ((Number) value).intValue();
+            return status >= 0 && status < STATUS_NAMES.length ? STATUS_NAMES[status] : String.valueOf(status);
+        }
+        if ("paymentMethod".equals(column) && value instanceof Number) {
+            int method = ((Number) value).intValue();
+            return method >= 0 && method < PAYMENT_METHOD_NAMES.length ? PAYMENT_METHOD_NAMES[method] : String.valueOf(method);
+        }
+        return String.valueOf(value);
+    }
+
+    private void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = neutralizeFormula(values.get(i));
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * 防止CSV公式注入：以=、+、-、@、制表符或回车开头的值会被表格软件当作公式执行，
+     * 前面加单引号使其按文本显示；普通数字保持不变
+     */
+    static String neutralizeFormula(String value) {
+        if (value.isEmpty()) {
+            return value;
+        }
+        char first = value.charAt(0);
+        if ((first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r')
+                && !PLAIN_NUMBER.matcher(value).matches()) {
+            return "'" + value;
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> submitExportJob(Map<String, Object> filters, String format, Integer userId) {
+        ExportJob job = new ExportJob();
+        job.jobId = UUIDGenerater.generateUUID();
+        job.format = format;
+        job.userId = userId;
+        job.createTime = System.currentTimeMillis();
+        job.status = "PENDING";
+        jobs.put(job.jobId, job);
+
+        Map<String, Object> jobFilters = orderSearchIndexService.prepareFilters(filters);
+        try {
+            exportExecutor.execute(() -> runJob(job, jobFilters));
+        } catch (Exception e) {
+            jobs.remove(job.jobId);
+            throw new IllegalStateException("导出任务过多，请稍后再试", e);
+        }
+        return job.toMap();
+    }
+
+    private void runJob(ExportJob job, Map<String, Object> filters) {
+        job.status = "RUNNING";
+        File dir = new File(exportDir);
+        if (!dir.exists() && !dir.mkdirs()) {
+            job.fail("无法创建导出目录");
+            return;
+        }
+        File file = new File(dir, job.jobId + "." + job.format + ".gz");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+            job.total = orderDao.countOrdersByFilters(filters);
+            doExport(filters, job.format, out, job.processed);
+            job.file = file;
+            job.status = "DONE";
+            logger.info("订单导出任务完成，jobId={}，共导出{}条", job.jobId, job.processed.get());
+        } catch (Exception e) {
+            logger.error("订单导出任务失败，jobId=" + job.jobId, e);
+            job.fail(e.getMessage());
+            if (file.exists() && !file.delete()) {
+                logger.warn("删除失败的导出文件失败: {}", file.getAbsolutePath());
+            }
+        } finally {
+            job.finishTime = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public Map<String, Object> getExportJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        return job == null ? null : job.toMap();
+    }
+
+    @Override
+    public File getExportFile(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null || !"DONE".equals(job.status) || job.file == null || !job.file.exists()) {
+            return null;
+        }
+        return job.file;
+    }
+
+    @Override
+    public String getExportFileName(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        String time = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date(job == null ? System.currentTimeMillis() : job.createTime));
+        return "orders_" + time + "." + (job == null ? "csv" : job.format) + ".gz";
+    }
+
+    /**
+     * 定时清理过期的导出任务和文件
+     */
+    @Scheduled(fixedRate = 60 * 60 * 1000)
+    public void cleanExpiredJobs() {
+        long expireBefore = System.currentTimeMillis() - retentionHours * 60 * 60 * 1000L;
+        Iterator<ExportJob> iterator = jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ExportJob job = iterator.next();
+            if (job.finishTime > 0 && job.finishTime < expireBefore) {
+                if (job.file != null && job.file.exists() && !job.file.delete()) {
+                    logger.warn("删除过期导出文件失败: {}", job.file.getAbsolutePath());
+                }
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 导出任务状态
+     */
+    private static class ExportJob {
+        private String jobId;
+        private String format;
+        private Integer userId;
+        private long createTime;
+        private volatile long finishTime;
+        private volatile String status;
+        private volatile String message;
+        private volatile long total = -1;
+        private final AtomicLong processed = new AtomicLong();
+        private volatile File file;
+
+        private void fail(String message) {
+            this.status = "FAILED";
+            this.message = message;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("jobId", jobId);
+            map.put("format", format);
+            map.put("userId", userId);
+            map.put("status", status);
+            map.put("processed", processed.get());
+            map.put("total", total);
+            map.put("progress", total > 0 ? Math.min(100, processed.get() * 100 / total) : ("DONE".equals(status) ? 100 : 0));
+            map.put("createTime", createTime);
+            if (finishTime > 0) {
+                map.put("finishTime", finishTime);
+            }
+            if (message != null) {
+                map.put("message", message);
+            }
+            return map;
+        }
+    }
+}
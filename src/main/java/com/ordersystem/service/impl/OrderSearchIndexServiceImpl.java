@@ -0,0 +1,181 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.dao.OrderSearchGramDao;
+import com.ordersystem.entity.Order;
+import com.ordersystem.entity.OrderSearchGram;
+import com.ordersystem.service.OrderSearchIndexService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * 订单搜索索引服务实现类
+ * 订单号和收货人电话按3-gram建立索引，收货人姓名额外建立2-gram（中文姓名通常只有2~3个字）；
+ * 查询时关键词拆成同样的n-gram，要求全部命中后再用LIKE校验，排除不同位置拼出的误命中
+ */
+@Service
+public class OrderSearchIndexServiceImpl implements OrderSearchIndexService, CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSearchIndexServiceImpl.class);
+
+    private static final int GRAM_SIZE = 3;
+
+    /**
+     * 关键词最多使用的n-gram个数，取子集仍能保证结果正确（只是候选略多）
+     */
+    private static final int MAX_KEYWORD_GRAMS = 16;
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    @Autowired
+    private OrderSearchGramDao orderSearchGramDao;
+
+    /**
+     * 项目启动时检查索引，为空则重建
+     */
+    @Override
+    public void run(String... args) throws Exception {
+        try {
+            if (orderSearchGramDao.countIndexedOrders() == 0) {
+                logger.info("订单搜索索引为空，开始重建...");
+                int count = rebuild();
+                logger.info("订单搜索索引重建完成，共{}条订单", count);
+            }
+        } catch (Exception e) {
+            logger.error("初始化订单搜索索引失败", e);
+        }
+    }
+
+    @Override
+    public void indexOrder(Order order) {
+        if (order == null || order.getOrderId() == null) {
+            return;
+        }
+        orderSearchGramDao.deleteGramsByOrderId(order.getOrderId());
+        List<OrderSearchGram> grams = new ArrayList<>();
+        collectGrams(order, grams);
+        if (!grams.isEmpty()) {
+            orderSearchGramDao.batchInsertGrams(grams);
+        }
+    }
+
+    @Override
+    public void removeOrder(Integer orderId) {
+        if (orderId != null) {
+            orderSearchGramDao.deleteGramsByOrderId(orderId);
+        }
+    }
+
+    @Override
+    public Map<String, Object> prepareFilters(Map<String, Object> filters) {
+        if (filters == null) {
+            return null;
+        }
+        Map<String, Object> result = new HashMap<>(filters);
+        Object keyword = filters.get("keyword");
+        if (keyword == null) {
+            return result;
+        }
+        List<String> grams = keywordGrams(keyword.toString());
+        if (!grams.isEmpty()) {
+            result.put("keywordGrams", grams);
+            result.put("keywordGramCount", grams.size());
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional
+    public int rebuild() {
+        orderSearchGramDao.deleteAll();
+        int total = 0;
+        int lastId = 0;
+        while (true) {
+            List<Order> orders = orderSearchGramDao.getOrdersForIndex(lastId, REBUILD_BATCH_SIZE);
+            if (orders.isEmpty()) {
+                break;
+            }
+            List<OrderSearchGram> grams = new ArrayList<>();
+            for (Order order : orders) {
+                collectGrams(order, grams);
+                lastId = order.getOrderId();
+            }
+            if (!grams.isEmpty()) {
+                orderSearchGramDao.batchInsertGrams(grams);
+            }
+            total += orders.size();
+        }
+        return total;
+    }
+
+    /**
+     * 收集订单各字段的索引词（同一订单内去重）
+     */
+    private void collectGrams(Order order, List<OrderSearchGram> target) {
+        Set<String> grams = new LinkedHashSet<>();
+        addGrams(order.getOrderNo(), GRAM_SIZE, grams);
+        addGrams(order.getReceiverPhone(), GRAM_SIZE, grams);
+        addGrams(order.getReceiver(), GRAM_SIZE, grams);
+        addGrams(order.getReceiver(), 2, grams);
+        for (String gram : grams) {
+            target.add(new OrderSearchGram(gram, order.getOrderId()));
+        }
+    }
+
+    /**
+     * 拆分n-gram，长度不足n的值整体作为一个索引词（单字不建立索引）
+     */
+    private void addGrams(String value, int n, Set<String> grams) {
+        String text = normalize(value);
+        if (text.length() < 2) {
+            return;
+        }
+        if (text.length() <= n) {
+            grams.add(text);
+            return;
+        }
+        for (int i = 0; i + n <= text.length(); i++) {
+            grams.add(text.substring(i, i + n));
+        }
+    }
+
+    /**
+     * 拆分关键词，无法使用索引时返回空列表（调用方退回LIKE查询）
+     * 两个字符的关键词只有包含中文等非ASCII字符时才走2-gram索引（收货人姓名），
+     * 两位数字或字母片段区分度太低，直接扫描
+     */
+    private List<String> keywordGrams(String keyword) {
+        String text = normalize(keyword);
+        if (text.length() < 2) {
+            return Collections.emptyList();
+        }
+        if (text.length() == 2) {
+            boolean ascii = text.chars().allMatch(c -> c < 128);
+            return ascii ? Collections.<String>emptyList() : Collections.singletonList(text);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length() && grams.size() < MAX_KEYWORD_GRAMS; i++) {
+            grams.add(text.substring(i, i + GRAM_SIZE));
+        }
+        return new ArrayList<>(grams);
+    }
+
+    private String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+}
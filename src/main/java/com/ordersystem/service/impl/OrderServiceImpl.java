@@ -1,14 +1,22 @@
 package com.ordersystem.service.impl;
 
+import com.ordersystem.dao.CartDao;
 import com.ordersystem.dao.OrderDao;
 import com.ordersystem.dao.OrderItemDao;
 import com.ordersystem.dao.ProductDao;
 import com.ordersystem.dao.UserDao;
+import com.ordersystem.entity.Cart;
 import com.ordersystem.entity.Order;
 import com.ordersystem.entity.OrderItem;
+import com.ordersystem.entity.Product;
+import com.ordersystem.service.CartHashService;
+import com.ordersystem.service.CategorySalesService;
+import com.ordersystem.service.HotProductService;
+import com.ordersystem.service.OrderSearchIndexService;
 import com.ordersystem.service.OrderService;
 import com.ordersystem.service.ProductService;
 import com.ordersystem.service.RedisService;
+import com.ordersystem.util.RequestCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +24,8 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 
@@ -51,6 +61,21 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private CategorySalesService categorySalesService;
+    
+    @Autowired
+    private HotProductService hotProductService;
+    
+    @Autowired
+    private OrderSearchIndexService orderSearchIndexService;
+    
+    @Autowired
+    private CartDao cartDao;
+    
+    @Autowired
+    private CartHashService cartHashService;
+    
     /**
      * 项目启动时初始化订单数据到Redis缓存
      */
@@ -105,6 +130,10 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
         
         // 保存订单
         int result = orderDao.insertOrder(order);
+        if (result > 0) {
+            // 建立订单搜索索引
+            orderSearchIndexService.indexOrder(order);
+        }
         if (result > 0 && order.getOrderItems() != null && !order.getOrderItems().isEmpty()) {
             // 设置订单明细的订单ID
             for (OrderItem item : order.getOrderItems()) {
@@ -115,6 +144,10 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
             // 批量保存订单明细
             boolean success = orderItemDao.batchInsertOrderItems(order.getOrderItems()) > 0;
             if (success) {
+                // 累加商品类别销售统计
+                categorySalesService.addSales(order.getOrderItems());
+                // 计入热销商品统计
+                hotProductService.recordSales(order.getOrderItems());
                 try {
                     // 更新Redis缓存
                     String key = "order:" + order.getOrderId();
@@ -143,13 +176,126 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
         return result > 0;
     }
     
+    /**
+     * 购物车结算
+     * 已选中的购物车记录和商品信息各查询一次，库存用一条条件UPDATE批量扣减，
+     * 任一商品库存不足或已下架时整个事务回滚
+     */
+    @Override
+    @Transactional
+    public Order checkoutCart(Integer userId, Order order) {
+        // 先把Redis中未落库的购物车变更写入数据库，再读取已选中的记录
+        cartHashService.flushUser(userId);
+        List<Cart> selectedCarts = new ArrayList<>();
+        for (Cart cart : cartDao.getCartRowsByUserId(userId)) {
+            if (cart.getSelected() != null && cart.getSelected() == 1) {
+                selectedCarts.add(cart);
+            }
+        }
+        if (selectedCarts.isEmpty()) {
+            throw new IllegalStateException("购物车中没有选中的商品");
+        }
+
+        List<Integer> productIds = new ArrayList<>();
+        for (Cart cart : selectedCarts) {
+            productIds.add(cart.getProductId());
+        }
+        Map<Integer, Product> products = new HashMap<>();
+        for (Product product : productDao.getProductsByIds(productIds)) {
+            products.put(product.getProductId(), product);
+        }
+
+        // 校验商品并按当前价格计算金额
+        List<OrderItem> items = new ArrayList<>();
+        java.math.BigDecimal totalAmount = java.math.BigDecimal.ZERO;
+        for (Cart cart : selectedCarts) {
+            Product product = products.get(cart.getProductId());
+            if (product == null || product.getStatus() != 1) {
+                throw new IllegalStateException("商品不存在或已下架，商品ID: " + cart.getProductId());
+            }
+            if (product.getStock() < cart.getQuantity()) {
+                throw new IllegalStateException("商品库存不足: " + product.getProductName());
+            }
+            OrderItem item = new OrderItem();
+            item.setProductId(product.getProductId());
+            item.setProductName(product.getProductName());
+            item.setProductPrice(product.getPrice());
+            item.setQuantity(cart.getQuantity());
+            item.setTotalPrice(product.getPrice().multiply(new java.math.BigDecimal(cart.getQuantity())));
+            item.setProduct(product);
+            items.add(item);
+            totalAmount = totalAmount.add(item.getTotalPrice());
+        }
+
+        // 一条语句扣减全部库存，并发下单导致库存不足时影响行数会变少
+        if (productDao.batchDecreaseStock(items) != items.size()) {
+            throw new IllegalStateException("部分商品库存不足，请刷新购物车后重试");
+        }
+        List<String> productKeys = new ArrayList<>();
+        for (Integer productId : productIds) {
+            productKeys.add("product:" + productId);
+        }
+        RequestCache.evict(productKeys);
+
+        order.setUserId(userId);
+        order.setOrderNo(generateOrderNo());
+        order.setOrderUuid(UUID.randomUUID().toString());
+        order.setStatus(0); // 默认状态：待付款
+        order.setTotalAmount(totalAmount);
+        order.setOrderItems(items);
+        orderDao.insertOrder(order);
+        orderSearchIndexService.indexOrder(order);
+        for (OrderItem item : items) {
+            item.setOrderId(order.getOrderId());
+        }
+        orderItemDao.batchInsertOrderItems(items);
+        categorySalesService.addSales(items);
+        hotProductService.recordSales(items);
+
+        // 移除已购买的购物车记录：Redis哈希在事务内删除，失败时结算失败并回滚，
+        // 不会留下已购买的商品被定时写入重新放回cart表；事务回滚时把删除的商品放回哈希
+        cartDao.deleteCartByUserIdAndProductIds(userId, productIds);
+        cartHashService.removeProducts(userId, productIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    try {
+                        cartHashService.restoreItems(userId, selectedCarts);
+                    } catch (Exception e) {
+                        logger.error("结算回滚后放回购物车商品失败，userId={}", userId, e);
+                    }
+                }
+            }
+
+            @Override
+            public void afterCommit() {
+                try {
+                    redisTemplate.delete(productKeys);
+                    redisService.set("order:" + order.getOrderId(), order, 24 * 60 * 60); // 缓存24小时
+                    redisTemplate.delete("allOrders");
+                } catch (Exception e) {
+                    logger.error("购物车结算后更新缓存失败，userId={}", userId, e);
+                }
+            }
+        });
+        return order;
+    }
+    
     @Override
     @Transactional
     public boolean deleteOrder(Integer orderId) {
-        // 先删除订单明细，再删除订单
+        // 未取消的订单需要扣减商品类别销售统计
+        Order order = orderDao.getOrderById(orderId);
+        if (order != null && order.getStatus() != null && order.getStatus() != 4) {
+            categorySalesService.subtractSales(orderItemDao.getOrderItemsByOrderId(orderId));
+        }
+        // 先删除订单明细和搜索索引，再删除订单
         orderItemDao.deleteOrderItemsByOrderId(orderId);
+        orderSearchIndexService.removeOrder(orderId);
         boolean result = orderDao.deleteOrderById(orderId) > 0;
         if (result) {
+            RequestCache.evict("order:" + orderId);
             try {
                 // 从Redis缓存中删除
                 String key = "order:" + orderId;
@@ -165,9 +311,30 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
     }
     
     @Override
+    @Transactional
     public boolean updateOrder(Order order) {
+        // 订单号、收货人或电话有变化时需要更新搜索索引
+        Order originalOrder = null;
+        boolean cancelling = order.getStatus() != null && order.getStatus() == 4;
+        if (cancelling || order.getOrderNo() != null || order.getReceiver() != null || order.getReceiverPhone() != null) {
+            originalOrder = orderDao.getOrderById(order.getOrderId());
+        }
+        // 改为已取消需要退还库存和类别销售统计，统一走cancelOrder；已取消的订单只更新其他字段
+        if (cancelling && originalOrder != null && originalOrder.getStatus() != null && originalOrder.getStatus() != 4
+                && !cancelOrder(order.getOrderId())) {
+            throw new IllegalStateException("订单当前状态不能取消");
+        }
         boolean result = orderDao.updateOrder(order) > 0;
+        if (result && originalOrder != null && searchFieldsChanged(originalOrder, order)) {
+            Order indexed = new Order();
+            indexed.setOrderId(order.getOrderId());
+            indexed.setOrderNo(order.getOrderNo() != null ? order.getOrderNo() : originalOrder.getOrderNo());
+            indexed.setReceiver(order.getReceiver() != null ? order.getReceiver() : originalOrder.getReceiver());
+            indexed.setReceiverPhone(order.getReceiverPhone() != null ? order.getReceiverPhone() : originalOrder.getReceiverPhone());
+            orderSearchIndexService.indexOrder(indexed);
+        }
         if (result) {
+            RequestCache.evict("order:" + order.getOrderId());
             try {
                 // 获取更新后的订单信息
                 Order updatedOrder = orderDao.getOrderById(order.getOrderId());
@@ -189,8 +356,18 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
         return result;
     }
     
+    /**
+     * 根据ID获取订单，同一请求内重复读取时直接返回已读取的订单
+     */
     @Override
     public Order getOrderById(Integer orderId) {
+        return RequestCache.get("order:" + orderId, () -> loadOrderById(orderId));
+    }
+    
+    /**
+     * 先读Redis缓存，未命中时查询数据库并写入缓存
+     */
+    private Order loadOrderById(Integer orderId) {
         Order order = null;
         String key = "order:" + orderId;
         
@@ -311,7 +488,7 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
             if (order.getPaymentMethod() == null) {
                 order.setPaymentMethod(0);
             }
-            return orderDao.updateOrder(order) > 0;
+            return updateOrderStatus(order);
         }
         return false;
     }
@@ -323,7 +500,7 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
         if (order != null && order.getStatus() == 1) { // 已付款状态
             order.setStatus(2); // 已发货
             order.setShippingTime(new Date());
-            return orderDao.updateOrder(order) > 0;
+            return updateOrderStatus(order);
         }
         return false;
     }
@@ -337,7 +514,7 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
         if (order != null && order.getStatus() == 2) { // 已发货状态
             order.setStatus(3); // 已完成
             order.setCompleteTime(new Date());
-            return orderDao.updateOrder(order) > 0;
+            return updateOrderStatus(order);
         }
         return false;
     }
@@ -349,21 +526,38 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
         if (order != null && order.getStatus() <= 1) { // 待付款或已付款状态
             order.setStatus(4); // 已取消
             
-            // 如果订单已付款，需要退还库存
-            if (order.getStatus() == 1) {
-                // 获取订单明细
-                List<OrderItem> items = orderItemDao.getOrderItemsByOrderId(orderId);
-                for (OrderItem item : items) {
-                    // 恢复商品库存
-                    productService.updateProductStock(item.getProductId(), item.getQuantity());
-                }
+            // 获取订单明细
+            List<OrderItem> items = orderItemDao.getOrderItemsByOrderId(orderId);
+            // 下单时已扣减库存，待付款和已付款的订单取消时都要退还
+            for (OrderItem item : items) {
+                // 恢复商品库存
+                productService.updateProductStock(item.getProductId(), item.getQuantity());
             }
+            // 扣减商品类别销售统计
+            categorySalesService.subtractSales(items);
             
-            return orderDao.updateOrder(order) > 0;
+            return updateOrderStatus(order);
         }
         return false;
     }
     
+    /**
+     * 保存订单状态变更并清除订单缓存
+     */
+    private boolean updateOrderStatus(Order order) {
+        boolean result = orderDao.updateOrder(order) > 0;
+        if (result) {
+            String key = "order:" + order.getOrderId();
+            RequestCache.evict(key);
+            try {
+                redisService.delete(key);
+            } catch (Exception e) {
+                logger.error("更新订单状态后清除缓存失败, orderId={}", order.getOrderId(), e);
+            }
+        }
+        return result;
+    }
+    
     @Override
     public Integer getOrderCount() {
         try {
@@ -505,31 +699,8 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
      */
     @Override
     public List<Map<String, Object>> getProductCategoryDistribution() {
-        String cacheKey = "productCategoryDistribution";
-        
-        try {
-            // 尝试从Redis缓存获取
-            Object cachedData = redisTemplate.opsForValue().get(cacheKey);
-            if (cachedData != null) {
-                return (List<Map<String, Object>>) cachedData;
-            }
-        } catch (Exception e) {
-            logger.error("从Redis获取商品类别销售分布失败", e);
-            // 继续从数据库获取
-        }
-        
-        // 从数据库获取数据
-        List<Map<String, Object>> result = orderDao.getProductCategoryDistribution();
-        
-        try {
-            // 缓存结果，设置1小时过期
-            redisTemplate.opsForValue().set(cacheKey, result, 1, java.util.concurrent.TimeUnit.HOURS);
-        } catch (Exception e) {
-            logger.error("缓存商品类别销售分布失败", e);
-            // 缓存失败不影响业务
-        }
-        
-        return result;
+        // 读取增量维护的类别统计，不再扫描全部订单明细
+        return categorySalesService.getCategorySalesDistribution();
     }
     
     /**
@@ -636,7 +807,7 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
         } 
         // 处理其他筛选条件
         else if (filters != null && !filters.isEmpty()) {
-            orders = orderDao.getOrdersByFilters(filters);
+            orders = orderDao.getOrdersByFilters(orderSearchIndexService.prepareFilters(filters));
         } 
         // 无筛选条件时返回所有订单
         else {
@@ -656,6 +827,18 @@ public class OrderServiceImpl implements OrderService, CommandLineRunner {
         return new PageInfo<>(orders);
     }
     
+    /**
+     * 判断订单号、收货人、收货人电话是否有变化，有变化时需要重建该订单的搜索索引
+     * @param original 原订单
+     * @param update 更新内容
+     * @return 是否有变化
+     */
+    private boolean searchFieldsChanged(Order original, Order update) {
+        return (update.getOrderNo() != null && !update.getOrderNo().equals(original.getOrderNo()))
+                || (update.getReceiver() != null && !update.getReceiver().equals(original.getReceiver()))
+                || (update.getReceiverPhone() != null && !update.getReceiverPhone().equals(original.getReceiverPhone()));
+    }
+    
     /**
      * 生成订单编号
      * @return 订单编号
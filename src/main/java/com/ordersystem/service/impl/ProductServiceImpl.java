@@ -6,6 +6,7 @@ import com.ordersystem.entity.OrderItem;
 import com.ordersystem.entity.Product;
 import com.ordersystem.service.ProductService;
 import com.ordersystem.service.RedisService;
+import com.ordersystem.util.RequestCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -85,6 +86,7 @@ public class ProductServiceImpl implements ProductService, CommandLineRunner {
         // 没有关联的订单项，可以删除
         boolean result = productDao.deleteProductById(productId) > 0;
         if (result) {
+            RequestCache.evict("product:" + productId);
             try {
                 // 从Redis缓存中删除
                 String key = "product:" + productId;
@@ -105,6 +107,7 @@ public class ProductServiceImpl implements ProductService, CommandLineRunner {
     public boolean updateProduct(Product product) {
         boolean result = productDao.updateProduct(product) > 0;
         if (result) {
+            RequestCache.evict("product:" + product.getProductId());
             try {
                 // 获取更新后的商品信息
                 Product updatedProduct = productDao.getProductById(product.getProductId());
@@ -124,8 +127,18 @@ public class ProductServiceImpl implements ProductService, CommandLineRunner {
         return result;
     }
 
+    /**
+     * 根据ID获取商品，同一请求内重复读取时直接返回已读取的商品
+     */
     @Override
     public Product getProductById(Integer productId) {
+        return RequestCache.get("product:" + productId, () -> loadProductById(productId));
+    }
+    
+    /**
+     * 先读Redis缓存，未命中时查询数据库并写入缓存
+     */
+    private Product loadProductById(Integer productId) {
         Product product = null;
         String key = "product:" + productId;
         
@@ -200,6 +213,7 @@ public class ProductServiceImpl implements ProductService, CommandLineRunner {
             product.setStock(newStock);
             boolean result = productDao.updateProduct(product) > 0;
             if (result) {
+                RequestCache.evict("product:" + productId);
                 // 更新Redis缓存
                 String key = "product:" + productId;
                 redisService.set(key, product, 24 * 60 * 60); // 缓存24小时
@@ -214,7 +228,17 @@ public class ProductServiceImpl implements ProductService, CommandLineRunner {
         if (productId == null || imageData == null || imageData.length == 0) {
             return false;
         }
-        return productDao.updateProductImage(productId, imageData) > 0;
+        boolean result = productDao.updateProductImage(productId, imageData) > 0;
+        if (result) {
+            // 缓存的商品包含图片数据，图片更新后清除缓存
+            RequestCache.evict("product:" + productId);
+            try {
+                redisService.delete("product:" + productId);
+            } catch (Exception e) {
+                logger.error("更新商品图片后清除缓存失败, productId={}", productId, e);
+            }
+        }
+        return result;
     }
     
     @Override
@@ -222,7 +246,7 @@ public class ProductServiceImpl implements ProductService, CommandLineRunner {
         if (productId == null) {
             return null;
         }
-        Product product = productDao.getProductById(productId);
+        Product product = getProductById(productId);
         return product != null ? product.getProductImage() : null;
     }
     
@@ -312,4 +336,12 @@ public class ProductServiceImpl implements ProductService, CommandLineRunner {
         
         return result;
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<Product> getProductsByIds(List<Integer> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return productDao.getProductsByIds(productIds);
+    }
+}
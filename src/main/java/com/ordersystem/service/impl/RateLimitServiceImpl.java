@@ -0,0 +1,226 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.service.RateLimitService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 限流服务实现类
+ * local模式下令牌桶保存在本进程内存中，各节点独立计数，数量达到上限时淘汰最久未使用的令牌桶；
+ * redis模式下令牌桶保存在Redis哈希中，用Lua脚本原子地补充和扣减令牌，Redis不可用时放行请求
+ */
+@Service
+public class RateLimitServiceImpl implements RateLimitService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitServiceImpl.class);
+
+    private static final String KEY_PREFIX = "rate:";
+
+    /**
+     * 令牌桶脚本
+     * KEYS[1]=令牌桶键，ARGV[1]=容量，ARGV[2]=每毫秒补充令牌数，ARGV[3]=当前时间（毫秒）
+     * 返回1表示获取成功，0表示令牌不足
+     */
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local capacity = tonumber(ARGV[1]) "
+            + "local rate = tonumber(ARGV[2]) "
+            + "local now = tonumber(ARGV[3]) "
+            + "local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts') "
+            + "local tokens = tonumber(bucket[1]) "
+            + "local ts = tonumber(bucket[2]) "
+            + "if tokens == nil then tokens = capacity ts = now end "
+            + "if now > ts then tokens = math.min(capacity, tokens + (now - ts) * rate) ts = now end "
+            + "local allowed = 0 "
+            + "if tokens >= 1 then tokens = tokens - 1 allowed = 1 end "
+            + "redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts)) "
+            + "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate)) "
+            + "return allowed",
+            Long.class);
+
+    /**
+     * 令牌检查脚本，与令牌桶脚本计算方式相同但不写回
+     * KEYS[1]=令牌桶键，ARGV[1]=容量，ARGV[2]=每毫秒补充令牌数，ARGV[3]=当前时间（毫秒）
+     * 返回1表示还有令牌，0表示令牌不足
+     */
+    private static final DefaultRedisScript<Long> TOKEN_PEEK_SCRIPT = new DefaultRedisScript<>(
+            "local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts') "
+            + "local tokens = tonumber(bucket[1]) "
+            + "if tokens == nil then return 1 end "
+            + "local now = tonumber(ARGV[3]) "
+            + "local ts = tonumber(bucket[2]) "
+            + "if now > ts then tokens = math.min(tonumber(ARGV[1]), tokens + (now - ts) * tonumber(ARGV[2])) end "
+            + "if tokens >= 1 then return 1 end "
+            + "return 0",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private Environment environment;
+
+    /** 限流模式：local（单机）或redis（集群） */
+    @Value("${rate-limit.mode:local}")
+    private String mode;
+
+    /** 单机模式下最多保存的令牌桶数量，超出后淘汰最久未使用的令牌桶 */
+    @Value("${rate-limit.max-local-buckets:100000}")
+    private int maxLocalBuckets;
+
+    /** 按访问顺序排列的令牌桶，读写都在buckets上加锁 */
+    private final Map<String, TokenBucket> buckets = new LinkedHashMap<String, TokenBucket>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > maxLocalBuckets;
+        }
+    };
+
+    /** 未单独配置的规则使用的桶容量 */
+    @Value("${rate-limit.default-capacity:20}")
+    private int defaultCapacity;
+
+    /** 未单独配置的规则使用的每秒补充令牌数 */
+    @Value("${rate-limit.default-refill-per-second:1}")
+    private double defaultRefillPerSecond;
+
+    @Override
+    public boolean tryAcquire(String rule, String key) {
+        String prefix = "rate-limit.rules." + rule;
+        return tryAcquire(rule + ":" + key, ruleCapacity(prefix), ruleRefillPerSecond(prefix));
+    }
+
+    @Override
+    public boolean hasToken(String rule, String key) {
+        String prefix = "rate-limit.rules." + rule;
+        if ("redis".equalsIgnoreCase(mode)) {
+            return hasTokenRedis(rule + ":" + key, ruleCapacity(prefix), ruleRefillPerSecond(prefix));
+        }
+        TokenBucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.get(rule + ":" + key);
+        }
+        // 没有令牌桶说明从未扣减过或已补满被清理
+        return bucket == null || bucket.hasToken(System.currentTimeMillis());
+    }
+
+    private int ruleCapacity(String prefix) {
+        return environment.getProperty(prefix + ".capacity", Integer.class, defaultCapacity);
+    }
+
+    private double ruleRefillPerSecond(String prefix) {
+        return environment.getProperty(prefix + ".refill-per-second", Double.class, defaultRefillPerSecond);
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int capacity, double refillPerSecond) {
+        if ("redis".equalsIgnoreCase(mode)) {
+            return tryAcquireRedis(key, capacity, refillPerSecond);
+        }
+        return tryAcquireLocal(key, capacity, refillPerSecond);
+    }
+
+    private boolean tryAcquireLocal(String key, int capacity, double refillPerSecond) {
+        TokenBucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = new TokenBucket(capacity);
+                buckets.put(key, bucket);
+            }
+        }
+        return bucket.tryAcquire(capacity, refillPerSecond / 1000.0, System.currentTimeMillis());
+    }
+
+    private boolean tryAcquireRedis(String key, int capacity, double refillPerSecond) {
+        try {
+            Long allowed = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + key),
+                    String.valueOf(capacity), String.valueOf(refillPerSecond / 1000.0),
+                    String.valueOf(System.currentTimeMillis()));
+            return allowed == null || allowed == 1L;
+        } catch (Exception e) {
+            logger.error("Redis限流失败，放行请求，key={}", key, e);
+            return true;
+        }
+    }
+
+    private boolean hasTokenRedis(String key, int capacity, double refillPerSecond) {
+        try {
+            Long allowed = stringRedisTemplate.execute(TOKEN_PEEK_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + key),
+                    String.valueOf(capacity), String.valueOf(refillPerSecond / 1000.0),
+                    String.valueOf(System.currentTimeMillis()));
+            return allowed == null || allowed == 1L;
+        } catch (Exception e) {
+            logger.error("Redis限流检查失败，放行请求，key={}", key, e);
+            return true;
+        }
+    }
+
+    /**
+     * 定期清理已补满的令牌桶（补满的令牌桶与新建的令牌桶等价），只在定时任务中执行
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-interval-ms:60000}")
+    public void evictFullBuckets() {
+        long now = System.currentTimeMillis();
+        synchronized (buckets) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+
+    /**
+     * 进程内令牌桶
+     */
+    private static class TokenBucket {
+
+        private double tokens;
+        private long timestamp;
+        private int capacity;
+        private double ratePerMillis;
+
+        TokenBucket(int capacity) {
+            this.tokens = capacity;
+            this.timestamp = System.currentTimeMillis();
+            this.capacity = capacity;
+        }
+
+        synchronized boolean tryAcquire(int capacity, double ratePerMillis, long now) {
+            this.capacity = capacity;
+            this.ratePerMillis = ratePerMillis;
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean hasToken(long now) {
+            refill(now);
+            return tokens >= 1;
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > timestamp) {
+                tokens = Math.min(capacity, tokens + (now - timestamp) * ratePerMillis);
+                timestamp = now;
+            }
+        }
+    }
+}
@@ -1,24 +1,88 @@
 package com.ordersystem.service.impl;
 
 import com.ordersystem.service.RedisService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Redis服务实现类
+ * Token在本地保留短时缓存，拦截器校验Token时通常不访问Redis。
+ * 每次Token变更或失效时递增该用户所在分段的版本号，从Redis加载的Token写入本地缓存后若版本号已变化则撤销，
+ * 避免失效通知先于写入到达时把旧Token重新放回缓存
  */
 @Service
 public class RedisServiceImpl implements RedisService {
 
+    private static final Logger logger = LoggerFactory.getLogger(RedisServiceImpl.class);
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
     
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    
+    /** 本节点ID */
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    /** 在线会话有序集合，成员为用户ID，分数为最近活跃时间 */
+    private static final String SESSION_KEY = "online:sessions";
+    
+    /** 本节点最近一次写入会话活跃时间：用户ID -> 时间 */
+    private final ConcurrentHashMap<Integer, Long> sessionTouchTimes = new ConcurrentHashMap<>();
+    
+    /** 同一用户两次写入活跃时间的最小间隔（毫秒） */
+    @Value("${online.touch-interval-ms:60000}")
+    private long sessionTouchIntervalMs;
+    
+    /** 本地Token缓存：用户ID -> Token（无Token时为null） */
+    private final ConcurrentHashMap<Integer, LocalToken> localTokens = new ConcurrentHashMap<>();
+    
+    /** Token版本号分段数 */
+    private static final int TOKEN_VERSION_STRIPES = 64;
+    
+    /** Token版本号，按用户ID分段 */
+    private final AtomicLongArray tokenVersions = new AtomicLongArray(TOKEN_VERSION_STRIPES);
+    
+    /** 本地Token缓存有效期（毫秒），失效通知丢失时最多延迟这么久 */
+    @Value("${auth.token-cache-ttl-ms:5000}")
+    private long tokenCacheTtlMs;
+    
+    /** 本地Token缓存最大条数，写满时先清除过期条目，仍然写满则整体清空 */
+    @Value("${auth.token-cache-max-size:10000}")
+    private int tokenCacheMaxSize;
+    
+    /**
+     * 本地缓存的Token及加载时间
+     */
+    private static class LocalToken {
+        private final String token;
+        private final long loadTime;
+
+        LocalToken(String token, long loadTime) {
+            this.token = token;
+            this.loadTime = loadTime;
+        }
+    }
+    
     /**
      * 设置缓存
      * @param key 键
@@ -89,23 +153,159 @@ public class RedisServiceImpl implements RedisService {
         return Boolean.TRUE.equals(redisTemplate.hasKey(key));
     }
     
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+    
     @Override
     public void setToken(Integer userId, String token, long expireSeconds) {
         String key = "token:" + userId;
         set(key, token, expireSeconds);
+        long now = System.currentTimeMillis();
+        bumpTokenVersion(userId);
+        cacheLocalToken(userId, new LocalToken(token, now));
+        publishTokenInvalidation(userId);
+        redisTemplate.opsForZSet().add(SESSION_KEY, String.valueOf(userId), now);
+        sessionTouchTimes.put(userId, now);
     }
     
     @Override
     public String getToken(Integer userId) {
+        long now = System.currentTimeMillis();
+        LocalToken local = localTokens.get(userId);
+        if (local != null && now - local.loadTime < tokenCacheTtlMs) {
+            return local.token;
+        }
+        long version = tokenVersions.get(versionStripe(userId));
         String key = "token:" + userId;
         Object token = get(key, String.class);
-        return token != null ? token.toString() : null;
+        String value = token != null ? token.toString() : null;
+        LocalToken loaded = new LocalToken(value, now);
+        cacheLocalToken(userId, loaded);
+        if (tokenVersions.get(versionStripe(userId)) != version) {
+            // 读取Redis期间Token已变更，撤销可能过时的缓存
+            localTokens.remove(userId, loaded);
+        }
+        return value;
     }
     
     @Override
     public void deleteToken(Integer userId) {
         String key = "token:" + userId;
         delete(key);
+        bumpTokenVersion(userId);
+        localTokens.remove(userId);
+        publishTokenInvalidation(userId);
+        removeSessions(Collections.singletonList(userId));
+    }
+    
+    @Override
+    public void evictLocalToken(Integer userId) {
+        bumpTokenVersion(userId);
+        localTokens.remove(userId);
+    }
+    
+    /**
+     * 写入本地Token缓存，写满时先清除过期条目，仍然写满则整体清空
+     */
+    private void cacheLocalToken(Integer userId, LocalToken entry) {
+        if (localTokens.size() >= tokenCacheMaxSize && !localTokens.containsKey(userId)) {
+            long expiredBefore = System.currentTimeMillis() - tokenCacheTtlMs;
+            localTokens.values().removeIf(local -> local.loadTime <= expiredBefore);
+            if (localTokens.size() >= tokenCacheMaxSize) {
+                localTokens.clear();
+            }
+        }
+        localTokens.put(userId, entry);
+    }
+    
+    private void bumpTokenVersion(Integer userId) {
+        tokenVersions.incrementAndGet(versionStripe(userId));
+    }
+    
+    private int versionStripe(Integer userId) {
+        return Math.floorMod(userId.hashCode(), TOKEN_VERSION_STRIPES);
+    }
+    
+    @Override
+    public void touchSession(Integer userId) {
+        long now = System.currentTimeMillis();
+        Long last = sessionTouchTimes.get(userId);
+        if (last != null && now - last < sessionTouchIntervalMs) {
+            return;
+        }
+        sessionTouchTimes.put(userId, now);
+        try {
+            redisTemplate.opsForZSet().add(SESSION_KEY, String.valueOf(userId), now);
+        } catch (Exception e) {
+            logger.error("更新在线会话失败，userId={}", userId, e);
+        }
+    }
+    
+    @Override
+    public Map<Integer, Long> getOnlineSessions(long offset, long count) {
+        Map<Integer, Long> sessions = new LinkedHashMap<>();
+        if (count <= 0) {
+            return sessions;
+        }
+        Set<ZSetOperations.TypedTuple<Object>> tuples =
+                redisTemplate.opsForZSet().reverseRangeWithScores(SESSION_KEY, offset, offset + count - 1);
+        if (tuples != null) {
+            for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+                if (tuple.getValue() != null && tuple.getScore() != null) {
+                    sessions.put(Integer.valueOf(tuple.getValue().toString()), tuple.getScore().longValue());
+                }
+            }
+        }
+        return sessions;
+    }
+    
+    @Override
+    public long countOnlineSessions() {
+        Long count = redisTemplate.opsForZSet().zCard(SESSION_KEY);
+        return count != null ? count : 0;
+    }
+    
+    @Override
+    public void removeSessions(Collection<Integer> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        Object[] members = new Object[userIds.size()];
+        int i = 0;
+        for (Integer userId : userIds) {
+            members[i++] = String.valueOf(userId);
+            sessionTouchTimes.remove(userId);
+        }
+        redisTemplate.opsForZSet().remove(SESSION_KEY, members);
+    }
+    
+    @Override
+    public long removeSessionsBefore(long before) {
+        Long removed = redisTemplate.opsForZSet().removeRangeByScore(SESSION_KEY, 0, before);
+        sessionTouchTimes.values().removeIf(time -> time < before);
+        return removed != null ? removed : 0;
+    }
+    
+    @Override
+    public List<Object> multiGet(List<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        return values != null ? values : new ArrayList<>(Collections.nCopies(keys.size(), null));
+    }
+    
+    /**
+     * 通知其他节点清除该用户的本地Token缓存
+     */
+    private void publishTokenInvalidation(Integer userId) {
+        try {
+            stringRedisTemplate.convertAndSend(TOKEN_INVALIDATE_CHANNEL, userId + ":" + nodeId);
+        } catch (Exception e) {
+            logger.error("发布Token失效通知失败，userId={}", userId, e);
+        }
     }
     
     @Override
@@ -126,30 +326,4 @@ public class RedisServiceImpl implements RedisService {
         String key = "verification_code:" + username;
         delete(key);
     }
-    
-    @Override
-    public Map<Integer, String> getAllUserTokens() {
-        Map<Integer, String> userTokens = new HashMap<>();
-        Set<String> keys = redisTemplate.keys("token:*");
-        
-        if (keys != null) {
-            for (String key : keys) {
-                try {
-                    // 从key中提取用户ID
-                    String userIdStr = key.substring("token:".length());
-                    Integer userId = Integer.parseInt(userIdStr);
-                    
-                    // 获取对应的token
-                    Object tokenObj = redisTemplate.opsForValue().get(key);
-                    if (tokenObj != null) {
-                        userTokens.put(userId, tokenObj.toString());
-                    }
-                } catch (Exception e) {
-                    // 忽略解析错误
-                }
-            }
-        }
-        
-        return userTokens;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,134 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.dao.UserDao;
+import com.ordersystem.service.RedisService;
+import com.ordersystem.service.UserFilterService;
+import com.ordersystem.util.BloomFilter;
+import com.ordersystem.util.UsernameNormalizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 用户存在性过滤服务实现类
+ * 启动时流式扫描用户表构建用户名布隆过滤器，注册时增量添加并通过Redis发布订阅通知其他节点，
+ * 定期重建以去除已删除的用户名。用户名按数据库排序规则归一化后再放入过滤器（见UsernameNormalizer）
+ */
+@Service
+public class UserFilterServiceImpl implements UserFilterService, CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserFilterServiceImpl.class);
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisService redisService;
+
+    /** 预计用户名数量，实际用户数更多时按实际数量的2倍构建 */
+    @Value("${user-filter.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    /** 期望误判率 */
+    @Value("${user-filter.fpp:0.01}")
+    private double fpp;
+
+    /** 当前使用的过滤器，构建完成前为null */
+    private volatile BloomFilter usernames;
+
+    /** 正在重建的过滤器，重建期间新增的用户名同时写入，避免扫描时遗漏 */
+    private volatile BloomFilter building;
+
+    @Override
+    public void run(String... args) {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("初始化用户名过滤器失败，用户名检查将直接查询数据库", e);
+        }
+    }
+
+    @Override
+    public boolean mightContainUsername(String username) {
+        BloomFilter filter = usernames;
+        if (filter == null || username == null) {
+            return true;
+        }
+        return filter.mightContain(UsernameNormalizer.normalize(username));
+    }
+
+    @Override
+    public void addUsername(String username) {
+        if (username == null) {
+            return;
+        }
+        String value = UsernameNormalizer.normalize(username);
+        addLocalUsername(value);
+        try {
+            stringRedisTemplate.convertAndSend(USERNAME_ADDED_CHANNEL, redisService.getNodeId() + ":" + value);
+        } catch (Exception e) {
+            // 通知失败时其他节点在下次重建前可能误判用户名可用，注册仍由唯一索引保证
+            logger.error("发布用户名新增通知失败，username={}", username, e);
+        }
+    }
+
+    @Override
+    public void addLocalUsername(String value) {
+        if (value == null) {
+            return;
+        }
+        BloomFilter rebuilding = building;
+        if (rebuilding != null) {
+            rebuilding.put(value);
+        }
+        BloomFilter filter = usernames;
+        if (filter != null) {
+            filter.put(value);
+        }
+    }
+
+    @Override
+    public synchronized long rebuild() {
+        long start = System.currentTimeMillis();
+        BloomFilter filter = new BloomFilter(Math.max(expectedInsertions, userDao.countUsers() * 2L), fpp);
+        building = filter;
+        AtomicLong count = new AtomicLong();
+        try {
+            userDao.scanUsernames(context -> {
+                String username = context.getResultObject();
+                if (username != null) {
+                    filter.put(UsernameNormalizer.normalize(username));
+                    count.incrementAndGet();
+                }
+            });
+            usernames = filter;
+        } finally {
+            building = null;
+        }
+        logger.info("用户名过滤器构建完成，共{}个用户名，耗时{}ms", count.get(), System.currentTimeMillis() - start);
+        return count.get();
+    }
+
+    /**
+     * 定期重建过滤器，去除已删除用户的用户名并纠正数据库直接写入造成的遗漏
+     */
+    @Scheduled(initialDelayString = "${user-filter.rebuild-interval-ms:21600000}",
+            fixedDelayString = "${user-filter.rebuild-interval-ms:21600000}")
+    public void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("重建用户名过滤器失败，继续使用原过滤器", e);
+        }
+    }
+}
@@ -2,9 +2,13 @@ package com.ordersystem.service.impl;
 
 import com.ordersystem.dao.UserDao;
 import com.ordersystem.entity.User;
+import com.ordersystem.service.AvatarService;
+import com.ordersystem.service.LoginTrackService;
 import com.ordersystem.service.RedisService;
+import com.ordersystem.service.UserFilterService;
 import com.ordersystem.service.UserService;
 import com.ordersystem.util.MD5Util;
+import com.ordersystem.util.RequestCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +39,15 @@ public class UserServiceImpl implements UserService, CommandLineRunner {
     @Autowired
     private RedisService redisService;
     
+    @Autowired
+    private LoginTrackService loginTrackService;
+    
+    @Autowired
+    private UserFilterService userFilterService;
+
+    @Autowired
+    private AvatarService avatarService;
+    
     /**
      * 项目启动时初始化用户数据到Redis缓存
      */
@@ -56,6 +69,7 @@ public class UserServiceImpl implements UserService, CommandLineRunner {
     public boolean addUser(User user) {
         boolean result = userDao.insertUser(user) > 0;
         if (result) {
+            userFilterService.addUsername(user.getUsername());
             try {
                 // 不缓存密码等敏感信息
                 User cacheUser = userDao.getUserById(user.getUserId());
@@ -81,6 +95,9 @@ public class UserServiceImpl implements UserService, CommandLineRunner {
     public boolean deleteUser(Integer userId) {
         boolean result = userDao.deleteUserById(userId) > 0;
         if (result) {
+            RequestCache.evict("user:" + userId);
+            // 头像单独存储，随用户一起删除
+            avatarService.deleteAvatar(userId);
             try {
                 // 从Redis缓存中删除
                 String key = "user:" + userId;
@@ -101,6 +118,10 @@ public class UserServiceImpl implements UserService, CommandLineRunner {
     public boolean updateUser(User user) {
         boolean result = userDao.updateUser(user) > 0;
         if (result) {
+            RequestCache.evict("user:" + user.getUserId());
+            if (user.getUsername() != null) {
+                userFilterService.addUsername(user.getUsername());
+            }
             try {
                 // 获取更新后的用户信息，不包含密码
                 User updatedUser = userDao.getUserById(user.getUserId());
@@ -125,8 +146,18 @@ public class UserServiceImpl implements UserService, CommandLineRunner {
         return result;
     }
     
+    /**
+     * 根据ID获取用户，同一请求内重复读取时直接返回已读取的用户
+     */
     @Override
     public User getUserById(Integer userId) {
+        return RequestCache.get("user:" + userId, () -> loadUserById(userId));
+    }
+    
+    /**
+     * 先读Redis缓存，未命中时查询数据库并写入缓存
+     */
+    private User loadUserById(Integer userId) {
         User user = null;
         String key = "user:" + userId;
         
@@ -222,6 +253,15 @@ public class UserServiceImpl implements UserService, CommandLineRunner {
         return user;
     }
     
+    @Override
+    public boolean isUsernameTaken(String username) {
+        if (!userFilterService.mightContainUsername(username)) {
+            logger.debug("用户名过滤器判断用户名不存在，username={}", username);
+            return false;
+        }
+        return getUserByUsername(username) != null;
+    }
+    
     @Override
     public List<User> getAllUsers() {
         List<User> users = null;
@@ -281,7 +321,6 @@ public class UserServiceImpl implements UserService, CommandLineRunner {
     }
     
     @Override
-    @Transactional
     public User login(String username, String password) {
         // 先检查用户是否存在
         User user = userDao.getUserByUsername(username);
@@ -298,9 +337,8 @@ public class UserServiceImpl implements UserService, CommandLineRunner {
         if (user.getStatus() == 0) {
             throw new RuntimeException("该用户已被禁用");
         }
-        // 更新更新时间
-        user.setUpdateTime(new java.util.Date());
-        userDao.updateUser(user);
+        // 登录时间由后台批量写入，登录过程只读
+        loginTrackService.recordLogin(user.getUserId());
         
         return user;
     }
@@ -342,10 +380,4 @@ public class UserServiceImpl implements UserService, CommandLineRunner {
         
         return result;
     }
-
-    @Override
-    public byte[] getUserAvatar(Integer userId) {
-        byte[] avatarData = userDao.getUserByAvatarData(userId);
-        return avatarData;
-    }
 }
\ No newline at end of file
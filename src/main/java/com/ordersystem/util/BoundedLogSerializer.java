@@ -0,0 +1,321 @@
+package com.ordersystem.util;
+
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.ui.Model;
+import org.springframework.validation.Errors;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 有界日志序列化器
+ * 把请求参数和返回结果写成结构化文本，写满maxLength后立即停止，不再遍历剩余内容，开销不随数据量增长。
+ * 二进制内容只记录长度，上传文件只记录文件名和大小，请求、响应、会话、流等对象直接跳过；
+ * 字段名或Map的key在掩码列表中时（不区分大小写）只写******。
+ * 每个线程复用同一个缓冲区，线程安全
+ */
+public class BoundedLogSerializer {
+
+    private static final String TRUNCATED = "... [内容过长已截断]";
+    private static final String MASK = "******";
+
+    /** 最大嵌套深度，超过后只写类名 */
+    private static final int MAX_DEPTH = 4;
+
+    /** 记录日志时直接跳过的类型 */
+    private static final Class<?>[] SKIPPED_TYPES = {
+            ServletRequest.class, ServletResponse.class, HttpSession.class,
+            InputStream.class, OutputStream.class, Reader.class, Writer.class,
+            Errors.class, Model.class
+    };
+
+    private final int maxLength;
+    private final Set<String> maskFields = new HashSet<>();
+    private final ThreadLocal<StringBuilder> buffers;
+
+    /** 类 -> 需要输出的字段 */
+    private final Map<Class<?>, Field[]> fieldCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxLength 输出的最大字符数（不含截断提示）
+     * @param maskFields 需要掩码的字段名
+     */
+    public BoundedLogSerializer(int maxLength, Collection<String> maskFields) {
+        this.maxLength = maxLength;
+        for (String field : maskFields) {
+            if (field != null && !field.trim().isEmpty()) {
+                this.maskFields.add(field.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.buffers = ThreadLocal.withInitial(() -> new StringBuilder(maxLength + TRUNCATED.length()));
+    }
+
+    /**
+     * 序列化方法参数，格式为"参数名=值; "，跳过的类型不输出
+     * @param names 参数名，可以为null
+     * @param args 参数值
+     * @return 序列化结果
+     */
+    public String serializeArgs(String[] names, Object[] args) {
+        if (args == null || args.length == 0) {
+            return "";
+        }
+        StringBuilder sb = borrowBuffer();
+        boolean complete = true;
+        for (int i = 0; i < args.length && complete; i++) {
+            Object arg = args[i];
+            if (arg == null || isSkipped(arg)) {
+                continue;
+            }
+            String name = names != null && i < names.length ? names[i] : null;
+            if (name != null) {
+                complete = write(sb, name) && write(sb, "=");
+            }
+            if (complete) {
+                complete = isMasked(name) ? write(sb, MASK) : writeValue(sb, arg, 0);
+            }
+            if (complete) {
+                complete = write(sb, "; ");
+            }
+        }
+        return finish(sb, complete);
+    }
+
+    /**
+     * 序列化单个对象
+     * @param value 对象
+     * @return 序列化结果
+     */
+    public String serialize(Object value) {
+        StringBuilder sb = borrowBuffer();
+        boolean complete = isSkipped(value) ? write(sb, typeName(value)) : writeValue(sb, value, 0);
+        return finish(sb, complete);
+    }
+
+    private StringBuilder borrowBuffer() {
+        StringBuilder sb = buffers.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    private String finish(StringBuilder sb, boolean complete) {
+        if (!complete) {
+            sb.append(TRUNCATED);
+        }
+        String result = sb.toString();
+        sb.setLength(0);
+        return result;
+    }
+
+    /**
+     * 写入一个值
+     * @return 是否完整写入，false表示已写满
+     */
+    private boolean writeValue(StringBuilder sb, Object value, int depth) {
+        if (value == null) {
+            return write(sb, "null");
+        }
+        if (value instanceof CharSequence) {
+            return write(sb, "'") && write(sb, (CharSequence) value) && write(sb, "'");
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum || value instanceof Date || value instanceof TemporalAccessor) {
+            return write(sb, value.toString());
+        }
+        if (value instanceof byte[]) {
+            return write(sb, "<binary ") && write(sb, String.valueOf(((byte[]) value).length)) && write(sb, " bytes>");
+        }
+        if (value instanceof MultipartFile) {
+            MultipartFile file = (MultipartFile) value;
+            return write(sb, "<file ") && write(sb, String.valueOf(file.getOriginalFilename()))
+                    && write(sb, ", ") && write(sb, String.valueOf(file.getSize())) && write(sb, " bytes>");
+        }
+        if (isSkipped(value) || value instanceof InputStreamSource) {
+            return write(sb, typeName(value));
+        }
+        if (depth >= MAX_DEPTH) {
+            return write(sb, typeName(value));
+        }
+        if (value instanceof Map) {
+            return writeMap(sb, (Map<?, ?>) value, depth);
+        }
+        if (value instanceof Collection) {
+            return writeElements(sb, ((Collection<?>) value).iterator(), depth);
+        }
+        if (value.getClass().isArray()) {
+            return writeArray(sb, value, depth);
+        }
+        String className = value.getClass().getName();
+        if (className.startsWith("java.") || className.startsWith("javax.")) {
+            return write(sb, value.toString());
+        }
+        return writeBean(sb, value, depth);
+    }
+
+    private boolean writeMap(StringBuilder sb, Map<?, ?> map, int depth) {
+        if (!write(sb, "{")) {
+            return false;
+        }
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first && !write(sb, ", ")) {
+                return false;
+            }
+            first = false;
+            String key = String.valueOf(entry.getKey());
+            if (!write(sb, key) || !write(sb, "=")) {
+                return false;
+            }
+            boolean written = isMasked(key) ? write(sb, MASK) : writeValue(sb, entry.getValue(), depth + 1);
+            if (!written) {
+                return false;
+            }
+        }
+        return write(sb, "}");
+    }
+
+    private boolean writeElements(StringBuilder sb, Iterator<?> iterator, int depth) {
+        if (!write(sb, "[")) {
+            return false;
+        }
+        boolean first = true;
+        while (iterator.hasNext()) {
+            if (!first && !write(sb, ", ")) {
+                return false;
+            }
+            first = false;
+            if (!writeValue(sb, iterator.next(), depth + 1)) {
+                return false;
+            }
+        }
+        return write(sb, "]");
+    }
+
+    private boolean writeArray(StringBuilder sb, Object array, int depth) {
+        if (!write(sb, "[")) {
+            return false;
+        }
+        int length = Array.getLength(array);
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && !write(sb, ", ")) {
+                return false;
+            }
+            if (!writeValue(sb, Array.get(array, i), depth + 1)) {
+                return false;
+            }
+        }
+        return write(sb, "]");
+    }
+
+    /**
+     * 按字段写入对象，格式与实体类的toString一致：类名{字段=值, ...}
+     */
+    private boolean writeBean(StringBuilder sb, Object bean, int depth) {
+        if (!write(sb, bean.getClass().getSimpleName()) || !write(sb, "{")) {
+            return false;
+        }
+        boolean first = true;
+        for (Field field : getFields(bean.getClass())) {
+            if (!first && !write(sb, ", ")) {
+                return false;
+            }
+            first = false;
+            if (!write(sb, field.getName()) || !write(sb, "=")) {
+                return false;
+            }
+            boolean written;
+            if (isMasked(field.getName())) {
+                written = write(sb, MASK);
+            } else {
+                Object fieldValue;
+                try {
+                    fieldValue = field.get(bean);
+                } catch (IllegalAccessException e) {
+                    fieldValue = "?";
+                }
+                written = writeValue(sb, fieldValue, depth + 1);
+            }
+            if (!written) {
+                return false;
+            }
+        }
+        return write(sb, "}");
+    }
+
+    private Field[] getFields(Class<?> type) {
+        return fieldCache.computeIfAbsent(type, clazz -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> c = clazz; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    } catch (RuntimeException e) {
+                        // 无法访问的字段不输出
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        });
+    }
+
+    /**
+     * 写入文本，超出剩余空间时只写入能容纳的部分
+     * @return 是否完整写入
+     */
+    private boolean write(StringBuilder sb, CharSequence text) {
+        int remaining = maxLength - sb.length();
+        if (text.length() <= remaining) {
+            sb.append(text);
+            return true;
+        }
+        if (remaining > 0) {
+            sb.append(text, 0, remaining);
+        }
+        return false;
+    }
+
+    private boolean isMasked(String name) {
+        return name != null && maskFields.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    private boolean isSkipped(Object value) {
+        if (value == null) {
+            return false;
+        }
+        for (Class<?> type : SKIPPED_TYPES) {
+            if (type.isInstance(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String typeName(Object value) {
+        return value == null ? "null" : "<" + value.getClass().getSimpleName() + ">";
+    }
+}
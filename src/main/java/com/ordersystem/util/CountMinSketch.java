@@ -0,0 +1,88 @@
+package com.ordersystem.util;
+
+/**
+ * Count-Min Sketch计数工具类
+ * 用固定大小的二维计数表估算各元素的出现次数，估算值只会偏大不会偏小；
+ * 计数使用double保存，支持整体按比例衰减，用于实现随时间衰减的统计窗口
+ * 非线程安全，由调用方负责同步
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final double[][] table;
+    private final long[] seeds;
+
+    /**
+     * @param depth 哈希函数个数（行数），越大误差概率越低
+     * @param width 每行计数器个数，越大误差越小
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("depth和width必须大于0");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.table = new double[depth][width];
+        this.seeds = new long[depth];
+        for (int i = 0; i < depth; i++) {
+            seeds[i] = 0x9E3779B97F4A7C15L * (i + 1);
+        }
+    }
+
+    /**
+     * 累加计数（保守更新：只抬升低于新估算值的计数器，降低高估）
+     * @param key 元素
+     * @param count 增量
+     * @return 累加后的估算值
+     */
+    public double add(long key, double count) {
+        int[] indexes = new int[depth];
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            indexes[i] = index(key, i);
+            min = Math.min(min, table[i][indexes[i]]);
+        }
+        double target = min + count;
+        for (int i = 0; i < depth; i++) {
+            if (table[i][indexes[i]] < target) {
+                table[i][indexes[i]] = target;
+            }
+        }
+        return target;
+    }
+
+    /**
+     * 估算元素的计数
+     * @param key 元素
+     * @return 估算值
+     */
+    public double estimate(long key) {
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < depth; i++) {
+            min = Math.min(min, table[i][index(key, i)]);
+        }
+        return min;
+    }
+
+    /**
+     * 所有计数按比例衰减
+     * @param factor 衰减系数，取值(0, 1]
+     */
+    public void decay(double factor) {
+        for (double[] row : table) {
+            for (int j = 0; j < width; j++) {
+                row[j] *= factor;
+            }
+        }
+    }
+
+    private int index(long key, int row) {
+        // SplitMix64混淆，保证各行哈希相互独立
+        long h = key + seeds[row];
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h = h ^ (h >>> 31);
+        return (int) ((h & Long.MAX_VALUE) % width);
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * JWT Token工具类
@@ -24,6 +25,13 @@ public class JwtTokenUtil {
     // 密钥
     private static final String SECRET = "order_system_secret_key";
     
+    // 已验签的Token缓存：Token -> Token信息
+    private final ConcurrentHashMap<String, TokenPrincipal> verifiedTokens = new ConcurrentHashMap<>();
+    
+    // 已验签Token缓存的最大数量
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+    
     /**
      * 生成Token
      * @param user 用户信息
@@ -33,6 +41,7 @@ public class JwtTokenUtil {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getUserId());
         claims.put("username", user.getUsername());
+        claims.put("role", user.getRole());
         
         return Jwts.builder()
                 .setClaims(claims)
@@ -42,14 +51,44 @@ public class JwtTokenUtil {
                 .compact();
     }
     
+    /**
+     * 解析并验证Token
+     * 验签成功的Token缓存到过期为止，同一Token再次请求时不再解析和验签
+     * @param token Token字符串
+     * @return Token信息，Token无效或已过期时返回null
+     */
+    public TokenPrincipal parseToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        TokenPrincipal cached = verifiedTokens.get(token);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            verifiedTokens.remove(token, cached);
+            return null;
+        }
+
+        Claims claims = getClaimsFromToken(token);
+        if (claims == null || claims.getExpiration() == null || isTokenExpired(claims)) {
+            return null;
+        }
+        TokenPrincipal principal = new TokenPrincipal((Integer) claims.get("userId"),
+                (String) claims.get("username"), (Integer) claims.get("role"), claims.getExpiration().getTime());
+        cacheVerifiedToken(token, principal, now);
+        return principal;
+    }
+    
     /**
      * 从Token中获取用户ID
      * @param token Token字符串
      * @return 用户ID
      */
     public Integer getUserIdFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims != null ? (Integer) claims.get("userId") : null;
+        TokenPrincipal principal = parseToken(token);
+        return principal != null ? principal.getUserId() : null;
     }
     
     /**
@@ -58,8 +97,8 @@ public class JwtTokenUtil {
      * @return 用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = getClaimsFromToken(token);
-        return claims != null ? (String) claims.get("username") : null;
+        TokenPrincipal principal = parseToken(token);
+        return principal != null ? principal.getUsername() : null;
     }
     
     /**
@@ -68,12 +107,21 @@ public class JwtTokenUtil {
      * @return 是否有效
      */
     public boolean validateToken(String token) {
-        try {
-            Claims claims = getClaimsFromToken(token);
-            return claims != null && !isTokenExpired(claims);
-        } catch (Exception e) {
-            return false;
+        return parseToken(token) != null;
+    }
+    
+    /**
+     * 缓存已验签的Token
+     * 缓存满时先清理已过期的Token，仍然满则清空，保证内存占用有上限
+     */
+    private void cacheVerifiedToken(String token, TokenPrincipal principal, long now) {
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            verifiedTokens.values().removeIf(p -> p.isExpired(now));
+            if (verifiedTokens.size() >= verifiedCacheSize) {
+                verifiedTokens.clear();
+            }
         }
+        verifiedTokens.put(token, principal);
     }
     
     /**
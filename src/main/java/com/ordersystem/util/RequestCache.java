@@ -0,0 +1,87 @@
+package com.ordersystem.util;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 请求级实体缓存
+ * 同一请求内按缓存键保存已读取的实体，重复读取直接返回同一对象；
+ * 缓存保存在请求属性中，请求结束后随请求一起释放。
+ * 非请求线程（定时任务、线程池）中直接调用加载方法，不做缓存。
+ * 缓存键与Redis缓存键保持一致，实体更新或删除时需同时调用evict
+ */
+public final class RequestCache {
+
+    private static final String ATTRIBUTE = RequestCache.class.getName();
+
+    private RequestCache() {
+    }
+
+    /**
+     * 获取实体，当前请求内未读取过时调用加载方法
+     * 加载结果为null时不缓存
+     * @param key 缓存键
+     * @param loader 加载方法
+     * @return 实体
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(String key, Supplier<T> loader) {
+        Map<String, Object> cache = currentCache(true);
+        if (cache == null) {
+            return loader.get();
+        }
+        Object cached = cache.get(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T value = loader.get();
+        if (value != null) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * 移除当前请求内缓存的实体
+     * @param key 缓存键
+     */
+    public static void evict(String key) {
+        Map<String, Object> cache = currentCache(false);
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+
+    /**
+     * 批量移除当前请求内缓存的实体
+     * @param keys 缓存键集合
+     */
+    public static void evict(Collection<String> keys) {
+        Map<String, Object> cache = currentCache(false);
+        if (cache != null) {
+            cache.keySet().removeAll(keys);
+        }
+    }
+
+    /**
+     * 获取当前请求的缓存，不在请求线程中时返回null
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> currentCache(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, Object> cache = (Map<String, Object>) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cache == null && create) {
+            cache = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, cache, RequestAttributes.SCOPE_REQUEST);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,69 @@
+package com.ordersystem.util;
+
+/**
+ * 已验证的Token信息
+ * Token只解析和验签一次，结果保存在请求属性中供后续使用
+ */
+public class TokenPrincipal {
+
+    /** 请求属性名 */
+    public static final String REQUEST_ATTRIBUTE = "tokenPrincipal";
+
+    /** 管理员角色 */
+    public static final int ROLE_ADMIN = 1;
+
+    private final Integer userId;       // 用户ID
+    private final String username;      // 用户名
+    private final Integer role;         // 角色：0-普通用户，1-管理员
+    private final long expiration;      // 过期时间（毫秒时间戳）
+
+    public TokenPrincipal(Integer userId, String username, Integer role, long expiration) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.expiration = expiration;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Integer getRole() {
+        return role;
+    }
+
+    /**
+     * 判断是否为管理员
+     * @return 是否为管理员
+     */
+    public boolean isAdmin() {
+        return role != null && role == ROLE_ADMIN;
+    }
+
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * 判断Token是否已过期
+     * @param now 当前时间（毫秒时间戳）
+     * @return 是否已过期
+     */
+    public boolean isExpired(long now) {
+        return expiration <= now;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenPrincipal{" +
+                "userId=" + userId +
+                ", username='" + username + '\'' +
+                ", role=" + role +
+                ", expiration=" + expiration +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package com.ordersystem.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 流式Top-K统计工具类
+ * 使用Count-Min Sketch估算所有元素的计数，最小堆只保留估算值最大的K个候选，
+ * 内存占用与元素总数无关；所有方法线程安全
+ */
+public class TopKTracker {
+
+    private final int capacity;
+    private final CountMinSketch sketch;
+    private final Map<Long, Entry> candidates = new HashMap<>();
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>(Comparator.comparingDouble(e -> e.score));
+
+    /**
+     * @param capacity 保留的候选个数K
+     * @param depth Count-Min Sketch行数
+     * @param width Count-Min Sketch列数
+     */
+    public TopKTracker(int capacity, int depth, int width) {
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(depth, width);
+    }
+
+    /**
+     * 累加元素计数
+     * @param key 元素
+     * @param count 增量
+     */
+    public synchronized void add(long key, double count) {
+        double score = sketch.add(key, count);
+        Entry entry = candidates.get(key);
+        if (entry != null) {
+            heap.remove(entry);
+            entry.score = score;
+            heap.offer(entry);
+            return;
+        }
+        if (candidates.size() < capacity) {
+            entry = new Entry(key, score);
+            candidates.put(key, entry);
+            heap.offer(entry);
+            return;
+        }
+        Entry min = heap.peek();
+        if (min != null && score > min.score) {
+            heap.poll();
+            candidates.remove(min.key);
+            entry = new Entry(key, score);
+            candidates.put(key, entry);
+            heap.offer(entry);
+        }
+    }
+
+    /**
+     * 所有计数按比例衰减，候选的相对顺序不变
+     * @param factor 衰减系数，取值(0, 1]
+     */
+    public synchronized void decay(double factor) {
+        sketch.decay(factor);
+        for (Entry entry : candidates.values()) {
+            entry.score *= factor;
+        }
+    }
+
+    /**
+     * 获取计数最大的前N个元素
+     * @param n 数量
+     * @return 元素与估算计数，按计数降序
+     */
+    public synchronized List<Map.Entry<Long, Double>> top(int n) {
+        List<Entry> entries = new ArrayList<>(heap);
+        entries.sort((a, b) -> Double.compare(b.score, a.score));
+        List<Map.Entry<Long, Double>> result = new ArrayList<>();
+        for (int i = 0; i < entries.size() && i < n; i++) {
+            Entry entry = entries.get(i);
+            result.add(new java.util.AbstractMap.SimpleImmutableEntry<>(entry.key, entry.score));
+        }
+        return result;
+    }
+
+    private static class Entry {
+        private final long key;
+        private double score;
+
+        private Entry(long key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ordersystem.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 用户名归一化工具类
+ * 对应user.username列的utf8mb4_0900_ai_ci排序规则（不区分大小写和重音，NO PAD即尾部空格有意义），
+ * 数据库视为同一用户名的写法归一化后相同。
+ * 归一化只能比排序规则粗、不能比它细：把数据库中不同的用户名归成同一个只会让布隆过滤器多一次误判、多查一次数据库，
+ * 而把数据库中相同的用户名归成不同的值会让过滤器把已占用的用户名判为可用。
+ * 兼容分解（NFKD）处理全角字符和连字，少数排序规则中与基本字母相同但不能分解的字母单独映射。
+ * 修改username列的排序规则时需同步修改这里
+ */
+public class UsernameNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    /** 排序规则中与基本字母（组合）相同、但Unicode分解不会拆开的小写字母 */
+    private static final String[][] EXPANSIONS = {
+            {"ß", "ss"}, {"æ", "ae"}, {"œ", "oe"}, {"ø", "o"}, {"đ", "d"}, {"ł", "l"}, {"ı", "i"}
+    };
+
+    private UsernameNormalizer() {
+    }
+
+    /**
+     * 兼容分解后去除重音符号并转为小写
+     * @param username 用户名
+     * @return 归一化后的用户名，username为null时返回null
+     */
+    public static String normalize(String username) {
+        if (username == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(username, Normalizer.Form.NFKD);
+        String normalized = COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        for (String[] expansion : EXPANSIONS) {
+            normalized = normalized.replace(expansion[0], expansion[1]);
+        }
+        return normalized;
+    }
+}
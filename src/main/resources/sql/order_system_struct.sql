@@ -85,6 +85,17 @@ CREATE TABLE `order_item`  (
   CONSTRAINT `fk_order_item_product` FOREIGN KEY (`product_id`) REFERENCES `product` (`product_id`) ON DELETE RESTRICT ON UPDATE RESTRICT
 ) ENGINE = InnoDB AUTO_INCREMENT = 103 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '订单明细表' ROW_FORMAT = Dynamic;
 
+-- ----------------------------
+-- Table structure for order_search_gram
+-- ----------------------------
+DROP TABLE IF EXISTS `order_search_gram`;
+CREATE TABLE `order_search_gram`  (
+  `gram` varchar(12) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL COMMENT '索引词（订单号、收货人、收货人电话的n-gram，小写；二进制比较，与程序中的规范化结果逐字节一致）',
+  `order_id` int NOT NULL COMMENT '订单ID',
+  PRIMARY KEY (`gram`, `order_id`) USING BTREE,
+  INDEX `idx_order_id`(`order_id` ASC) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '订单搜索n-gram索引表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for product
 -- ----------------------------
@@ -101,10 +112,24 @@ CREATE TABLE `product`  (
   `category` tinyint NULL DEFAULT 0 COMMENT '商品分类：1-电子产品，2-服装，3-食品，4-图书，5-家居，0-其他',
   `create_time` datetime NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  `image_update_time` datetime NULL DEFAULT NULL COMMENT '图片更新时间（只在图片变化时更新，作为图片缓存版本号）',
   PRIMARY KEY (`product_id`) USING BTREE,
   INDEX `idx_product_name`(`product_name` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 49 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '商品表' ROW_FORMAT = Dynamic;
 
+-- ----------------------------
+-- Table structure for product_category_sales
+-- ----------------------------
+DROP TABLE IF EXISTS `product_category_sales`;
+CREATE TABLE `product_category_sales`  (
+  `category` int NOT NULL COMMENT '商品分类：1-电子产品，2-服装，3-食品，4-图书，5-家居，0-其他',
+  `item_count` int NOT NULL DEFAULT 0 COMMENT '订单明细数',
+  `sales_quantity` int NOT NULL DEFAULT 0 COMMENT '销售数量',
+  `sales_amount` decimal(12, 2) NOT NULL DEFAULT 0.00 COMMENT '销售金额',
+  `update_time` datetime NULL DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`category`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '商品类别销售统计表' ROW_FORMAT = Dynamic;
+
 -- ----------------------------
 -- Table structure for sys_log
 -- ----------------------------
@@ -149,4 +174,18 @@ CREATE TABLE `user`  (
   UNIQUE INDEX `idx_username`(`username` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 30 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '用户表' ROW_FORMAT = Dynamic;
 
+-- ----------------------------
+-- Table structure for user_avatar
+-- ----------------------------
+DROP TABLE IF EXISTS `user_avatar`;
+CREATE TABLE `user_avatar`  (
+  `user_id` int NOT NULL COMMENT '用户ID',
+  `content_hash` char(64) CHARACTER SET ascii COLLATE ascii_bin NOT NULL COMMENT '图片内容SHA-256哈希，用作ETag',
+  `content_type` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL COMMENT '图片类型',
+  `avatar_size` int NOT NULL COMMENT '图片字节数',
+  `avatar_data` mediumblob NOT NULL COMMENT '缩放后的头像图片',
+  `update_time` datetime NULL DEFAULT NULL COMMENT '更新时间',
+  PRIMARY KEY (`user_id`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci COMMENT = '用户头像表' ROW_FORMAT = Dynamic;
+
 SET FOREIGN_KEY_CHECKS = 1;
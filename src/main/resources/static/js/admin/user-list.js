@@ -6,6 +6,8 @@ let totalPages = 1;
 let pageSize = 10;
 let pageSizeOptions = [5, 10, 20, 50]; // 分页大小选项
 let isEditMode = false;
+let onlineUsersPage = 1; // 在线用户当前页码
+const onlineUsersPageSize = 20; // 在线用户每页数量
 
 // 页面加载完成后执行
 $(document).ready(function() {
@@ -73,7 +75,7 @@ $(document).ready(function() {
             
             // 绑定在线用户按钮事件
             $('#online-users-btn').click(function() {
-                loadOnlineUsers(); // 加载在线用户数据
+                loadOnlineUsers(1); // 从第一页加载在线用户数据
                 $('#onlineUsersModal').modal('show'); // 显示模态框
             });
             
@@ -322,8 +324,8 @@ function renderPagination() {
         </li>
     `);
     
-    // 绑定页码点击事件
-    $('.page-link').click(function(e) {
+    // 绑定页码点击事件（只绑定用户列表的分页，在线用户分页单独处理）
+    pagination.find('.page-link').click(function(e) {
         e.preventDefault();
         const page = $(this).data('page');
         if (page && page !== currentPage && page >= 1 && page <= totalPages) {
@@ -837,9 +839,14 @@ function formatDate(dateString) {
 
 /**
  * 加载在线用户列表
- * 获取当前在线的用户信息并显示在模态框中
+ * 按最近活跃时间倒序分页获取在线用户并显示在模态框中
+ * @param {number} [page] - 页码，不传时刷新当前页
  */
-function loadOnlineUsers() {
+function loadOnlineUsers(page) {
+    if (page) {
+        onlineUsersPage = page;
+    }
+
     // 显示加载中状态
     $("#online-users-list").html(`
         <tr>
@@ -860,13 +867,25 @@ function loadOnlineUsers() {
         url: '/api/online-users',
         type: 'GET',
         dataType: 'json',
+        data: { page: onlineUsersPage, size: onlineUsersPageSize },
         headers: {
             'Authorization': token ? `Bearer ${token}` : ''
         },
         success: function(response) {
             console.log('在线用户API响应:', response);
             // 检查响应格式，处理不同的返回结构
-            if (response.code === 200) {
+            if (response && Array.isArray(response.list)) {
+                // 分页响应：list为当前页数据，total为在线总人数
+                const total = response.total || 0;
+                const pages = Math.max(1, Math.ceil(total / onlineUsersPageSize));
+                if (response.list.length === 0 && onlineUsersPage > pages) {
+                    // 翻页期间用户下线导致当前页已不存在，回到最后一页
+                    loadOnlineUsers(pages);
+                    return;
+                }
+                renderOnlineUsers(response.list);
+                renderOnlineUsersPagination(total, pages);
+            } else if (response.code === 200) {
                 // 标准响应格式，使用response.data
                 renderOnlineUsers(response.data);
             } else if (Array.isArray(response)) {
@@ -930,6 +949,58 @@ function loadOnlineUsers() {
     });
 }
 
+/**
+ * 渲染在线用户分页控件
+ * @param {number} total - 在线总人数
+ * @param {number} pages - 总页数
+ */
+function renderOnlineUsersPagination(total, pages) {
+    $('#online-users-total').text(total);
+    const pagination = $('#online-users-pagination');
+    pagination.empty();
+    if (pages <= 1) {
+        return;
+    }
+
+    pagination.append(`
+        <li class="page-item ${onlineUsersPage === 1 ? 'disabled' : ''}">
+            <a class="page-link" href="javascript:void(0)" data-page="${onlineUsersPage - 1}" aria-label="上一页">
+                <span aria-hidden="true">&laquo;</span>
+            </a>
+        </li>
+    `);
+
+    const maxVisiblePages = 5;
+    let startPage = Math.max(1, onlineUsersPage - Math.floor(maxVisiblePages / 2));
+    let endPage = Math.min(pages, startPage + maxVisiblePages - 1);
+    if (endPage - startPage + 1 < maxVisiblePages) {
+        startPage = Math.max(1, endPage - maxVisiblePages + 1);
+    }
+    for (let i = startPage; i <= endPage; i++) {
+        pagination.append(`
+            <li class="page-item ${i === onlineUsersPage ? 'active' : ''}">
+                <a class="page-link" href="javascript:void(0)" data-page="${i}">${i}</a>
+            </li>
+        `);
+    }
+
+    pagination.append(`
+        <li class="page-item ${onlineUsersPage === pages ? 'disabled' : ''}">
+            <a class="page-link" href="javascript:void(0)" data-page="${onlineUsersPage + 1}" aria-label="下一页">
+                <span aria-hidden="true">&raquo;</span>
+            </a>
+        </li>
+    `);
+
+    pagination.find('.page-link').click(function(e) {
+        e.preventDefault();
+        const page = $(this).data('page');
+        if (page && page !== onlineUsersPage && page >= 1 && page <= pages) {
+            loadOnlineUsers(page);
+        }
+    });
+}
+
 /**
  * 渲染在线用户列表
  * @param {Array} users - 在线用户数组
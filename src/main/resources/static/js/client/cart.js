@@ -193,7 +193,8 @@ function renderCartItem(item) {
     
     // 使用商品图片API端点获取图片，而不是直接使用二进制数据
     // 这样可以避免二进制数据被错误地解析为字符串导致的乱码问题
-    const productImage = `/api/products/${item.productId}/image`;
+    // 后端返回的productImageUrl带有版本号，图片未更新时可直接使用浏览器缓存
+    const productImage = item.productImageUrl || `/api/products/${item.productId}/image`;
     
     const itemTotalPrice = (item.productPrice * item.quantity).toFixed(2);
 
@@ -187,7 +187,7 @@ function renderCartSummary(cartItems) {
     let itemsHtml = '';
     cartItems.forEach(item => {
         const itemTotalPrice = item.productPrice * item.quantity;
-        const imageUrl = `/api/products/${item.productId}/image`;
+        const imageUrl = item.productImageUrl || `/api/products/${item.productId}/image`;
         
         itemsHtml += `
             <div class="d-flex mb-2 border-bottom pb-2">
@@ -252,30 +252,12 @@ async function submitOrder() {
         let orderData;
         
         if (isCartCheckout) {
-            // 从购物车结算
-            // 计算总价
-            let totalAmount = 0;
-            let items = [];
-            
-            selectedCartItems.forEach(item => {
-                totalAmount += item.productPrice * item.quantity;
-                items.push({
-                    productId: item.productId,
-                    productName: item.productName,
-                    quantity: item.quantity,
-                    productPrice: item.productPrice
-                });
-            });
-            
-            // 构建订单数据
+            // 从购物车结算：订单明细和金额由服务端根据购物车计算
             orderData = {
-                items: items,
-                totalAmount: totalAmount,
                 receiver: receiver,
                 receiverPhone: receiverPhone,
                 address: address,
-                remark: remark,
-                fromCart: true
+                remark: remark
             };
         } else {
             // 直接购买单个商品
@@ -299,7 +281,8 @@ async function submitOrder() {
             };
         }
         
-        console.log('发送POST请求到: /api/orders');
+        const requestUrl = isCartCheckout ? '/api/client/orders/checkout' : '/api/orders';
+        console.log('发送POST请求到: ' + requestUrl);
         console.log('请求数据:', orderData);
         
         // 发送创建订单请求 - 使用RESTful风格的API路径
@@ -313,7 +296,7 @@ async function submitOrder() {
             headers['Authorization'] = `Bearer ${token}`;
         }
         
-        const response = await fetchAPI('/api/orders', {
+        const response = await fetchAPI(requestUrl, {
             method: 'POST',
             headers: headers,
             body: JSON.stringify(orderData)
@@ -322,18 +305,6 @@ async function submitOrder() {
         // 显示成功消息
         showSuccessMessage('订单创建成功！');
         
-        // 如果是从购物车结算，清空已选中的购物车商品
-        if (isCartCheckout) {
-            try {
-                await fetchAPI('/api/client/cart/selected/clear', {
-                    method: 'DELETE'
-                });
-            } catch (err) {
-                console.error('清空已选购物车商品失败:', err);
-                // 不影响主流程，继续执行
-            }
-        }
-        
         // 跳转到订单详情页
         setTimeout(() => {
             window.location.href = `/pages/client/order-detail.html?uuid=${response.orderUuid || response.order.orderUuid}`;
@@ -0,0 +1,75 @@
+package com.ordersystem.controller;
+
+import com.ordersystem.entity.Order;
+import com.ordersystem.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 购物车结算接口测试
+ * 结算请求只携带收货信息，订单项由服务端根据购物车生成
+ */
+class ClientOrderControllerCheckoutTest {
+
+    private OrderService orderService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        orderService = mock(OrderService.class);
+        ClientOrderController controller = new ClientOrderController();
+        ReflectionTestUtils.setField(controller, "orderService", orderService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void checkoutWithShippingFieldsOnlyCreatesOrder() throws Exception {
+        Order created = new Order();
+        created.setOrderId(42);
+        created.setOrderUuid("uuid-42");
+        when(orderService.checkoutCart(eq(7), any(Order.class))).thenReturn(created);
+
+        mockMvc.perform(post("/api/client/orders/checkout")
+                        .requestAttr("userId", 7)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"receiver\":\"张三\",\"receiverPhone\":\"13800000000\","
+                                + "\"address\":\"北京市\",\"remark\":\"\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.orderId").value(42));
+
+        ArgumentCaptor<Order> captor = ArgumentCaptor.forClass(Order.class);
+        verify(orderService).checkoutCart(eq(7), captor.capture());
+        assertEquals("张三", captor.getValue().getReceiver());
+        assertNull(captor.getValue().getOrderItems());
+    }
+
+    @Test
+    void checkoutRejectsInvalidShippingFields() throws Exception {
+        mockMvc.perform(post("/api/client/orders/checkout")
+                        .requestAttr("userId", 7)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"receiver\":\"张三\",\"receiverPhone\":\"123\",\"address\":\"北京市\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verify(orderService, never()).checkoutCart(any(), any());
+    }
+}
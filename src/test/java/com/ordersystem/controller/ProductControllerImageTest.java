@@ -0,0 +1,78 @@
+package com.ordersystem.controller;
+
+import com.ordersystem.entity.Product;
+import com.ordersystem.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Date;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 商品图片接口测试
+ * 带版本号时长期缓存，不带版本号时按更新时间协商缓存
+ */
+class ProductControllerImageTest {
+
+    private static final byte[] IMAGE = {1, 2, 3};
+    private static final long IMAGE_UPDATE_TIME = 1_700_000_000_000L;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        Product product = new Product();
+        product.setProductId(5);
+        product.setImageUpdateTime(new Date(IMAGE_UPDATE_TIME + 123));
+        // 库存变化刷新的update_time不影响图片缓存
+        product.setUpdateTime(new Date(IMAGE_UPDATE_TIME + 3_600_000));
+        ProductService productService = mock(ProductService.class);
+        when(productService.getProductById(5)).thenReturn(product);
+        when(productService.getProductImage(5)).thenReturn(IMAGE);
+
+        ProductController controller = new ProductController();
+        ReflectionTestUtils.setField(controller, "productService", productService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void versionedImageIsImmutable() throws Exception {
+        mockMvc.perform(get("/api/products/5/image").param("v", "1700000000"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    void unversionedImageCarriesLastModified() throws Exception {
+        mockMvc.perform(get("/api/products/5/image"))
+                .andExpect(status().isOk())
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, IMAGE_UPDATE_TIME))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    void unchangedImageReturnsNotModified() throws Exception {
+        mockMvc.perform(get("/api/products/5/image").header(HttpHeaders.IF_MODIFIED_SINCE, IMAGE_UPDATE_TIME))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void changedImageIsSentAgain() throws Exception {
+        mockMvc.perform(get("/api/products/5/image").header(HttpHeaders.IF_MODIFIED_SINCE, IMAGE_UPDATE_TIME - 1000))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(IMAGE));
+    }
+}
@@ -0,0 +1,73 @@
+package com.ordersystem.controller;
+
+import com.ordersystem.entity.UserAvatar;
+import com.ordersystem.service.AvatarService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 用户头像接口测试
+ * If-None-Match可以是多个ETag、弱ETag或*
+ */
+class UserControllerAvatarTest {
+
+    private static final byte[] AVATAR = {1, 2, 3};
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        UserAvatar meta = new UserAvatar();
+        meta.setUserId(7);
+        meta.setContentHash("abc");
+        meta.setContentType("image/png");
+        UserAvatar avatar = new UserAvatar();
+        avatar.setUserId(7);
+        avatar.setContentHash("abc");
+        avatar.setContentType("image/png");
+        avatar.setAvatarData(AVATAR);
+        AvatarService avatarService = mock(AvatarService.class);
+        when(avatarService.getAvatarMeta(7)).thenReturn(meta);
+        when(avatarService.getAvatar(7)).thenReturn(avatar);
+
+        UserController controller = new UserController();
+        ReflectionTestUtils.setField(controller, "avatarService", avatarService);
+        ReflectionTestUtils.setField(controller, "avatarCacheMaxAgeSeconds", 60L);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void matchingTagInListIsNotModified() throws Exception {
+        mockMvc.perform(get("/api/users/avatar/7").header(HttpHeaders.IF_NONE_MATCH, "\"old\", \"abc\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void weakTagIsNotModified() throws Exception {
+        mockMvc.perform(get("/api/users/avatar/7").header(HttpHeaders.IF_NONE_MATCH, "W/\"abc\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void wildcardIsNotModified() throws Exception {
+        mockMvc.perform(get("/api/users/avatar/7").header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void otherTagReturnsAvatar() throws Exception {
+        mockMvc.perform(get("/api/users/avatar/7").header(HttpHeaders.IF_NONE_MATCH, "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(AVATAR));
+    }
+}
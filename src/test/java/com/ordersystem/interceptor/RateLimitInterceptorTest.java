@@ -0,0 +1,98 @@
+package com.ordersystem.interceptor;
+
+import com.ordersystem.service.RateLimitService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.test.web.servlet.setup.StandaloneMockMvcBuilder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 限流拦截器测试
+ * 规则按Spring路由使用的路径匹配，编码和多余斜杠的路径同样被限流
+ */
+class RateLimitInterceptorTest {
+
+    private RateLimitService rateLimitService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitService = mock(RateLimitService.class);
+        when(rateLimitService.tryAcquire(anyString(), anyString())).thenReturn(false);
+
+        RateLimitInterceptor interceptor = new RateLimitInterceptor();
+        ReflectionTestUtils.setField(interceptor, "rateLimitService", rateLimitService);
+        ReflectionTestUtils.setField(interceptor, "enabled", true);
+        ReflectionTestUtils.setField(interceptor, "retryAfterSeconds", 1);
+
+        StandaloneMockMvcBuilder builder = MockMvcBuilders.standaloneSetup(new StubController());
+        for (Map.Entry<String, String[]> entry : RateLimitInterceptor.RULE_PATHS.entrySet()) {
+            builder.addMappedInterceptors(entry.getValue(), interceptor.forRule(entry.getKey()));
+        }
+        mockMvc = builder.build();
+    }
+
+    @Test
+    void plainPathIsLimited() throws Exception {
+        mockMvc.perform(post("/api/users/login")).andExpect(status().isTooManyRequests());
+        verify(rateLimitService).tryAcquire(eq("login-ip"), anyString());
+    }
+
+    @Test
+    void encodedPathIsLimited() throws Exception {
+        mockMvc.perform(post(URI.create("/api/users/logi%6E"))).andExpect(status().isTooManyRequests());
+        verify(rateLimitService).tryAcquire(eq("login-ip"), anyString());
+    }
+
+    @Test
+    void doubleSlashPathIsLimited() throws Exception {
+        mockMvc.perform(post(URI.create("/api//users/register"))).andExpect(status().isTooManyRequests());
+        verify(rateLimitService).tryAcquire(eq("register-ip"), anyString());
+    }
+
+    @Test
+    void adminLoginAndCaptchaUseTheirRules() throws Exception {
+        mockMvc.perform(post("/api/admin/auth/login")).andExpect(status().isTooManyRequests());
+        mockMvc.perform(get("/api/captcha/image")).andExpect(status().isTooManyRequests());
+        verify(rateLimitService).tryAcquire(eq("login-ip"), anyString());
+        verify(rateLimitService).tryAcquire(eq("captcha-ip"), anyString());
+    }
+
+    @Test
+    void otherPathsAreNotLimited() throws Exception {
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+        verify(rateLimitService, never()).tryAcquire(anyString(), anyString());
+    }
+
+    @RestController
+    static class StubController {
+
+        @PostMapping({"/api/users/login", "/api/users/register", "/api/admin/auth/login"})
+        public String post() {
+            return "ok";
+        }
+
+        @GetMapping({"/api/captcha/image", "/api/products"})
+        public String get() {
+            return "ok";
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.ordersystem.interceptor;
+
+import com.ordersystem.entity.User;
+import com.ordersystem.service.RedisService;
+import com.ordersystem.util.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * TokenInterceptor基准测试
+ * legacyPreHandle复现改动前的Token校验：validateToken、getUserIdFromToken、getUsernameFromToken各解析验签一次；
+ * preHandle是当前实现：解析一次，之后命中已验签缓存。Redis由mock代替，只比较Token处理本身的开销。
+ * 运行：mvn test-compile 后执行本类的main方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenInterceptorBenchmark {
+
+    private String secret;
+    private String token;
+    private TokenInterceptor interceptor;
+    private RedisService redisService;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "verifiedCacheSize", 10000);
+        secret = (String) ReflectionTestUtils.getField(JwtTokenUtil.class, "SECRET");
+
+        User user = new User();
+        user.setUserId(1);
+        user.setUsername("benchmark");
+        user.setRole(0);
+        token = jwtTokenUtil.generateToken(user);
+
+        redisService = mock(RedisService.class);
+        when(redisService.getToken(anyInt())).thenReturn(token);
+
+        interceptor = new TokenInterceptor();
+        ReflectionTestUtils.setField(interceptor, "jwtTokenUtil", jwtTokenUtil);
+        ReflectionTestUtils.setField(interceptor, "redisService", redisService);
+
+        request = new MockHttpServletRequest("GET", "/api/orders");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public boolean preHandle() throws Exception {
+        return interceptor.preHandle(request, response, null);
+    }
+
+    @Benchmark
+    public boolean legacyPreHandle() {
+        String header = request.getHeader("Authorization");
+        String raw = header.substring("Bearer ".length());
+        Claims validated = parse(raw);
+        if (validated == null || validated.getExpiration().before(new Date())) {
+            return false;
+        }
+        Integer userId = (Integer) parse(raw).get("userId");
+        String username = (String) parse(raw).get("username");
+        if (userId == null || !raw.equals(redisService.getToken(userId))) {
+            return false;
+        }
+        redisService.touchSession(userId);
+        request.setAttribute("userId", userId);
+        request.setAttribute("username", username);
+        return true;
+    }
+
+    private Claims parse(String raw) {
+        try {
+            return Jwts.parser().setSigningKey(secret).parseClaimsJws(raw).getBody();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TokenInterceptorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.dao.CartDao;
+import com.ordersystem.entity.Cart;
+import com.ordersystem.service.RedisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 购物车立即写入测试
+ * 定时任务已弹出用户但尚未写完时，flushUser等待写入锁后仍然写入数据库
+ */
+class CartHashServiceImplFlushTest {
+
+    private CartHashServiceImpl cartHashService;
+    private ValueOperations<String, String> valueOperations;
+    private SetOperations<String, String> setOperations;
+    private CartDao cartDao;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        setOperations = mock(SetOperations.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+
+        Map<Object, Object> entries = new HashMap<>();
+        entries.put("_loaded", "1");
+        entries.put("q:5", "2");
+        entries.put("s:5", "1");
+        when(hashOperations.entries("cart:hash:7")).thenReturn(entries);
+        cartDao = mock(CartDao.class);
+        when(cartDao.getCartRowsByUserId(7)).thenReturn(Collections.emptyList());
+
+        cartHashService = new CartHashServiceImpl(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(cartHashService, "stringRedisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(cartHashService, "cartDao", cartDao);
+        ReflectionTestUtils.setField(cartHashService, "redisService", mock(RedisService.class));
+        ReflectionTestUtils.setField(cartHashService, "flushLockMs", 30000L);
+        ReflectionTestUtils.setField(cartHashService, "flushWaitMs", 2000L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushUserWaitsForRunningFlushAndPersists() {
+        // 定时任务已弹出该用户（SREM失败）且持有锁，第三次尝试时释放
+        when(setOperations.remove(eq("cart:dirty"), any())).thenReturn(0L);
+        when(valueOperations.setIfAbsent(eq("cart:flush-lock:7"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(false, false, true);
+
+        cartHashService.flushUser(7);
+
+        verify(valueOperations, times(3))
+                .setIfAbsent(eq("cart:flush-lock:7"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        ArgumentCaptor<List<Cart>> captor = ArgumentCaptor.forClass(List.class);
+        verify(cartDao).batchUpsertCart(eq(7), captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(5, captor.getValue().get(0).getProductId());
+        assertEquals(2, captor.getValue().get(0).getQuantity());
+    }
+
+    @Test
+    void scheduledFlushSkipsUserLockedByFlushUser() {
+        when(setOperations.pop("cart:dirty", 100)).thenReturn(Collections.singletonList("7"));
+        when(valueOperations.setIfAbsent(eq("cart:flush-lock:7"), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(false);
+        ReflectionTestUtils.setField(cartHashService, "flushBatchSize", 100);
+
+        cartHashService.flushDirtyCarts();
+
+        verify(setOperations).add("cart:dirty", "7");
+        verify(cartDao, never()).getCartRowsByUserId(7);
+    }
+}
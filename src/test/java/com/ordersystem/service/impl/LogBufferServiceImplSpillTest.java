@@ -0,0 +1,74 @@
+package com.ordersystem.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordersystem.dao.SysLogDao;
+import com.ordersystem.entity.SysLog;
+import com.ordersystem.util.RingBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 日志缓冲溢出测试
+ * 队列满时请求线程只入转存队列，不写文件；转存队列也满时丢弃
+ */
+class LogBufferServiceImplSpillTest {
+
+    @TempDir
+    Path spillDir;
+
+    private LogBufferServiceImpl logBufferService;
+
+    @BeforeEach
+    void setUp() {
+        logBufferService = new LogBufferServiceImpl();
+        ReflectionTestUtils.setField(logBufferService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(logBufferService, "overflowPolicy", "spill");
+        ReflectionTestUtils.setField(logBufferService, "spillDir", spillDir.toString());
+        ReflectionTestUtils.setField(logBufferService, "batchSize", 10);
+        // 不启动刷写线程和转存线程，只验证submit本身
+        ReflectionTestUtils.setField(logBufferService, "buffer", new RingBuffer<SysLog>(2));
+        ReflectionTestUtils.setField(logBufferService, "spillQueue", new RingBuffer<SysLog>(2));
+    }
+
+    @Test
+    void submitDoesNotWriteSpillFile() throws Exception {
+        assertTrue(logBufferService.submit(new SysLog()));
+        assertTrue(logBufferService.submit(new SysLog()));
+        assertFalse(logBufferService.submit(new SysLog()));
+        assertFalse(logBufferService.submit(new SysLog()));
+        assertFalse(logBufferService.submit(new SysLog()));
+
+        Map<String, Object> metrics = logBufferService.getMetrics();
+        assertEquals(2, metrics.get("spillDepth"));
+        assertEquals(1L, metrics.get("dropped"));
+        try (Stream<Path> files = Files.list(spillDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void shutdownWritesQueuedSpillEntries() throws Exception {
+        ReflectionTestUtils.setField(logBufferService, "sysLogDao", mock(SysLogDao.class));
+        ReflectionTestUtils.setField(logBufferService, "sink", "database");
+        for (int i = 0; i < 4; i++) {
+            logBufferService.submit(new SysLog());
+        }
+
+        logBufferService.shutdown();
+
+        assertEquals(2L, logBufferService.getMetrics().get("spilled"));
+        assertEquals(2, Files.readAllLines(spillDir.resolve("sys-log-spill.ndjson")).size());
+    }
+}
@@ -0,0 +1,127 @@
+package com.ordersystem.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ordersystem.dao.SysLogDao;
+import com.ordersystem.entity.SysLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 旧版本日志同步测试
+ * 批量写库失败时放回列表并计数，达到最大尝试次数后逐条写入；处理完成后删除处理中列表
+ */
+class LogSyncServiceImplTest {
+
+    private static final String ATTEMPTS_KEY = "system:log:sync-attempts";
+    private static final String PROCESSING_KEY = "system:log:ids:processing:node:0";
+    private static final List<String> CHUNK_KEYS =
+            Arrays.asList("system:log:ids", PROCESSING_KEY, "system:log:ids:processing");
+
+    private LogSyncServiceImpl logSyncService;
+    private RedisTemplate<String, Object> redisTemplate;
+    private HashOperations<String, Object, Object> hashOperations;
+    private SysLogDao sysLogDao;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        redisTemplate = mock(RedisTemplate.class);
+        hashOperations = mock(HashOperations.class);
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        sysLogDao = mock(SysLogDao.class);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        when(redisTemplate.opsForHash()).thenReturn((HashOperations) hashOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        doReturn(Arrays.asList("1", "2")).when(redisTemplate).execute(eq(script("POP_CHUNK_SCRIPT")), anyList(), any());
+        String payload = objectMapper.writeValueAsString(new SysLog());
+        when(valueOperations.multiGet(Arrays.asList("system:log:1", "system:log:2")))
+                .thenReturn(Arrays.asList(payload, payload));
+        doThrow(new RuntimeException("db down")).when(sysLogDao).batchSave(anyList());
+
+        logSyncService = new LogSyncServiceImpl();
+        ReflectionTestUtils.setField(logSyncService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(logSyncService, "sysLogDao", sysLogDao);
+        ReflectionTestUtils.setField(logSyncService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(logSyncService, "maxAttempts", 3);
+    }
+
+    @Test
+    void failedChunkIsPushedBackAndCounted() {
+        when(hashOperations.multiGet(eq(ATTEMPTS_KEY), anyList())).thenReturn(Arrays.asList(null, 1));
+
+        assertEquals(-1, drain());
+
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put("1", 1);
+        expected.put("2", 2);
+        verify(hashOperations).putAll(ATTEMPTS_KEY, expected);
+        verify(redisTemplate).execute(script("RETURN_CHUNK_SCRIPT"), CHUNK_KEYS);
+        verify(redisTemplate, never()).execute(eq(script("RELEASE_CHUNK_SCRIPT")), anyList());
+        verify(sysLogDao, never()).save(any());
+    }
+
+    @Test
+    void lastAttemptFallsBackToRowByRow() {
+        when(hashOperations.multiGet(eq(ATTEMPTS_KEY), anyList())).thenReturn(Arrays.asList(2, null));
+
+        assertEquals(2, drain());
+
+        verify(sysLogDao, times(2)).save(any(SysLog.class));
+        verify(redisTemplate, never()).execute(eq(script("RETURN_CHUNK_SCRIPT")), anyList());
+        verify(redisTemplate).delete(Arrays.asList("system:log:1", "system:log:2"));
+        verify(hashOperations).delete(ATTEMPTS_KEY, "1", "2");
+        verify(redisTemplate).execute(script("RELEASE_CHUNK_SCRIPT"),
+                Arrays.asList(PROCESSING_KEY, "system:log:ids:processing"));
+    }
+
+    @Test
+    void emptyListReturnsZero() {
+        doReturn(Collections.emptyList()).when(redisTemplate).execute(eq(script("POP_CHUNK_SCRIPT")), anyList(), any());
+
+        assertEquals(0, drain());
+    }
+
+    @Test
+    void staleProcessingListsAreRecovered() {
+        ReflectionTestUtils.setField(logSyncService, "processingIdleMs", 60000L);
+        doReturn(3L).when(redisTemplate).execute(eq(script("RECOVER_SCRIPT")), anyList(), any());
+
+        logSyncService.run();
+
+        verify(redisTemplate).execute(eq(script("RECOVER_SCRIPT")),
+                eq(Arrays.asList("system:log:ids", "system:log:ids:processing")), any());
+    }
+
+    private int drain() {
+        Integer count = ReflectionTestUtils.invokeMethod(logSyncService, "drainLegacyChunk", 10, PROCESSING_KEY);
+        return count != null ? count : Integer.MIN_VALUE;
+    }
+
+    private static RedisScript<?> script(String name) {
+        return (RedisScript<?>) ReflectionTestUtils.getField(LogSyncServiceImpl.class, name);
+    }
+}
@@ -0,0 +1,29 @@
+package com.ordersystem.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 订单导出CSV测试
+ * 可能被表格软件当作公式执行的值按文本输出
+ */
+class OrderExportServiceImplCsvTest {
+
+    @Test
+    void formulaPrefixesAreNeutralized() {
+        assertEquals("'=HYPERLINK(\"http://x\")", OrderExportServiceImpl.neutralizeFormula("=HYPERLINK(\"http://x\")"));
+        assertEquals("'+1+2", OrderExportServiceImpl.neutralizeFormula("+1+2"));
+        assertEquals("'-2+3", OrderExportServiceImpl.neutralizeFormula("-2+3"));
+        assertEquals("'@SUM(A1)", OrderExportServiceImpl.neutralizeFormula("@SUM(A1)"));
+        assertEquals("'\t=1", OrderExportServiceImpl.neutralizeFormula("\t=1"));
+    }
+
+    @Test
+    void ordinaryValuesAreUnchanged() {
+        assertEquals("", OrderExportServiceImpl.neutralizeFormula(""));
+        assertEquals("张三", OrderExportServiceImpl.neutralizeFormula("张三"));
+        assertEquals("-12.50", OrderExportServiceImpl.neutralizeFormula("-12.50"));
+        assertEquals("2024-01-01 10:00:00", OrderExportServiceImpl.neutralizeFormula("2024-01-01 10:00:00"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.dao.OrderDao;
+import com.ordersystem.dao.OrderItemDao;
+import com.ordersystem.entity.Order;
+import com.ordersystem.entity.OrderItem;
+import com.ordersystem.service.CategorySalesService;
+import com.ordersystem.service.ProductService;
+import com.ordersystem.service.RedisService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 通用订单更新测试
+ * 状态改为已取消时与cancelOrder一样退还库存和类别销售统计
+ */
+class OrderServiceImplUpdateTest {
+
+    private OrderServiceImpl orderService;
+    private OrderDao orderDao;
+    private ProductService productService;
+    private CategorySalesService categorySalesService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        orderService = new OrderServiceImpl();
+        orderDao = mock(OrderDao.class);
+        OrderItemDao orderItemDao = mock(OrderItemDao.class);
+        productService = mock(ProductService.class);
+        categorySalesService = mock(CategorySalesService.class);
+        OrderItem item = new OrderItem();
+        item.setProductId(3);
+        item.setQuantity(2);
+        when(orderItemDao.getOrderItemsByOrderId(9)).thenReturn(Collections.singletonList(item));
+        when(orderDao.updateOrder(any(Order.class))).thenReturn(1);
+        ReflectionTestUtils.setField(orderService, "orderDao", orderDao);
+        ReflectionTestUtils.setField(orderService, "orderItemDao", orderItemDao);
+        ReflectionTestUtils.setField(orderService, "productService", productService);
+        ReflectionTestUtils.setField(orderService, "categorySalesService", categorySalesService);
+        ReflectionTestUtils.setField(orderService, "redisService", mock(RedisService.class));
+        ReflectionTestUtils.setField(orderService, "redisTemplate", mock(RedisTemplate.class));
+    }
+
+    @Test
+    void cancellingThroughUpdateRestoresStock() {
+        when(orderDao.getOrderById(9)).thenReturn(order(1));
+
+        assertTrue(orderService.updateOrder(order(4)));
+
+        verify(productService).updateProductStock(3, 2);
+        verify(categorySalesService).subtractSales(any());
+    }
+
+    @Test
+    void alreadyCancelledOrderDoesNotRestoreAgain() {
+        when(orderDao.getOrderById(9)).thenReturn(order(4));
+
+        assertTrue(orderService.updateOrder(order(4)));
+
+        verify(productService, never()).updateProductStock(anyInt(), anyInt());
+    }
+
+    @Test
+    void shippedOrderCannotBeCancelledThroughUpdate() {
+        when(orderDao.getOrderById(9)).thenReturn(order(2));
+
+        assertThrows(IllegalStateException.class, () -> orderService.updateOrder(order(4)));
+        verify(productService, never()).updateProductStock(anyInt(), anyInt());
+    }
+
+    private static Order order(int status) {
+        Order order = new Order();
+        order.setOrderId(9);
+        order.setStatus(status);
+        return order;
+    }
+}
@@ -0,0 +1,102 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.util.UsernameNormalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 单机限流测试
+ * 令牌桶数量不超过上限，超出时淘汰最久未使用的令牌桶
+ */
+class RateLimitServiceImplTest {
+
+    private RateLimitServiceImpl rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        rateLimitService = new RateLimitServiceImpl();
+        ReflectionTestUtils.setField(rateLimitService, "mode", "local");
+        ReflectionTestUtils.setField(rateLimitService, "maxLocalBuckets", 3);
+    }
+
+    @Test
+    void bucketLimitsRequests() {
+        assertTrue(rateLimitService.tryAcquire("a", 2, 0.001));
+        assertTrue(rateLimitService.tryAcquire("a", 2, 0.001));
+        assertFalse(rateLimitService.tryAcquire("a", 2, 0.001));
+    }
+
+    @Test
+    void bucketCountNeverExceedsLimit() {
+        for (int i = 0; i < 100; i++) {
+            rateLimitService.tryAcquire("key" + i, 1, 0.001);
+        }
+        assertEquals(3, buckets().size());
+    }
+
+    @Test
+    void leastRecentlyUsedBucketIsEvicted() {
+        rateLimitService.tryAcquire("a", 1, 0.001);
+        rateLimitService.tryAcquire("b", 1, 0.001);
+        rateLimitService.tryAcquire("c", 1, 0.001);
+        // 访问a后b成为最久未使用
+        rateLimitService.tryAcquire("a", 1, 0.001);
+        rateLimitService.tryAcquire("d", 1, 0.001);
+
+        assertTrue(buckets().containsKey("a"));
+        assertFalse(buckets().containsKey("b"));
+        assertFalse(rateLimitService.tryAcquire("a", 1, 0.001));
+    }
+
+    @Test
+    void fullBucketsAreSwept() throws InterruptedException {
+        rateLimitService.tryAcquire("a", 1, 1000);
+        rateLimitService.tryAcquire("b", 1, 0.001);
+        // a每毫秒补充一个令牌，等待后已补满
+        Thread.sleep(10);
+
+        rateLimitService.evictFullBuckets();
+
+        assertTrue(buckets().containsKey("b"));
+        assertFalse(buckets().containsKey("a"));
+    }
+
+    @Test
+    void hasTokenDoesNotConsume() {
+        ReflectionTestUtils.setField(rateLimitService, "environment", new MockEnvironment()
+                .withProperty("rate-limit.rules.login-user.capacity", "2")
+                .withProperty("rate-limit.rules.login-user.refill-per-second", "0.001"));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimitService.hasToken("login-user", "admin"));
+        }
+        // 只有失败时扣减，两次失败后拒绝
+        rateLimitService.tryAcquire("login-user", "admin");
+        assertTrue(rateLimitService.hasToken("login-user", "admin"));
+        rateLimitService.tryAcquire("login-user", "admin");
+        assertFalse(rateLimitService.hasToken("login-user", "admin"));
+        assertTrue(rateLimitService.hasToken("login-user", "other"));
+    }
+
+    @Test
+    void usernameVariantsShareOneKey() {
+        String key = UsernameNormalizer.normalize("Admin");
+        assertEquals(key, UsernameNormalizer.normalize("ADMIN"));
+        assertEquals(key, UsernameNormalizer.normalize("Àdmín"));
+        assertEquals(key, UsernameNormalizer.normalize("Ａｄｍｉｎ"));
+        assertEquals(UsernameNormalizer.normalize("strasse"), UsernameNormalizer.normalize("Straße"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> buckets() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(rateLimitService, "buckets");
+    }
+}
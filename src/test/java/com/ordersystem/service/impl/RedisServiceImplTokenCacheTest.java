@@ -0,0 +1,91 @@
+package com.ordersystem.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 本地Token缓存测试
+ * 缓存条数有上限，读取Redis期间收到失效通知时不缓存旧Token
+ */
+class RedisServiceImplTokenCacheTest {
+
+    private RedisServiceImpl redisService;
+    private ValueOperations<String, Object> valueOperations;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        redisService = new RedisServiceImpl();
+        ReflectionTestUtils.setField(redisService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(redisService, "tokenCacheTtlMs", 60_000L);
+        ReflectionTestUtils.setField(redisService, "tokenCacheMaxSize", 3);
+    }
+
+    @Test
+    void tokenIsServedFromLocalCache() {
+        when(valueOperations.get("token:1")).thenReturn("t1");
+
+        assertEquals("t1", redisService.getToken(1));
+        assertEquals("t1", redisService.getToken(1));
+
+        verify(valueOperations, times(1)).get("token:1");
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotOverwritten() {
+        when(valueOperations.get("token:1")).thenAnswer(invocation -> {
+            // 读取Redis期间其他节点注销了该用户
+            redisService.evictLocalToken(1);
+            return "stale";
+        });
+
+        assertEquals("stale", redisService.getToken(1));
+        assertFalse(localTokens().containsKey(1));
+    }
+
+    @Test
+    void cacheSizeIsBounded() {
+        for (int userId = 1; userId <= 10; userId++) {
+            when(valueOperations.get("token:" + userId)).thenReturn("t" + userId);
+            redisService.getToken(userId);
+            assertTrue(localTokens().size() <= 3);
+        }
+        assertTrue(localTokens().containsKey(10));
+    }
+
+    @Test
+    void expiredEntriesArePurgedFirst() {
+        for (int userId = 1; userId <= 3; userId++) {
+            when(valueOperations.get("token:" + userId)).thenReturn("t" + userId);
+            redisService.getToken(userId);
+        }
+        ReflectionTestUtils.setField(redisService, "tokenCacheTtlMs", 0L);
+        when(valueOperations.get("token:4")).thenReturn("t4");
+
+        redisService.getToken(4);
+
+        assertEquals(1, localTokens().size());
+        assertTrue(localTokens().containsKey(4));
+    }
+
+    private Map<?, ?> localTokens() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(redisService, "localTokens");
+    }
+}
@@ -0,0 +1,56 @@
+package com.ordersystem.service.impl;
+
+import com.ordersystem.service.RedisService;
+import com.ordersystem.service.UserFilterService;
+import com.ordersystem.util.BloomFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户名过滤器测试
+ * 本节点新增的用户名通知其他节点，收到的通知只加入本地过滤器
+ */
+class UserFilterServiceImplTest {
+
+    private UserFilterServiceImpl userFilterService;
+    private StringRedisTemplate stringRedisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        userFilterService = new UserFilterServiceImpl();
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        RedisService redisService = mock(RedisService.class);
+        when(redisService.getNodeId()).thenReturn("node-a");
+        ReflectionTestUtils.setField(userFilterService, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(userFilterService, "redisService", redisService);
+        ReflectionTestUtils.setField(userFilterService, "usernames", new BloomFilter(1000, 0.01));
+    }
+
+    @Test
+    void addUsernamePublishesNormalizedName() {
+        assertFalse(userFilterService.mightContainUsername("Alice"));
+
+        userFilterService.addUsername("Alice");
+
+        assertTrue(userFilterService.mightContainUsername("alice"));
+        verify(stringRedisTemplate).convertAndSend(UserFilterService.USERNAME_ADDED_CHANNEL, "node-a:alice");
+    }
+
+    @Test
+    void remoteUsernameIsNotRepublished() {
+        userFilterService.addLocalUsername("bob");
+
+        assertTrue(userFilterService.mightContainUsername("BOB"));
+        verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+}
@@ -0,0 +1,135 @@
+package com.ordersystem.util;
+
+import com.ordersystem.entity.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JwtTokenUtil测试
+ * 覆盖已验签Token缓存的命中、过期和缓存满时的清理
+ */
+class JwtTokenUtilTest {
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "verifiedCacheSize", 10000);
+    }
+
+    @Test
+    void parseTokenReturnsPrincipalAndCachesIt() {
+        String token = jwtTokenUtil.generateToken(user(1, "alice", 1));
+
+        TokenPrincipal first = jwtTokenUtil.parseToken(token);
+        assertNotNull(first);
+        assertEquals(1, first.getUserId());
+        assertEquals("alice", first.getUsername());
+        assertTrue(first.isAdmin());
+
+        // 缓存命中时返回同一个对象，不再解析和验签
+        assertSame(first, jwtTokenUtil.parseToken(token));
+        assertEquals(1, cache().size());
+    }
+
+    @Test
+    void invalidTokensAreRejectedAndNotCached() {
+        String token = jwtTokenUtil.generateToken(user(1, "alice", 0));
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        assertNull(jwtTokenUtil.parseToken(tampered));
+        assertNull(jwtTokenUtil.parseToken("not-a-jwt"));
+        assertNull(jwtTokenUtil.parseToken(""));
+        assertNull(jwtTokenUtil.parseToken(null));
+        assertTrue(cache().isEmpty());
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String token = signedToken(2, "bob", new Date(System.currentTimeMillis() - 1000));
+
+        assertNull(jwtTokenUtil.parseToken(token));
+        assertTrue(cache().isEmpty());
+    }
+
+    @Test
+    void cachedEntryIsDroppedOnceExpired() {
+        String token = jwtTokenUtil.generateToken(user(3, "carol", 0));
+        cache().put(token, new TokenPrincipal(3, "carol", 0, System.currentTimeMillis() - 1));
+
+        assertNull(jwtTokenUtil.parseToken(token));
+        assertFalse(cache().containsKey(token));
+    }
+
+    @Test
+    void fullCachePurgesExpiredEntriesFirst() {
+        ReflectionTestUtils.setField(jwtTokenUtil, "verifiedCacheSize", 2);
+        String live = jwtTokenUtil.generateToken(user(1, "alice", 0));
+        jwtTokenUtil.parseToken(live);
+        cache().put("expired-token", new TokenPrincipal(9, "old", 0, System.currentTimeMillis() - 1));
+
+        String next = jwtTokenUtil.generateToken(user(2, "bob", 0));
+        assertNotNull(jwtTokenUtil.parseToken(next));
+
+        assertEquals(2, cache().size());
+        assertTrue(cache().containsKey(live));
+        assertTrue(cache().containsKey(next));
+        assertFalse(cache().containsKey("expired-token"));
+    }
+
+    @Test
+    void fullCacheWithoutExpiredEntriesIsCleared() {
+        ReflectionTestUtils.setField(jwtTokenUtil, "verifiedCacheSize", 2);
+        String first = jwtTokenUtil.generateToken(user(1, "alice", 0));
+        String second = jwtTokenUtil.generateToken(user(2, "bob", 0));
+        String third = jwtTokenUtil.generateToken(user(3, "carol", 0));
+        jwtTokenUtil.parseToken(first);
+        jwtTokenUtil.parseToken(second);
+
+        assertNotNull(jwtTokenUtil.parseToken(third));
+
+        assertEquals(1, cache().size());
+        assertTrue(cache().containsKey(third));
+        // 被清掉的Token仍然有效，下次请求重新验签
+        assertNotNull(jwtTokenUtil.parseToken(first));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, TokenPrincipal> cache() {
+        return (Map<String, TokenPrincipal>) ReflectionTestUtils.getField(jwtTokenUtil, "verifiedTokens");
+    }
+
+    private static String signedToken(Integer userId, String username, Date expiration) {
+        String secret = (String) ReflectionTestUtils.getField(JwtTokenUtil.class, "SECRET");
+        return Jwts.builder()
+                .claim("userId", userId)
+                .claim("username", username)
+                .claim("role", 0)
+                .setIssuedAt(new Date(expiration.getTime() - 60_000))
+                .setExpiration(expiration)
+                .signWith(SignatureAlgorithm.HS512, secret)
+                .compact();
+    }
+
+    private static User user(Integer userId, String username, Integer role) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setUsername(username);
+        user.setRole(role);
+        return user;
+    }
+}